@@ -0,0 +1,65 @@
+package ru.yandex.kardomoblieapp.config;
+
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+import ru.yandex.kardomoblieapp.datafiles.storage.StorageLayout;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Отдача сохраненных файлов по /content/blobs/**. Наружу отдается только директория с содержимым файлов, а не весь
+ * корень хранилища с временными файлами. Ключи файлов строятся по хэшу содержимого, поэтому содержимое по
+ * одному адресу никогда не меняется: ответы кэшируются клиентами как immutable, а ETag строится из хэша в имени
+ * файла без чтения файла. Если рядом с файлом лежит сжатая копия и клиент принимает gzip, отдается она.
+ */
+@Configuration
+public class ContentResourceConfig implements WebMvcConfigurer {
+
+    @Value("${server.file-storage.directory}")
+    private String baseFileDirectory;
+
+    @Value("${server.file-storage.content-cache-max-age:P365D}")
+    private Duration cacheMaxAge;
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        final String location = Paths.get(baseFileDirectory, StorageLayout.ROOT_DIRECTORY).toUri().toString();
+        registry.addResourceHandler("/content/" + StorageLayout.ROOT_DIRECTORY + "/**")
+                .addResourceLocations(location.endsWith("/") ? location : location + "/")
+                .setCacheControl(CacheControl.maxAge(cacheMaxAge).cachePublic().immutable())
+                .setEtagGenerator(this::contentETag)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new PathResourceResolver());
+    }
+
+    /**
+     * Строгий ETag из имени файла. Для сжатой копии к нему добавляется способ сжатия, чтобы разные представления
+     * одного файла имели разные ETag.
+     */
+    private String contentETag(Resource resource) {
+        String fileName = resource.getFilename();
+        if (fileName == null) {
+            return null;
+        }
+        String contentEncoding = null;
+        if (resource instanceof HttpResource httpResource) {
+            contentEncoding = httpResource.getResponseHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+        }
+        if (contentEncoding != null) {
+            fileName = FilenameUtils.removeExtension(fileName);
+        }
+        final String tag = FilenameUtils.getBaseName(fileName);
+        return "\"" + (contentEncoding == null ? tag : tag + "-" + contentEncoding) + "\"";
+    }
+}
@@ -0,0 +1,85 @@
+package ru.yandex.kardomoblieapp.datafiles.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.kardomoblieapp.datafiles.model.FileContent;
+import ru.yandex.kardomoblieapp.datafiles.service.DataFileService;
+import ru.yandex.kardomoblieapp.shared.exception.ErrorResponse;
+
+@RestController
+@RequestMapping("/files")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Файлы", description = "Получение сохраненных файлов")
+public class DataFileController {
+
+    private final DataFileService dataFileService;
+
+    /**
+     * Потоковая отдача файла. Заголовок Range обрабатывается Spring MVC (ответ 206 с запрошенным фрагментом),
+     * условные запросы If-None-Match/If-Modified-Since - по заголовкам ETag и Last-Modified (ответ 304).
+     * Если хранилище выдает ссылки для прямого скачивания, клиент перенаправляется на подписанную ссылку.
+     */
+    @GetMapping("/{fileId}")
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Скачивание файла с поддержкой частичной загрузки")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Файл найден"),
+            @ApiResponse(responseCode = "206", description = "Возвращен запрошенный фрагмент файла"),
+            @ApiResponse(responseCode = "302", description = "Файл нужно скачать из хранилища по ссылке из заголовка " +
+                    "Location"),
+            @ApiResponse(responseCode = "304", description = "Файл не изменился"),
+            @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован"),
+            @ApiResponse(responseCode = "403", description = "Срок действия токена доступа истек"),
+            @ApiResponse(responseCode = "404", description = "Файл не найден", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
+            @ApiResponse(responseCode = "409", description = "Ошибка при чтении файла", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
+            @ApiResponse(responseCode = "416", description = "Запрошенный диапазон недоступен"),
+            @ApiResponse(responseCode = "500", description = "Произошла неизвестная ошибка", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
+    })
+    public ResponseEntity<Resource> downloadFile(@PathVariable @Parameter(description = "Идентификатор файла")
+                                                 long fileId) {
+        log.debug("Скачивание файла с id '{}'.", fileId);
+        final FileContent content = dataFileService.downloadFileById(fileId);
+        if (content.isRedirect()) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(content.redirectUri())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .contentType(getMediaType(content))
+                .eTag(content.eTag())
+                .lastModified(content.lastModified())
+                .body(content.resource());
+    }
+
+    private MediaType getMediaType(FileContent content) {
+        final String fileType = content.dataFile().getFileType();
+        if (fileType == null) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+        try {
+            return MediaType.parseMediaType(fileType);
+        } catch (IllegalArgumentException e) {
+            return MediaType.APPLICATION_OCTET_STREAM;
+        }
+    }
+}
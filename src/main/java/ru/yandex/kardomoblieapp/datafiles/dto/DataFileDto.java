@@ -3,13 +3,19 @@ package ru.yandex.kardomoblieapp.datafiles.dto;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 
+import java.util.Map;
+
 @Builder
 @Schema(description = "Сущность сохраненного файла")
 public record DataFileDto(@Schema(description = "Идентификатор файла")
                           Long id,
                           @Schema(description = "Имя файла")
                           String fileName,
-                          @Schema(description = "Путь до файла")
-                          String filePath) {
+                          @Schema(description = "Путь до файла в хранилище")
+                          String filePath,
+                          @Schema(description = "Ссылка для скачивания файла")
+                          String url,
+                          @Schema(description = "Ссылки на уменьшенные копии изображения по названию размера")
+                          Map<String, String> variants) {
 
 }
@@ -1,11 +1,15 @@
 package ru.yandex.kardomoblieapp.datafiles.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import ru.yandex.kardomoblieapp.datafiles.dto.DataFileDto;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
 
-@Mapper(componentModel = "spring")
+@Mapper(componentModel = "spring", uses = DownloadUrlMapper.class)
 public interface DataFileMapper {
 
+    @Mapping(target = "filePath", source = "storageKey")
+    @Mapping(target = "url", source = "dataFile", qualifiedByName = "downloadUrl")
+    @Mapping(target = "variants", source = "variants", qualifiedByName = "variantUrls")
     DataFileDto toDto(DataFile dataFile);
 }
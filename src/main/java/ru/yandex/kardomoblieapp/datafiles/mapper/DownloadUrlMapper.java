@@ -0,0 +1,61 @@
+package ru.yandex.kardomoblieapp.datafiles.mapper;
+
+import lombok.RequiredArgsConstructor;
+import org.mapstruct.Named;
+import org.springframework.stereotype.Component;
+import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.ImageVariant;
+import ru.yandex.kardomoblieapp.datafiles.storage.BlobStore;
+import ru.yandex.kardomoblieapp.datafiles.storage.StorageLayout;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Формирование ссылки для скачивания файла: подписанная ссылка хранилища, если оно поддерживает прямое
+ * скачивание, иначе ссылка на статический ресурс /content/<ключ>, который кэшируется клиентами как неизменяемый.
+ * Файлы со старыми ключами вне директории с содержимым отдаются потоково через /files/{id}, а их уменьшенные копии
+ * не возвращаются до переноса в новую раскладку.
+ */
+@Component
+@RequiredArgsConstructor
+public class DownloadUrlMapper {
+
+    private final BlobStore blobStore;
+
+    @Named("downloadUrl")
+    public String toDownloadUrl(DataFile dataFile) {
+        if (dataFile == null || dataFile.getStorageKey() == null) {
+            return null;
+        }
+        return blobStore.getDirectDownloadUri(dataFile.getStorageKey())
+                .map(URI::toString)
+                .or(() -> toContentUrl(dataFile.getStorageKey()))
+                .orElse("/files/" + dataFile.getId());
+    }
+
+    @Named("variantUrls")
+    public Map<String, String> toVariantUrls(List<ImageVariant> variants) {
+        final Map<String, String> urls = new LinkedHashMap<>();
+        if (variants == null) {
+            return urls;
+        }
+        for (ImageVariant variant : variants) {
+            blobStore.getDirectDownloadUri(variant.getStorageKey())
+                    .map(URI::toString)
+                    .or(() -> toContentUrl(variant.getStorageKey()))
+                    .ifPresent(url -> urls.put(variant.getVariant(), url));
+        }
+        return urls;
+    }
+
+    private Optional<String> toContentUrl(String storageKey) {
+        if (!storageKey.startsWith(StorageLayout.ROOT_DIRECTORY + "/")) {
+            return Optional.empty();
+        }
+        return Optional.of("/content/" + storageKey);
+    }
+}
@@ -1,10 +1,14 @@
 package ru.yandex.kardomoblieapp.datafiles.model;
 
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,6 +16,10 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+
+import java.util.ArrayList;
+import java.util.List;
 
 @Entity
 @Table(name = "data_files")
@@ -24,7 +32,8 @@ import lombok.ToString;
 public class DataFile {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "data_files_seq")
+    @SequenceGenerator(name = "data_files_seq", sequenceName = "data_files_seq", allocationSize = 50)
     @Column(name = "data_file_id")
     private Long id;
 
@@ -34,6 +43,19 @@ public class DataFile {
     @Column(name = "file_type")
     private String fileType;
 
-    @Column(name = "file_path")
-    private String filePath;
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @ElementCollection
+    @CollectionTable(name = "data_file_variants", joinColumns = @JoinColumn(name = "data_file_id"))
+    @BatchSize(size = 50)
+    @Builder.Default
+    @ToString.Exclude
+    private List<ImageVariant> variants = new ArrayList<>();
 }
@@ -0,0 +1,41 @@
+package ru.yandex.kardomoblieapp.datafiles.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Файл в хранилище, адресуемый по SHA-256 содержимого. Несколько записей DataFile с одинаковым содержимым
+ * ссылаются на один файл, количество ссылок хранится в refCount. Счетчик изменяется только SQL запросами
+ * FileBlobRepository.
+ */
+@Entity
+@Table(name = "file_blobs")
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+@Builder
+public class FileBlob {
+
+    @Id
+    @Column(name = "content_hash")
+    private String contentHash;
+
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "ref_count", updatable = false)
+    private int refCount;
+}
@@ -0,0 +1,40 @@
+package ru.yandex.kardomoblieapp.datafiles.model;
+
+import org.springframework.core.io.Resource;
+
+import java.net.URI;
+
+/**
+ * Содержимое сохраненного файла для отдачи клиенту: либо ресурс для потоковой передачи, либо ссылка для
+ * скачивания напрямую из хранилища.
+ *
+ * @param dataFile      данные о файле
+ * @param resource      ресурс, читающий файл из хранилища по мере записи ответа
+ * @param contentLength размер файла в байтах
+ * @param lastModified  время последнего изменения файла в миллисекундах
+ * @param redirectUri   ссылка для скачивания напрямую из хранилища
+ */
+public record FileContent(DataFile dataFile, Resource resource, long contentLength, long lastModified,
+                          URI redirectUri) {
+
+    public static FileContent stream(DataFile dataFile, Resource resource, long contentLength, long lastModified) {
+        return new FileContent(dataFile, resource, contentLength, lastModified, null);
+    }
+
+    public static FileContent redirect(DataFile dataFile, URI redirectUri) {
+        return new FileContent(dataFile, null, 0, 0, redirectUri);
+    }
+
+    public boolean isRedirect() {
+        return redirectUri != null;
+    }
+
+    /**
+     * Строгий ETag файла. Файлы в хранилище не перезаписываются, поэтому идентификатора, размера и времени
+     * изменения достаточно, чтобы отличать версии без чтения содержимого.
+     */
+    public String eTag() {
+        return "\"" + dataFile.getId() + "-" + Long.toHexString(contentLength) + "-" +
+                Long.toHexString(lastModified) + "\"";
+    }
+}
@@ -0,0 +1,35 @@
+package ru.yandex.kardomoblieapp.datafiles.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Уменьшенная копия изображения, сохраненная в хранилище рядом с оригиналом.
+ */
+@Embeddable
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@ToString
+@Builder
+public class ImageVariant {
+
+    @Column(name = "variant")
+    private String variant;
+
+    @Column(name = "storage_key")
+    private String storageKey;
+
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+}
@@ -0,0 +1,20 @@
+package ru.yandex.kardomoblieapp.datafiles.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Размеры уменьшенных копий изображений. Указана длина большей стороны в пикселях. Порядок от большего
+ * к меньшему важен: каждая следующая копия получается из предыдущей.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum ThumbnailSize {
+    LARGE("large", 1080),
+    MEDIUM("medium", 320),
+    SMALL("small", 64);
+
+    private final String variantName;
+
+    private final int maxSide;
+}
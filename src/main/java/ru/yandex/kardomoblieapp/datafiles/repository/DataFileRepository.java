@@ -1,7 +1,29 @@
 package ru.yandex.kardomoblieapp.datafiles.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.ImageVariant;
+
+import java.util.List;
 
 public interface DataFileRepository extends JpaRepository<DataFile, Long> {
+
+    @Query("SELECT d FROM DataFile d WHERE d.contentHash IS NULL AND d.id > ?1 ORDER BY d.id")
+    List<DataFile> findNotDeduplicatedAfter(long fileId, Pageable pageable);
+
+    @Query("SELECT v FROM DataFile d JOIN d.variants v WHERE d.id = (SELECT MIN(o.id) FROM DataFile o " +
+            "JOIN o.variants WHERE o.contentHash = ?1 AND o.id <> ?2)")
+    List<ImageVariant> findVariantsOfSameContent(String contentHash, long excludedFileId);
+
+    @Modifying
+    @Query("UPDATE DataFile d SET d.storageKey = ?2, d.fileName = ?3 WHERE d.contentHash = ?1")
+    int updateStorageKeyByContentHash(String contentHash, String storageKey, String fileName);
+
+    @Modifying
+    @Query(value = "UPDATE data_file_variants v SET storage_key = ?3 FROM data_files d " +
+            "WHERE v.data_file_id = d.data_file_id AND d.content_hash = ?1 AND v.storage_key = ?2", nativeQuery = true)
+    int updateVariantStorageKey(String contentHash, String storageKey, String newStorageKey);
 }
@@ -0,0 +1,40 @@
+package ru.yandex.kardomoblieapp.datafiles.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import ru.yandex.kardomoblieapp.datafiles.model.FileBlob;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface FileBlobRepository extends JpaRepository<FileBlob, String> {
+
+    @Modifying
+    @Query(value = "INSERT INTO file_blobs (content_hash, storage_key, file_size, ref_count) VALUES (?1, ?2, ?3, 1) " +
+            "ON CONFLICT (content_hash) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(String contentHash, String storageKey, long fileSize);
+
+    @Query(value = "UPDATE file_blobs SET ref_count = ref_count + 1 WHERE content_hash = ?1 RETURNING storage_key",
+            nativeQuery = true)
+    Optional<String> acquire(String contentHash);
+
+    @Query(value = "UPDATE file_blobs SET ref_count = ref_count - 1 WHERE content_hash = ?1 RETURNING ref_count",
+            nativeQuery = true)
+    Optional<Integer> release(String contentHash);
+
+    @Modifying
+    @Query(value = "DELETE FROM file_blobs WHERE content_hash = ?1 AND ref_count <= 0", nativeQuery = true)
+    int deleteIfUnreferenced(String contentHash);
+
+    @Query(value = "SELECT storage_key FROM file_blobs WHERE content_hash = ?1 FOR UPDATE", nativeQuery = true)
+    Optional<String> lockStorageKey(String contentHash);
+
+    @Query("SELECT b FROM FileBlob b WHERE b.contentHash > ?1 ORDER BY b.contentHash")
+    List<FileBlob> findAfter(String contentHash, Pageable pageable);
+
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.storageKey = ?2 WHERE b.contentHash = ?1")
+    int updateStorageKey(String contentHash, String storageKey);
+}
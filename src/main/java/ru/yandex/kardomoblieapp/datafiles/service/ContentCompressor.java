@@ -0,0 +1,81 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Подготовка сжатых копий текстовых файлов. Сжатая копия хранится рядом с оригиналом под ключом с суффиксом .gz
+ * и отдается по /content/** клиентам, которые принимают gzip, без сжатия на каждый запрос. Изображения и видео
+ * уже сжаты, поэтому для них копии не создаются.
+ */
+@Component
+@Slf4j
+public class ContentCompressor {
+
+    public static final String GZIP_SUFFIX = ".gz";
+
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of("txt", "csv", "json", "xml", "html", "htm",
+            "css", "js", "svg", "md", "log");
+
+    /**
+     * Сжатая копия сохраняется, только если она меньше оригинала хотя бы на эту долю.
+     */
+    private static final double MIN_SAVING = 0.1;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Value("${server.file-storage.precompress.enabled:true}")
+    private boolean enabled;
+
+    @Value("${server.file-storage.precompress.min-size:1024}")
+    private long minSize;
+
+    /**
+     * Ключ сжатой копии файла.
+     *
+     * @param storageKey ключ оригинала
+     * @return ключ сжатой копии
+     */
+    public static String compressedKey(String storageKey) {
+        return storageKey + GZIP_SUFFIX;
+    }
+
+    /**
+     * Создание сжатой копии файла во временной директории.
+     *
+     * @param storageKey ключ, под которым будет сохранен оригинал
+     * @param source     файл с содержимым
+     * @param size       размер содержимого
+     * @param directory  директория для временного файла
+     * @return временный файл со сжатым содержимым или пустой Optional, если сжимать файл не нужно
+     */
+    public Optional<Path> compress(String storageKey, Path source, long size, Path directory) throws IOException {
+        if (!enabled || size < minSize
+                || !COMPRESSIBLE_EXTENSIONS.contains(FilenameUtils.getExtension(storageKey).toLowerCase())) {
+            return Optional.empty();
+        }
+        final Path compressed = Files.createTempFile(directory, "compressed-", GZIP_SUFFIX);
+        try (InputStream in = Files.newInputStream(source);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed), BUFFER_SIZE)) {
+            in.transferTo(out);
+        }
+        final long compressedSize = Files.size(compressed);
+        if (compressedSize > size * (1 - MIN_SAVING)) {
+            Files.deleteIfExists(compressed);
+            return Optional.empty();
+        }
+        log.debug("Создана сжатая копия файла '{}': {} байт вместо {}.", storageKey, compressedSize, size);
+        return Optional.of(compressed);
+    }
+}
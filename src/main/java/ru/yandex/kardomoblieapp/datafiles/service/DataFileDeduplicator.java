@@ -0,0 +1,137 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.repository.DataFileRepository;
+import ru.yandex.kardomoblieapp.datafiles.repository.FileBlobRepository;
+import ru.yandex.kardomoblieapp.datafiles.storage.BlobStore;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Перенос файлов, загруженных до появления дедупликации, в хранилище с адресацией по содержимому. Для каждой
+ * записи DataFile без хэша пересчитывается SHA-256. Первый файл с данным содержимым регистрируется в file_blobs
+ * без перемещения, остальные записи переводятся на него, а их копии удаляются из хранилища после фиксации транзакции.
+ * Запускается при старте приложения, если server.file-storage.deduplicate-on-startup=true. Повторный запуск
+ * обрабатывает только оставшиеся записи.
+ */
+@Component
+@ConditionalOnProperty(name = "server.file-storage.deduplicate-on-startup", havingValue = "true")
+@Order(1)
+@RequiredArgsConstructor
+@Slf4j
+public class DataFileDeduplicator implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final int MAX_STORE_ATTEMPTS = 3;
+
+    private final DataFileRepository dataFileRepository;
+
+    private final FileBlobRepository fileBlobRepository;
+
+    private final BlobStore blobStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        deduplicateExistingFiles();
+    }
+
+    /**
+     * Дедупликация ранее загруженных файлов.
+     */
+    public void deduplicateExistingFiles() {
+        log.info("Запуск дедупликации ранее загруженных файлов.");
+        long lastId = 0;
+        long processed = 0;
+        long removedCopies = 0;
+        long freedBytes = 0;
+        List<DataFile> batch;
+        do {
+            batch = dataFileRepository.findNotDeduplicatedAfter(lastId, PageRequest.of(0, BATCH_SIZE));
+            for (DataFile dataFile : batch) {
+                lastId = dataFile.getId();
+                final Resource resource = blobStore.getResource(dataFile.getStorageKey());
+                if (!resource.exists()) {
+                    log.warn("Файл с id '{}' отсутствует в хранилище по ключу '{}'.", dataFile.getId(),
+                            dataFile.getStorageKey());
+                    continue;
+                }
+                try {
+                    final long size = resource.contentLength();
+                    final String storageKey = registerBlob(dataFile.getId(), hash(resource), size);
+                    processed++;
+                    if (storageKey != null && !storageKey.equals(dataFile.getStorageKey())) {
+                        blobStore.delete(dataFile.getStorageKey());
+                        removedCopies++;
+                        freedBytes += size;
+                    }
+                } catch (IOException e) {
+                    log.error("Ошибка при дедупликации файла с id '{}': {}.", dataFile.getId(),
+                            e.getLocalizedMessage());
+                }
+            }
+        } while (!batch.isEmpty());
+        log.info("Дедупликация завершена. Обработано файлов: '{}', удалено копий: '{}', освобождено байт: '{}'.",
+                processed, removedCopies, freedBytes);
+    }
+
+    private String registerBlob(long fileId, String contentHash, long size) {
+        return transactionTemplate.execute(status -> {
+            final Optional<DataFile> dataFile = dataFileRepository.findById(fileId);
+            if (dataFile.isEmpty() || dataFile.get().getContentHash() != null) {
+                return null;
+            }
+            final DataFile file = dataFile.get();
+            final String storageKey = acquireBlob(contentHash, file.getStorageKey(), size);
+            file.setContentHash(contentHash);
+            file.setFileSize(size);
+            file.setStorageKey(storageKey);
+            file.setFileName(FilenameUtils.getName(storageKey));
+            dataFileRepository.save(file);
+            return storageKey;
+        });
+    }
+
+    private String acquireBlob(String contentHash, String storageKey, long size) {
+        for (int attempt = 0; attempt < MAX_STORE_ATTEMPTS; attempt++) {
+            if (fileBlobRepository.insertIfAbsent(contentHash, storageKey, size) > 0) {
+                return storageKey;
+            }
+            final Optional<String> existingKey = fileBlobRepository.acquire(contentHash);
+            if (existingKey.isPresent()) {
+                return existingKey.get();
+            }
+        }
+        throw new IllegalStateException("Не удалось зарегистрировать файл с хэшем '" + contentHash + "'.");
+    }
+
+    private String hash(Resource resource) throws IOException {
+        try (DigestInputStream in = new DigestInputStream(resource.getInputStream(),
+                MessageDigest.getInstance("SHA-256"))) {
+            in.transferTo(OutputStream.nullOutputStream());
+            return HexFormat.of().formatHex(in.getMessageDigest().digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
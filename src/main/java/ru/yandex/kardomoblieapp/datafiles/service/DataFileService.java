@@ -2,6 +2,7 @@ package ru.yandex.kardomoblieapp.datafiles.service;
 
 import org.springframework.web.multipart.MultipartFile;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.FileContent;
 
 import java.util.List;
 
@@ -15,6 +16,8 @@ public interface DataFileService {
 
     byte[] downloadFileBytesById(long fileId);
 
+    FileContent downloadFileById(long fileId);
+
     DataFile findDataFileById(long fileId);
 
     List<DataFile> saveDataFiles(List<DataFile> uploadedFiles);
@@ -1,37 +1,115 @@
 package ru.yandex.kardomoblieapp.datafiles.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FilenameUtils;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.FileContent;
+import ru.yandex.kardomoblieapp.datafiles.model.ThumbnailSize;
 import ru.yandex.kardomoblieapp.datafiles.repository.DataFileRepository;
+import ru.yandex.kardomoblieapp.datafiles.repository.FileBlobRepository;
+import ru.yandex.kardomoblieapp.datafiles.service.StagedUpload.PendingBlob;
+import ru.yandex.kardomoblieapp.datafiles.storage.BlobStore;
+import ru.yandex.kardomoblieapp.datafiles.storage.StorageLayout;
 import ru.yandex.kardomoblieapp.shared.exception.DataFileStorageException;
 import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class DataFileServiceImpl implements DataFileService {
 
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private static final int UPLOAD_BUFFER_SIZE = 8192;
+
+    private static final String TEMP_DIRECTORY = "tmp";
+
+    private static final int MAX_STORE_ATTEMPTS = 3;
+
     @Value("${server.file-storage.directory}")
     private String baseFileDirectory;
 
+    @Value("${server.file-storage.staging-threads:4}")
+    private int stagingThreads;
+
+    @Value("${server.file-storage.staging-queue-capacity:100}")
+    private int stagingQueueCapacity;
+
+    private volatile boolean tempDirectoryCreated;
+
+    private ThreadPoolExecutor stagingExecutor;
+
+    private TransactionTemplate newTransactionTemplate;
+
     private final DataFileRepository dataFileRepository;
 
+    private final FileBlobRepository fileBlobRepository;
+
+    private final StorageLayout storageLayout;
+
+    private final BlobStore blobStore;
+
+    private final ThumbnailGenerator thumbnailGenerator;
+
+    private final ContentCompressor contentCompressor;
+
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Пул для параллельной записи загружаемых файлов во временную директорию. При заполнении очереди файл
+     * записывается в вызывающем потоке, что ограничивает число одновременно обрабатываемых файлов.
+     */
+    @PostConstruct
+    void init() {
+        stagingExecutor = new ThreadPoolExecutor(stagingThreads, stagingThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(stagingQueueCapacity), new ThreadPoolExecutor.CallerRunsPolicy());
+        newTransactionTemplate = new TransactionTemplate(transactionManager);
+        newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PreDestroy
+    void close() {
+        stagingExecutor.shutdown();
+    }
+
     /**
-     * Загрузка и сохранение файла.
+     * Загрузка и сохранение файла. Для изображений после фиксации транзакции в фоне создаются уменьшенные копии.
      *
      * @param fileToUpload файл
      * @param userId       идентификатор пользователя, загружающий файл
@@ -40,14 +118,19 @@ public class DataFileServiceImpl implements DataFileService {
     @Override
     @Transactional
     public DataFile uploadFile(MultipartFile fileToUpload, long userId) {
-        final DataFile uploadedFile = createDataFileAndMoveToUserDirectory(fileToUpload, userId);
-        final DataFile savedFile = dataFileRepository.save(uploadedFile);
+        final StagedUpload upload = beginUpload();
+        final DataFile uploadedFile = registerBlob(upload, stageFile(fileToUpload, upload));
+        final DataFile savedFile = dataFileRepository.saveAndFlush(uploadedFile);
+        promoteStagedBlobs(upload);
+        thumbnailGenerator.scheduleGeneration(savedFile);
         log.info("Пользователь с id '{}' загрузил фото профиля c id '{}'.", userId, savedFile.getId());
         return savedFile;
     }
 
     /**
-     * Загрузка и сохранение нескольких файлов.
+     * Загрузка и сохранение нескольких файлов. Файлы параллельно записываются во временную директорию, записи о
+     * них вставляются в БД пакетно, и только после этого содержимое переносится в хранилище. Если сохранение в БД
+     * не удалось, в хранилище ничего не попадает, а временные файлы удаляются по завершении транзакции.
      *
      * @param files  список файлов для сохранения
      * @param userId идентификатор пользователя, загружающий файлы
@@ -56,9 +139,17 @@ public class DataFileServiceImpl implements DataFileService {
     @Override
     @Transactional
     public List<DataFile> uploadMultipleFiles(List<MultipartFile> files, long userId) {
-        final List<DataFile> dataFiles = new ArrayList<>();
-        files.forEach(file -> dataFiles.add(createDataFileAndMoveToUserDirectory(file, userId)));
-        final List<DataFile> savedFiles = dataFileRepository.saveAll(dataFiles);
+        final StagedUpload upload = beginUpload();
+        final List<StagedFile> stagedFiles = stageFiles(files, upload);
+        final DataFile[] dataFiles = new DataFile[stagedFiles.size()];
+        IntStream.range(0, stagedFiles.size())
+                .boxed()
+                .sorted(Comparator.comparing(i -> stagedFiles.get(i).content().sha256()))
+                .forEach(i -> dataFiles[i] = registerBlob(upload, stagedFiles.get(i)));
+        final List<DataFile> savedFiles = dataFileRepository.saveAll(Arrays.asList(dataFiles));
+        dataFileRepository.flush();
+        promoteStagedBlobs(upload);
+        savedFiles.forEach(thumbnailGenerator::scheduleGeneration);
         log.info("Пользователь с id '{}' загрузил список файлов в количестве: '{}'.", userId, savedFiles.size());
         return savedFiles;
     }
@@ -73,7 +164,7 @@ public class DataFileServiceImpl implements DataFileService {
     public void deleteFile(long fileId) {
         final DataFile fileToDelete = findFile(fileId);
         dataFileRepository.deleteById(fileId);
-        deleteFileFromLocalStorage(fileToDelete);
+        releaseFileContent(fileToDelete);
         log.info("Файл с id '{}' был удален.", fileId);
     }
 
@@ -88,7 +179,7 @@ public class DataFileServiceImpl implements DataFileService {
     public byte[] downloadFileBytesById(long fileId) {
         try {
             DataFile file = findFile(fileId);
-            byte[] fileBytes = Files.readAllBytes(Paths.get(file.getFilePath()));
+            byte[] fileBytes = blobStore.getResource(file.getStorageKey()).getContentAsByteArray();
             log.info("Получение файла с id '{}' в байтовом представлении.", file.getFileName());
             return fileBytes;
         } catch (IOException e) {
@@ -96,6 +187,31 @@ public class DataFileServiceImpl implements DataFileService {
         }
     }
 
+    /**
+     * Получение файла для потоковой отдачи. Содержимое не загружается в память, а читается из хранилища при
+     * записи ответа, поэтому расход памяти не зависит от размера файла. Если хранилище поддерживает прямое
+     * скачивание, возвращается только ссылка на файл в хранилище.
+     *
+     * @param fileId идентификатор файла
+     * @return содержимое файла с размером и временем последнего изменения или ссылка для прямого скачивания
+     */
+    @Override
+    public FileContent downloadFileById(long fileId) {
+        final DataFile file = findFile(fileId);
+        final Optional<URI> directDownloadUri = blobStore.getDirectDownloadUri(file.getStorageKey());
+        if (directDownloadUri.isPresent()) {
+            log.debug("Получение ссылки для скачивания файла с id '{}' из хранилища.", fileId);
+            return FileContent.redirect(file, directDownloadUri.get());
+        }
+        try {
+            final Resource resource = blobStore.getResource(file.getStorageKey());
+            log.debug("Получение файла с id '{}' для потоковой передачи.", fileId);
+            return FileContent.stream(file, resource, resource.contentLength(), resource.lastModified());
+        } catch (IOException e) {
+            throw new DataFileStorageException(e.getLocalizedMessage());
+        }
+    }
+
     /**
      * Получение данных о сохраненном файле по идентификатору.
      *
@@ -136,16 +252,82 @@ public class DataFileServiceImpl implements DataFileService {
         dataFileRepository.deleteAllById(oldFileIds);
 
         for (DataFile file : files) {
-            deleteFileFromLocalStorage(file);
+            releaseFileContent(file);
+        }
+    }
+
+    /**
+     * Освобождение ссылки на файл в хранилище. Файл удаляется из хранилища только тогда, когда на него не осталось
+     * ссылок, и только после фиксации транзакции: при откате запись о файле и счетчик ссылок восстанавливаются,
+     * поэтому содержимое должно остаться на месте. Файлы, загруженные до появления дедупликации, не имеют хэша и
+     * удаляются после фиксации без проверки. Вместе с файлом удаляются его сжатая и уменьшенные копии.
+     */
+    private void releaseFileContent(DataFile file) {
+        final String storageKey = file.getStorageKey();
+        if (file.getContentHash() == null) {
+            runAfterCommit(() -> deleteFileQuietly(storageKey));
+            return;
+        }
+        final String contentHash = file.getContentHash();
+        final Optional<Integer> remainingReferences = fileBlobRepository.release(contentHash);
+        if (remainingReferences.isEmpty()
+                || (remainingReferences.get() <= 0 && fileBlobRepository.deleteIfUnreferenced(contentHash) > 0)) {
+            final long size = file.getFileSize() == null ? 0 : file.getFileSize();
+            runAfterCommit(() -> deleteUnusedBlob(contentHash, storageKey, size));
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Удаление содержимого, на которое не осталось ссылок. Проверка выполняется в отдельной транзакции под
+     * блокировкой хэша: если строка file_blobs есть, то то же содержимое уже загружено заново, и файл остается.
+     * Иначе строка вставляется заново, что заставляет параллельную загрузку того же содержимого дождаться окончания
+     * проверки, и файл удаляется. Вставка в любом случае откатывается.
+     */
+    private void deleteUnusedBlob(String contentHash, String storageKey, long size) {
+        try {
+            newTransactionTemplate.executeWithoutResult(status -> {
+                if (fileBlobRepository.lockStorageKey(contentHash).isEmpty()
+                        && fileBlobRepository.insertIfAbsent(contentHash, storageKey, size) > 0) {
+                    deleteBlobFiles(storageKey);
+                    log.debug("Файл с хэшем '{}' больше не используется и удален из хранилища.", contentHash);
+                }
+                status.setRollbackOnly();
+            });
+        } catch (RuntimeException e) {
+            log.warn("Не удалось удалить файл '{}' из хранилища: {}", storageKey, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Удаление файла вместе с его сжатой и уменьшенными копиями. Ошибка удаления одного файла не прерывает удаление
+     * остальных: оставшиеся файлы будут найдены и удалены сверкой хранилища.
+     */
+    private void deleteBlobFiles(String storageKey) {
+        deleteFileQuietly(storageKey);
+        deleteFileQuietly(ContentCompressor.compressedKey(storageKey));
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            deleteFileQuietly(ThumbnailGenerator.variantKey(storageKey, size));
         }
     }
 
-    private void deleteFileFromLocalStorage(DataFile file) {
+    private void deleteFileQuietly(String storageKey) {
         try {
-            final Path currentPicture = Paths.get(file.getFilePath());
-            Files.deleteIfExists(currentPicture);
+            blobStore.delete(storageKey);
         } catch (IOException e) {
-            throw new DataFileStorageException(e.getCause().getMessage());
+            log.warn("Не удалось удалить файл '{}' из хранилища: {}", storageKey, e.getLocalizedMessage());
         }
     }
 
@@ -154,31 +336,185 @@ public class DataFileServiceImpl implements DataFileService {
                 .orElseThrow(() -> new NotFoundException("Файл с id '" + fileId + "' не найден."));
     }
 
-    private String createUserDirectoryIfNotExists(long userId) throws IOException {
-        String userFileStorage = baseFileDirectory + "/" + userId + "/";
-        final Path directory = Paths.get(userFileStorage);
-        if (!Files.exists(directory)) {
-            Files.createDirectory(directory);
+    private Path createTempDirectoryIfNotExists() throws IOException {
+        final Path directory = Paths.get(baseFileDirectory, TEMP_DIRECTORY);
+        if (!tempDirectoryCreated) {
+            Files.createDirectories(directory);
+            tempDirectoryCreated = true;
         }
-        return userFileStorage;
+        return directory;
+    }
+
+    /**
+     * Регистрация синхронизации, которая удалит временные файлы по завершении транзакции, а при откате и файлы,
+     * перенесенные в хранилище этой загрузкой.
+     */
+    private StagedUpload beginUpload() {
+        final StagedUpload upload = new StagedUpload(this::discardBlob);
+        TransactionSynchronizationManager.registerSynchronization(upload);
+        return upload;
+    }
+
+    /**
+     * Параллельная запись файлов во временную директорию. Если запись одного файла не удалась, еще не начатые задачи
+     * пропускаются, а уже начатые дожидаются завершения: временные файлы удаляются по завершении транзакции, и файл,
+     * созданный задачей после этого, остался бы в директории навсегда.
+     */
+    private List<StagedFile> stageFiles(List<MultipartFile> files, StagedUpload upload) {
+        final AtomicBoolean aborted = new AtomicBoolean();
+        final List<Future<StagedFile>> futures = files.stream()
+                .map(file -> stagingExecutor.submit(() -> aborted.get() ? null : stageFile(file, upload)))
+                .toList();
+        final List<StagedFile> stagedFiles = new ArrayList<>(futures.size());
+        Throwable failure = null;
+        boolean interrupted = false;
+        for (Future<StagedFile> future : futures) {
+            while (true) {
+                try {
+                    stagedFiles.add(future.get());
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    aborted.set(true);
+                } catch (ExecutionException e) {
+                    aborted.set(true);
+                    failure = failure == null ? e.getCause() : failure;
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+            throw new DataFileStorageException("Загрузка файлов прервана.");
+        }
+        if (failure instanceof DataFileStorageException storageException) {
+            throw storageException;
+        }
+        if (failure != null) {
+            throw new DataFileStorageException(failure.getLocalizedMessage());
+        }
+        return stagedFiles;
+    }
+
+    private StagedFile stageFile(MultipartFile fileToUpload, StagedUpload upload) {
+        try {
+            final Path tempFile = Files.createTempFile(createTempDirectoryIfNotExists(), "upload-", ".tmp");
+            upload.addStagedFile(tempFile);
+            final StoredContent content = writeToTempFile(fileToUpload, tempFile);
+            return new StagedFile(tempFile, content, FilenameUtils.getExtension(fileToUpload.getOriginalFilename()));
+        } catch (IOException e) {
+            throw new DataFileStorageException(e.getLocalizedMessage());
+        }
+    }
+
+    private DataFile registerBlob(StagedUpload upload, StagedFile stagedFile) {
+        final StoredContent content = stagedFile.content();
+        final String candidateKey = storageLayout.resolve(content.sha256(), stagedFile.extension());
+        final String storageKey = reserveBlob(upload, stagedFile, candidateKey);
+        return DataFile.builder()
+                .fileName(FilenameUtils.getName(storageKey))
+                .fileType(content.mediaType())
+                .storageKey(storageKey)
+                .fileSize(content.size())
+                .contentHash(content.sha256())
+                .build();
     }
 
-    private DataFile createDataFileAndMoveToUserDirectory(MultipartFile fileToUpload, long userId) {
+    /**
+     * Перенос новых файлов в хранилище. Сжатая копия готовится до переноса, потому что хранилище может переместить
+     * временный файл.
+     */
+    private void promoteStagedBlobs(StagedUpload upload) {
         try {
-            final String userFileStorage = createUserDirectoryIfNotExists(userId);
-            final String fileExtension = FilenameUtils.getExtension(fileToUpload.getOriginalFilename());
-            final String fileName = UUID.randomUUID() + "." + fileExtension;
-            final String filePath = userFileStorage + fileName;
-            final Path file = Paths.get(filePath);
-            final DataFile dataFile = DataFile.builder()
-                    .fileName(fileName)
-                    .fileType(fileToUpload.getContentType())
-                    .filePath(filePath)
-                    .build();
-            Files.copy(fileToUpload.getInputStream(), file);
-            return dataFile;
+            for (PendingBlob blob : upload.getPendingBlobs()) {
+                final Optional<Path> compressed = contentCompressor.compress(blob.storageKey(), blob.stagedFile(),
+                        blob.size(), createTempDirectoryIfNotExists());
+                compressed.ifPresent(upload::addStagedFile);
+                blobStore.put(blob.storageKey(), blob.stagedFile(), blob.mediaType());
+                upload.markPromoted(blob);
+                if (compressed.isPresent()) {
+                    blobStore.put(ContentCompressor.compressedKey(blob.storageKey()), compressed.get(),
+                            "application/gzip");
+                }
+            }
         } catch (IOException e) {
             throw new DataFileStorageException(e.getLocalizedMessage());
         }
     }
+
+    /**
+     * Удаление файла, сохраненного транзакцией, которая затем откатилась. Если то же содержимое уже сохранила
+     * параллельная загрузка, файл остается.
+     */
+    private void discardBlob(PendingBlob blob) {
+        deleteUnusedBlob(blob.contentHash(), blob.storageKey(), blob.size());
+    }
+
+    /**
+     * Запись файла за один проход: одновременно с записью во временный файл считаются размер и SHA-256
+     * и запоминаются первые байты для определения типа.
+     */
+    private StoredContent writeToTempFile(MultipartFile fileToUpload, Path tempFile) throws IOException {
+        final MessageDigest digest = getSha256Digest();
+        final byte[] buffer = new byte[UPLOAD_BUFFER_SIZE];
+        final byte[] header = new byte[MediaTypeDetector.HEADER_LENGTH];
+        int headerLength = 0;
+        long size = 0;
+        try (InputStream in = fileToUpload.getInputStream();
+             OutputStream out = Files.newOutputStream(tempFile)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                if (headerLength < header.length) {
+                    final int headerBytes = Math.min(read, header.length - headerLength);
+                    System.arraycopy(buffer, 0, header, headerLength, headerBytes);
+                    headerLength += headerBytes;
+                }
+                digest.update(buffer, 0, read);
+                out.write(buffer, 0, read);
+                size += read;
+            }
+        }
+        return new StoredContent(size, HexFormat.of().formatHex(digest.digest()),
+                MediaTypeDetector.detect(header, headerLength));
+    }
+
+    /**
+     * Регистрация содержимого в file_blobs. Если файл с таким хэшем уже есть, увеличивается счетчик ссылок
+     * и временный файл не сохраняется. Иначе временный файл ставится в очередь на перенос в хранилище под ключом
+     * candidateKey; строка file_blobs при этом заблокирована до конца транзакции, поэтому параллельные загрузки того
+     * же содержимого дождутся появления файла. Попытка повторяется, если существующий файл был удален между
+     * запросами.
+     *
+     * @return ключ файла в хранилище
+     */
+    private String reserveBlob(StagedUpload upload, StagedFile stagedFile, String candidateKey) {
+        final StoredContent content = stagedFile.content();
+        for (int attempt = 0; attempt < MAX_STORE_ATTEMPTS; attempt++) {
+            if (fileBlobRepository.insertIfAbsent(content.sha256(), candidateKey, content.size()) > 0) {
+                upload.addPendingBlob(new PendingBlob(content.sha256(), candidateKey, stagedFile.path(),
+                        content.mediaType(), content.size()));
+                return candidateKey;
+            }
+            final Optional<String> existingKey = fileBlobRepository.acquire(content.sha256());
+            if (existingKey.isPresent()) {
+                log.debug("Файл с хэшем '{}' уже есть в хранилище, сохранение копии пропущено.", content.sha256());
+                return existingKey.get();
+            }
+        }
+        throw new DataFileStorageException("Не удалось сохранить файл с хэшем '" + content.sha256() + "'.");
+    }
+
+    private MessageDigest getSha256Digest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record StoredContent(long size, String sha256, String mediaType) {
+    }
+
+    private record StagedFile(Path path, StoredContent content, String extension) {
+    }
 }
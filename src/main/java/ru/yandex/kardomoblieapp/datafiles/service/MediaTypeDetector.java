@@ -0,0 +1,90 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Определение MIME типа файла по сигнатуре (первым байтам содержимого). Тип, переданный клиентом, не используется,
+ * так как он может не соответствовать содержимому файла.
+ */
+@UtilityClass
+public class MediaTypeDetector {
+
+    /**
+     * Количество первых байт файла, достаточное для определения типа.
+     */
+    public static final int HEADER_LENGTH = 16;
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private static final byte[] GIF = ascii("GIF8");
+
+    private static final byte[] RIFF = ascii("RIFF");
+
+    private static final byte[] WEBP = ascii("WEBP");
+
+    private static final byte[] FTYP = ascii("ftyp");
+
+    private static final byte[] QUICKTIME_BRAND = ascii("qt  ");
+
+    private static final byte[] EBML = {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3};
+
+    private static final byte[] PDF = ascii("%PDF-");
+
+    private static final byte[] ID3 = ascii("ID3");
+
+    /**
+     * Определение MIME типа по первым байтам файла.
+     *
+     * @param header первые байты файла
+     * @param length количество прочитанных байт
+     * @return MIME тип или application/octet-stream, если сигнатура не распознана
+     */
+    public static String detect(byte[] header, int length) {
+        if (startsWith(header, length, 0, JPEG)) {
+            return MediaType.IMAGE_JPEG_VALUE;
+        }
+        if (startsWith(header, length, 0, PNG)) {
+            return MediaType.IMAGE_PNG_VALUE;
+        }
+        if (startsWith(header, length, 0, GIF)) {
+            return MediaType.IMAGE_GIF_VALUE;
+        }
+        if (startsWith(header, length, 0, RIFF) && startsWith(header, length, 8, WEBP)) {
+            return "image/webp";
+        }
+        if (startsWith(header, length, 4, FTYP)) {
+            return startsWith(header, length, 8, QUICKTIME_BRAND) ? "video/quicktime" : "video/mp4";
+        }
+        if (startsWith(header, length, 0, EBML)) {
+            return "video/webm";
+        }
+        if (startsWith(header, length, 0, PDF)) {
+            return MediaType.APPLICATION_PDF_VALUE;
+        }
+        if (startsWith(header, length, 0, ID3)) {
+            return "audio/mpeg";
+        }
+        return MediaType.APPLICATION_OCTET_STREAM_VALUE;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, byte[] signature) {
+        if (length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (header[offset + i] != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] ascii(String signature) {
+        return signature.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,78 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Consumer;
+
+/**
+ * Состояние загрузки файлов в рамках одной транзакции. Загруженные файлы сначала записываются во временную
+ * директорию, а в хранилище переносятся только после сохранения записей о них в БД. По завершении транзакции
+ * временные файлы удаляются. Если транзакция откатилась, файлы, впервые перенесенные в хранилище этой загрузкой,
+ * передаются обработчику отката для удаления.
+ */
+@Slf4j
+class StagedUpload implements TransactionSynchronization {
+
+    private final Queue<Path> stagedFiles = new ConcurrentLinkedQueue<>();
+
+    private final List<PendingBlob> pendingBlobs = new ArrayList<>();
+
+    private final List<PendingBlob> promotedBlobs = new ArrayList<>();
+
+    private final Consumer<PendingBlob> rollbackHandler;
+
+    StagedUpload(Consumer<PendingBlob> rollbackHandler) {
+        this.rollbackHandler = rollbackHandler;
+    }
+
+    /**
+     * Регистрация временного файла. Метод может вызываться из нескольких потоков.
+     */
+    void addStagedFile(Path stagedFile) {
+        stagedFiles.add(stagedFile);
+    }
+
+    /**
+     * Регистрация содержимого, которого еще нет в хранилище и которое нужно перенести туда из временного файла.
+     */
+    void addPendingBlob(PendingBlob blob) {
+        pendingBlobs.add(blob);
+    }
+
+    List<PendingBlob> getPendingBlobs() {
+        return List.copyOf(pendingBlobs);
+    }
+
+    void markPromoted(PendingBlob blob) {
+        pendingBlobs.remove(blob);
+        promotedBlobs.add(blob);
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        for (Path stagedFile : stagedFiles) {
+            try {
+                Files.deleteIfExists(stagedFile);
+            } catch (IOException e) {
+                log.warn("Не удалось удалить временный файл '{}': {}", stagedFile, e.getLocalizedMessage());
+            }
+        }
+        if (status != STATUS_COMMITTED) {
+            promotedBlobs.forEach(rollbackHandler);
+        }
+    }
+
+    /**
+     * Содержимое, сохраненное во временный файл.
+     */
+    record PendingBlob(String contentHash, String storageKey, Path stagedFile, String mediaType, long size) {
+    }
+}
@@ -0,0 +1,151 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.kardomoblieapp.datafiles.model.FileBlob;
+import ru.yandex.kardomoblieapp.datafiles.model.ThumbnailSize;
+import ru.yandex.kardomoblieapp.datafiles.repository.DataFileRepository;
+import ru.yandex.kardomoblieapp.datafiles.repository.FileBlobRepository;
+import ru.yandex.kardomoblieapp.datafiles.storage.BlobStore;
+import ru.yandex.kardomoblieapp.datafiles.storage.StorageLayout;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Перенос файлов хранилища в расположение, заданное текущим StorageLayout. Файлы читаются из file_blobs
+ * пачками; перемещение файла вместе с его сжатой и уменьшенными копиями и обновление ключей в file_blobs, data_files и
+ * data_file_variants выполняются под блокировкой строки file_blobs, поэтому параллельные загрузки и удаления того
+ * же содержимого видят согласованный ключ.
+ * Запускается при старте приложения, если server.file-storage.migrate-layout-on-startup=true, после
+ * дедупликации ранее загруженных файлов. Файлы, уже находящиеся на своем месте, пропускаются.
+ */
+@Component
+@ConditionalOnProperty(name = "server.file-storage.migrate-layout-on-startup", havingValue = "true")
+@Order(2)
+@RequiredArgsConstructor
+@Slf4j
+public class StorageLayoutMigrator implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 100;
+
+    private final FileBlobRepository fileBlobRepository;
+
+    private final DataFileRepository dataFileRepository;
+
+    private final StorageLayout storageLayout;
+
+    private final BlobStore blobStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        migrateFiles();
+    }
+
+    /**
+     * Перенос файлов в текущее расположение.
+     */
+    public void migrateFiles() {
+        log.info("Запуск переноса файлов в расположение '{}'.", storageLayout.getClass().getSimpleName());
+        String lastHash = "";
+        long moved = 0;
+        List<FileBlob> batch;
+        do {
+            batch = fileBlobRepository.findAfter(lastHash, PageRequest.of(0, BATCH_SIZE));
+            for (FileBlob blob : batch) {
+                lastHash = blob.getContentHash();
+                try {
+                    final Boolean blobMoved = transactionTemplate.execute(status -> migrateBlob(blob.getContentHash()));
+                    if (Boolean.TRUE.equals(blobMoved)) {
+                        moved++;
+                    }
+                } catch (RuntimeException e) {
+                    log.error("Ошибка при переносе файла с хэшем '{}': {}.", blob.getContentHash(),
+                            e.getLocalizedMessage());
+                }
+            }
+        } while (!batch.isEmpty());
+        log.info("Перенос файлов завершен. Перемещено файлов: '{}'.", moved);
+    }
+
+    private boolean migrateBlob(String contentHash) {
+        final String currentKey = fileBlobRepository.lockStorageKey(contentHash).orElse(null);
+        if (currentKey == null) {
+            return false;
+        }
+        final String targetKey = storageLayout.resolve(contentHash, FilenameUtils.getExtension(currentKey));
+        if (currentKey.equals(targetKey)) {
+            return false;
+        }
+        final Deque<Move> completedMoves = new ArrayDeque<>();
+        try {
+            move(currentKey, targetKey, completedMoves);
+            moveIfExists(ContentCompressor.compressedKey(currentKey), ContentCompressor.compressedKey(targetKey),
+                    completedMoves);
+            for (ThumbnailSize size : ThumbnailSize.values()) {
+                moveIfExists(ThumbnailGenerator.variantKey(currentKey, size),
+                        ThumbnailGenerator.variantKey(targetKey, size), completedMoves);
+            }
+            fileBlobRepository.updateStorageKey(contentHash, targetKey);
+            dataFileRepository.updateStorageKeyByContentHash(contentHash, targetKey, FilenameUtils.getName(targetKey));
+            for (ThumbnailSize size : ThumbnailSize.values()) {
+                dataFileRepository.updateVariantStorageKey(contentHash, ThumbnailGenerator.variantKey(currentKey, size),
+                        ThumbnailGenerator.variantKey(targetKey, size));
+            }
+            return true;
+        } catch (IOException e) {
+            moveBack(completedMoves);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            moveBack(completedMoves);
+            throw e;
+        }
+    }
+
+    private void move(String source, String target, Deque<Move> completedMoves) throws IOException {
+        blobStore.move(source, target);
+        completedMoves.push(new Move(source, target));
+    }
+
+    /**
+     * Производные файлы создаются не для всех файлов: сжатые копии есть только у достаточно больших текстовых
+     * файлов, уменьшенные копии - только у изображений. Ключ уменьшенной копии не содержит расширения оригинала,
+     * поэтому при смене одного расширения он может не измениться, и такая копия остается на месте.
+     */
+    private void moveIfExists(String source, String target, Deque<Move> completedMoves) throws IOException {
+        if (!source.equals(target) && blobStore.getResource(source).exists()) {
+            move(source, target, completedMoves);
+        }
+    }
+
+    /**
+     * Возврат перемещенных файлов на прежние места в обратном порядке.
+     */
+    private void moveBack(Deque<Move> completedMoves) {
+        while (!completedMoves.isEmpty()) {
+            final Move move = completedMoves.pop();
+            try {
+                blobStore.move(move.target(), move.source());
+            } catch (IOException e) {
+                log.error("Не удалось вернуть файл '{}' на место '{}': {}.", move.target(), move.source(),
+                        e.getLocalizedMessage());
+            }
+        }
+    }
+
+    private record Move(String source, String target) {
+    }
+}
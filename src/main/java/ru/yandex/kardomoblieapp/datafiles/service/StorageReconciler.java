@@ -0,0 +1,416 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.kardomoblieapp.datafiles.model.ThumbnailSize;
+import ru.yandex.kardomoblieapp.datafiles.storage.BlobStore;
+import ru.yandex.kardomoblieapp.datafiles.storage.StoredObject;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Сверка хранилища файлов с базой данных. Выполняется по расписанию и проходит в три этапа:
+ * <ul>
+ *     <li>счетчики ссылок file_blobs сверяются с фактическим количеством записей data_files; содержимое, на которое
+ *     не осталось ссылок, удаляется из хранилища после фиксации транзакции пачки;</li>
+ *     <li>для записей data_files проверяется наличие файла в хранилище, отсутствующие файлы попадают в отчет;</li>
+ *     <li>обходится хранилище, файлы без записей в БД считаются потерянными и удаляются; сжатые копии
+ *     относятся к своему оригиналу.</li>
+ * </ul>
+ * Файлы моложе grace-period не трогаются, чтобы не задеть незавершенные загрузки. Если delete-orphans=false,
+ * изменения не вносятся, выполняется только подсчет. Скорость обхода ограничена max-files-per-second, чтобы сверка
+ * не отнимала ввод-вывод у пользовательских запросов. Ход сверки публикуется в метриках storage.reconciliation.*.
+ */
+@Component
+@ConditionalOnProperty(name = "server.file-storage.reconciliation.enabled", havingValue = "true")
+@Slf4j
+public class StorageReconciler {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String FIND_BLOBS_SQL = "SELECT content_hash, storage_key, ref_count FROM file_blobs " +
+            "WHERE content_hash > ? ORDER BY content_hash LIMIT ?";
+
+    private static final String LOCK_BLOBS_SQL = FIND_BLOBS_SQL + " FOR UPDATE";
+
+    private static final String COUNT_REFERENCES_SQL = "SELECT COUNT(*) FROM data_files WHERE content_hash = ?";
+
+    private static final String UPDATE_REF_COUNT_SQL = "UPDATE file_blobs SET ref_count = ? WHERE content_hash = ?";
+
+    private static final String DELETE_BLOB_SQL = "DELETE FROM file_blobs WHERE content_hash = ?";
+
+    private static final String LOCK_BLOB_SQL = "SELECT storage_key FROM file_blobs WHERE content_hash = ? FOR UPDATE";
+
+    private static final String INSERT_BLOB_SQL = "INSERT INTO file_blobs (content_hash, storage_key, file_size, " +
+            "ref_count) VALUES (?, ?, 0, 0) ON CONFLICT (content_hash) DO NOTHING";
+
+    private static final String FIND_DATA_FILES_SQL = "SELECT data_file_id, storage_key FROM data_files " +
+            "WHERE data_file_id > ? ORDER BY data_file_id LIMIT ?";
+
+    private static final String FIND_UNREFERENCED_KEYS_SQL = "SELECT k FROM unnest(?::text[]) AS k " +
+            "WHERE NOT EXISTS (SELECT 1 FROM file_blobs b WHERE b.storage_key = k) " +
+            "AND NOT EXISTS (SELECT 1 FROM data_files d WHERE d.storage_key = k) " +
+            "AND NOT EXISTS (SELECT 1 FROM data_file_variants v WHERE v.storage_key = k)";
+
+    private final BlobStore blobStore;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate newTransactionTemplate;
+
+    private final boolean deleteOrphans;
+
+    private final Duration gracePeriod;
+
+    private final int maxFilesPerSecond;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final AtomicLong processed = new AtomicLong();
+
+    private final AtomicLong lastCompletedAt = new AtomicLong();
+
+    private final Counter scannedFiles;
+
+    private final Counter scannedRows;
+
+    private final Counter orphanFiles;
+
+    private final Counter missingFiles;
+
+    private final Counter staleRefCounts;
+
+    private final Timer duration;
+
+    public StorageReconciler(BlobStore blobStore,
+                             JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${server.file-storage.reconciliation.delete-orphans:false}") boolean deleteOrphans,
+                             @Value("${server.file-storage.reconciliation.grace-period:PT24H}") Duration gracePeriod,
+                             @Value("${server.file-storage.reconciliation.max-files-per-second:500}")
+                             int maxFilesPerSecond) {
+        this.blobStore = blobStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        newTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.deleteOrphans = deleteOrphans;
+        this.gracePeriod = gracePeriod;
+        this.maxFilesPerSecond = maxFilesPerSecond;
+        scannedFiles = meterRegistry.counter("storage.reconciliation.scanned", "source", "storage");
+        scannedRows = meterRegistry.counter("storage.reconciliation.scanned", "source", "database");
+        orphanFiles = meterRegistry.counter("storage.reconciliation.problems", "type", "orphan-file");
+        missingFiles = meterRegistry.counter("storage.reconciliation.problems", "type", "missing-file");
+        staleRefCounts = meterRegistry.counter("storage.reconciliation.problems", "type", "stale-ref-count");
+        duration = meterRegistry.timer("storage.reconciliation.duration");
+        Gauge.builder("storage.reconciliation.running", running, value -> value.get() ? 1 : 0)
+                .description("Выполняется ли сверка в данный момент")
+                .register(meterRegistry);
+        Gauge.builder("storage.reconciliation.processed", processed, AtomicLong::get)
+                .description("Количество проверенных файлов и записей в текущем запуске")
+                .register(meterRegistry);
+        Gauge.builder("storage.reconciliation.last-completed", lastCompletedAt, AtomicLong::get)
+                .description("Время завершения последней сверки, секунды с начала эпохи")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Запуск сверки. Если предыдущий запуск еще не завершился, новый пропускается.
+     *
+     * @return результат сверки или null, если сверка уже выполняется или хранилище недоступно
+     */
+    @Scheduled(cron = "${server.file-storage.reconciliation.cron:0 0 4 * * *}")
+    public ReconciliationResult reconcile() {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Сверка хранилища уже выполняется, запуск пропущен.");
+            return null;
+        }
+        processed.set(0);
+        final long startedAt = System.nanoTime();
+        try {
+            final Instant cutoff = Instant.now().minus(gracePeriod);
+            final long staleBlobs = reconcileReferenceCounts(startedAt);
+            final long missing = findMissingFiles(startedAt);
+            final long orphans = findOrphanFiles(cutoff, startedAt);
+            lastCompletedAt.set(Instant.now().getEpochSecond());
+            final ReconciliationResult result = new ReconciliationResult(processed.get(), staleBlobs, missing,
+                    orphans, deleteOrphans);
+            log.info("Сверка хранилища завершена: {}.", result);
+            return result;
+        } catch (IOException e) {
+            log.error("Ошибка при обходе хранилища: {}", e.getLocalizedMessage());
+            return null;
+        } finally {
+            duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+            running.set(false);
+        }
+    }
+
+    /**
+     * Сверка счетчиков ссылок file_blobs. Счетчик расходится с действительностью, если записи data_files были
+     * удалены каскадно, в обход DataFileService. При исправлении строки пачки блокируются, поэтому параллельные
+     * загрузки того же содержимого дождутся окончания сверки, а количество ссылок считается уже после получения
+     * блокировки и учитывает зафиксированные к этому моменту загрузки. Файлы удаленных строк удаляются из хранилища
+     * только после фиксации пачки.
+     */
+    private long reconcileReferenceCounts(long startedAt) {
+        long stale = 0;
+        String lastHash = "";
+        while (true) {
+            final String after = lastHash;
+            final BlobBatch batch = transactionTemplate.execute(status -> {
+                final BlobBatch result = reconcileBlobBatch(after);
+                runAfterCommit(() -> result.unusedBlobs().forEach(this::deleteUnusedBlob));
+                return result;
+            });
+            if (batch == null || batch.size() == 0) {
+                return stale;
+            }
+            stale += batch.stale();
+            lastHash = batch.lastHash();
+            processed.addAndGet(batch.size());
+            scannedRows.increment(batch.size());
+            throttle(startedAt);
+        }
+    }
+
+    private BlobBatch reconcileBlobBatch(String after) {
+        final List<Map<String, Object>> blobs =
+                jdbcTemplate.queryForList(deleteOrphans ? LOCK_BLOBS_SQL : FIND_BLOBS_SQL, after, BATCH_SIZE);
+        long stale = 0;
+        final List<UnusedBlob> unusedBlobs = new ArrayList<>();
+        for (Map<String, Object> blob : blobs) {
+            final String contentHash = (String) blob.get("content_hash");
+            final String storageKey = (String) blob.get("storage_key");
+            final int refCount = ((Number) blob.get("ref_count")).intValue();
+            final long actualCount = jdbcTemplate.queryForObject(COUNT_REFERENCES_SQL, Long.class, contentHash);
+            if (refCount == actualCount) {
+                continue;
+            }
+            stale++;
+            staleRefCounts.increment();
+            log.warn("Счетчик ссылок файла с хэшем '{}' равен {}, фактически ссылок: {}.", contentHash, refCount,
+                    actualCount);
+            if (!deleteOrphans) {
+                continue;
+            }
+            if (actualCount > 0) {
+                jdbcTemplate.update(UPDATE_REF_COUNT_SQL, actualCount, contentHash);
+            } else {
+                jdbcTemplate.update(DELETE_BLOB_SQL, contentHash);
+                unusedBlobs.add(new UnusedBlob(contentHash, storageKey));
+            }
+        }
+        final String lastHash = blobs.isEmpty() ? after : (String) blobs.get(blobs.size() - 1).get("content_hash");
+        return new BlobBatch(blobs.size(), lastHash, stale, unusedBlobs);
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Удаление файлов содержимого, строка которого удалена из file_blobs. Как и в DataFileService, строка
+     * проверяется под блокировкой хэша в отдельной транзакции: если то же содержимое успели загрузить заново,
+     * файл остается. Вставка-проба задерживает параллельную загрузку до конца удаления и всегда откатывается.
+     */
+    private void deleteUnusedBlob(UnusedBlob blob) {
+        try {
+            newTransactionTemplate.executeWithoutResult(status -> {
+                if (jdbcTemplate.queryForList(LOCK_BLOB_SQL, String.class, blob.contentHash()).isEmpty()
+                        && jdbcTemplate.update(INSERT_BLOB_SQL, blob.contentHash(), blob.storageKey()) > 0) {
+                    deleteWithVariants(blob.storageKey());
+                }
+                status.setRollbackOnly();
+            });
+        } catch (RuntimeException e) {
+            log.warn("Не удалось удалить файл '{}' при сверке: {}", blob.storageKey(), e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Поиск записей data_files, файлы которых отсутствуют в хранилище. Такие записи не удаляются, потому что на них
+     * ссылаются посты, пользователи и мероприятия; они только попадают в отчет.
+     */
+    private long findMissingFiles(long startedAt) {
+        long missing = 0;
+        long lastId = 0;
+        while (true) {
+            final List<Map<String, Object>> rows = jdbcTemplate.queryForList(FIND_DATA_FILES_SQL, lastId, BATCH_SIZE);
+            if (rows.isEmpty()) {
+                return missing;
+            }
+            for (Map<String, Object> row : rows) {
+                final String storageKey = (String) row.get("storage_key");
+                if (!blobStore.getResource(storageKey).exists()) {
+                    missing++;
+                    missingFiles.increment();
+                    log.warn("Файл '{}' записи с id '{}' отсутствует в хранилище.", storageKey,
+                            row.get("data_file_id"));
+                }
+            }
+            lastId = ((Number) rows.get(rows.size() - 1).get("data_file_id")).longValue();
+            processed.addAndGet(rows.size());
+            scannedRows.increment(rows.size());
+            throttle(startedAt);
+        }
+    }
+
+    /**
+     * Обход хранилища и поиск файлов, на которые нет ссылок в БД. Ключи проверяются пачками одним запросом.
+     */
+    private long findOrphanFiles(Instant cutoff, long startedAt) throws IOException {
+        final List<String> batch = new ArrayList<>(BATCH_SIZE);
+        final AtomicLong orphans = new AtomicLong();
+        blobStore.forEachObject(object -> {
+            processed.incrementAndGet();
+            scannedFiles.increment();
+            if (isOldEnough(object, cutoff)) {
+                batch.add(object.key());
+            }
+            if (batch.size() == BATCH_SIZE) {
+                orphans.addAndGet(processOrphanBatch(batch, cutoff));
+                batch.clear();
+                throttle(startedAt);
+            }
+        });
+        if (!batch.isEmpty()) {
+            orphans.addAndGet(processOrphanBatch(batch, cutoff));
+        }
+        return orphans.get();
+    }
+
+    /**
+     * Сжатая копия считается используемой, если используется ее оригинал. Файл, загруженный пользователем с
+     * расширением .gz, проверяется и под собственным ключом.
+     */
+    private long processOrphanBatch(List<String> keys, Instant cutoff) {
+        final Set<String> lookupKeys = new HashSet<>(keys);
+        keys.stream()
+                .filter(key -> key.endsWith(ContentCompressor.GZIP_SUFFIX))
+                .forEach(key -> lookupKeys.add(originalKey(key)));
+        final Set<String> unreferenced = new HashSet<>(jdbcTemplate.queryForList(FIND_UNREFERENCED_KEYS_SQL,
+                String.class, (Object) lookupKeys.toArray(String[]::new)));
+        final List<String> unreferencedKeys = keys.stream()
+                .filter(unreferenced::contains)
+                .filter(key -> !key.endsWith(ContentCompressor.GZIP_SUFFIX) || unreferenced.contains(originalKey(key)))
+                .toList();
+        for (String key : unreferencedKeys) {
+            orphanFiles.increment();
+            log.warn("Файл '{}' не используется ни одной записью.", key);
+            if (deleteOrphans && wasNotModifiedSince(key, cutoff)) {
+                deleteQuietly(key);
+            }
+        }
+        return unreferencedKeys.size();
+    }
+
+    private String originalKey(String compressedKey) {
+        return compressedKey.substring(0, compressedKey.length() - ContentCompressor.GZIP_SUFFIX.length());
+    }
+
+    private boolean isOldEnough(StoredObject object, Instant cutoff) {
+        return object.lastModified().isBefore(cutoff);
+    }
+
+    /**
+     * Повторная проверка времени изменения непосредственно перед удалением: файл могли перезаписать после обхода,
+     * если то же содержимое было загружено заново.
+     */
+    private boolean wasNotModifiedSince(String key, Instant cutoff) {
+        try {
+            return Instant.ofEpochMilli(blobStore.getResource(key).lastModified()).isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void deleteWithVariants(String storageKey) {
+        deleteQuietly(storageKey);
+        deleteQuietly(ContentCompressor.compressedKey(storageKey));
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            deleteQuietly(ThumbnailGenerator.variantKey(storageKey, size));
+        }
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            blobStore.delete(key);
+            log.info("Файл '{}' удален из хранилища при сверке.", key);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить файл '{}': {}", key, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * Ограничение скорости: если сверка опережает заданную скорость, поток засыпает на время опережения.
+     */
+    private void throttle(long startedAt) {
+        if (maxFilesPerSecond <= 0) {
+            return;
+        }
+        final long expectedNanos = TimeUnit.SECONDS.toNanos(processed.get()) / maxFilesPerSecond;
+        final long aheadNanos = expectedNanos - (System.nanoTime() - startedAt);
+        if (aheadNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(aheadNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Результат сверки.
+     *
+     * @param processed      количество проверенных файлов и записей
+     * @param staleRefCounts количество записей file_blobs с неверным счетчиком ссылок
+     * @param missingFiles   количество записей data_files без файла в хранилище
+     * @param orphanFiles    количество файлов без записей в БД
+     * @param fixed          были ли расхождения исправлены
+     */
+    public record ReconciliationResult(long processed, long staleRefCounts, long missingFiles, long orphanFiles,
+                                       boolean fixed) {
+    }
+
+    private record BlobBatch(int size, String lastHash, long stale, List<UnusedBlob> unusedBlobs) {
+    }
+
+    private record UnusedBlob(String contentHash, String storageKey) {
+    }
+}
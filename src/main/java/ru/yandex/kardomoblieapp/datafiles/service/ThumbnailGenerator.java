@@ -0,0 +1,289 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.ImageVariant;
+import ru.yandex.kardomoblieapp.datafiles.model.ThumbnailSize;
+import ru.yandex.kardomoblieapp.datafiles.repository.DataFileRepository;
+import ru.yandex.kardomoblieapp.datafiles.storage.BlobStore;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Фоновое создание уменьшенных копий загруженных изображений. Копии создаются после фиксации транзакции загрузки
+ * в ограниченном пуле потоков, поэтому декодирование и масштабирование не задерживают ответ клиенту. При
+ * переполнении очереди задача отбрасывается: клиенты в этом случае используют оригинал. Для одинакового содержимого
+ * копии создаются один раз, остальные файлы переиспользуют уже сохраненные копии.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ThumbnailGenerator {
+
+    private static final Set<String> SUPPORTED_TYPES = Set.of(MediaType.IMAGE_JPEG_VALUE, MediaType.IMAGE_PNG_VALUE,
+            MediaType.IMAGE_GIF_VALUE);
+
+    private static final String THUMBNAIL_FORMAT = "jpeg";
+
+    private static final String THUMBNAIL_EXTENSION = "jpg";
+
+    private static final String TEMP_DIRECTORY = "tmp";
+
+    /**
+     * Ограничение на размер исходного изображения, чтобы файл с огромными заявленными размерами не исчерпал память.
+     */
+    private static final long MAX_SOURCE_PIXELS = 50_000_000L;
+
+    @Value("${server.file-storage.directory}")
+    private String baseFileDirectory;
+
+    @Value("${image.thumbnails.enabled:true}")
+    private boolean enabled;
+
+    @Value("${image.thumbnails.threads:2}")
+    private int threads;
+
+    @Value("${image.thumbnails.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${image.thumbnails.quality:0.8}")
+    private float quality;
+
+    private final DataFileRepository dataFileRepository;
+
+    private final BlobStore blobStore;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                task -> {
+                    final Thread thread = new Thread(task, "thumbnail-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, pool) -> log.warn("Очередь создания миниатюр переполнена, задача отброшена."));
+    }
+
+    @PreDestroy
+    void close() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Планирование создания уменьшенных копий. Если вызов происходит внутри транзакции, задача ставится в очередь
+     * только после ее фиксации, чтобы фоновый поток увидел сохраненную запись о файле.
+     *
+     * @param dataFile сохраненный файл
+     */
+    public void scheduleGeneration(DataFile dataFile) {
+        if (!enabled || !isSupported(dataFile)) {
+            return;
+        }
+        final long fileId = dataFile.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    executor.execute(() -> generateSafely(fileId));
+                }
+            });
+        } else {
+            executor.execute(() -> generateSafely(fileId));
+        }
+    }
+
+    /**
+     * Создание уменьшенных копий изображения и сохранение их описания в записи о файле. Создаются только копии,
+     * которые меньше исходного изображения.
+     *
+     * @param fileId идентификатор файла
+     */
+    public void generate(long fileId) throws IOException {
+        final DataFile dataFile = transactionTemplate.execute(status -> dataFileRepository.findById(fileId)
+                .orElse(null));
+        if (dataFile == null || !isSupported(dataFile)) {
+            return;
+        }
+        List<ImageVariant> variants = dataFileRepository.findVariantsOfSameContent(dataFile.getContentHash(), fileId);
+        if (variants.isEmpty()) {
+            final BufferedImage source = readImage(blobStore.getResource(dataFile.getStorageKey()));
+            if (source == null) {
+                log.debug("Не удалось прочитать изображение файла с id '{}'.", fileId);
+                return;
+            }
+            variants = createVariants(dataFile.getStorageKey(), source);
+        }
+        final List<ImageVariant> generatedVariants = variants;
+        transactionTemplate.executeWithoutResult(status -> dataFileRepository.findById(fileId)
+                .ifPresent(file -> {
+                    file.getVariants().clear();
+                    generatedVariants.forEach(variant -> file.getVariants().add(copyOf(variant)));
+                }));
+        log.debug("Для файла с id '{}' сохранено уменьшенных копий: '{}'.", fileId, generatedVariants.size());
+    }
+
+    /**
+     * Ключ уменьшенной копии строится от ключа оригинала, поэтому копии лежат рядом с ним и удаляются вместе с ним.
+     *
+     * @param storageKey ключ оригинала в хранилище
+     * @param size       размер копии
+     * @return ключ копии в хранилище
+     */
+    public static String variantKey(String storageKey, ThumbnailSize size) {
+        return FilenameUtils.removeExtension(storageKey) + "-" + size.getVariantName() + "." + THUMBNAIL_EXTENSION;
+    }
+
+    private void generateSafely(long fileId) {
+        try {
+            generate(fileId);
+        } catch (Exception e) {
+            log.warn("Ошибка при создании уменьшенных копий файла с id '{}': {}", fileId, e.getLocalizedMessage());
+        }
+    }
+
+    private boolean isSupported(DataFile dataFile) {
+        return dataFile.getContentHash() != null && SUPPORTED_TYPES.contains(dataFile.getFileType());
+    }
+
+    /**
+     * Каждая следующая копия масштабируется из предыдущей, а не из оригинала: так быстрее и без потери качества
+     * на больших коэффициентах уменьшения.
+     */
+    private List<ImageVariant> createVariants(String storageKey, BufferedImage source) throws IOException {
+        final List<ImageVariant> variants = new ArrayList<>();
+        BufferedImage current = source;
+        for (ThumbnailSize size : ThumbnailSize.values()) {
+            if (Math.max(current.getWidth(), current.getHeight()) <= size.getMaxSide()) {
+                continue;
+            }
+            current = scale(current, size.getMaxSide());
+            final String key = variantKey(storageKey, size);
+            writeVariant(key, current);
+            variants.add(ImageVariant.builder()
+                    .variant(size.getVariantName())
+                    .storageKey(key)
+                    .width(current.getWidth())
+                    .height(current.getHeight())
+                    .build());
+        }
+        return variants;
+    }
+
+    /**
+     * Чтение изображения с прореживанием: очень большие изображения сразу декодируются в уменьшенном виде, чтобы
+     * не держать в памяти полный растр.
+     */
+    private BufferedImage readImage(Resource resource) throws IOException {
+        try (InputStream in = resource.getInputStream();
+             ImageInputStream imageIn = ImageIO.createImageInputStream(in)) {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(imageIn);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageIn, true, true);
+                final int width = reader.getWidth(0);
+                final int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    log.warn("Изображение размером {}x{} слишком велико для создания миниатюр.", width, height);
+                    return null;
+                }
+                final ImageReadParam param = reader.getDefaultReadParam();
+                final int subsampling = Math.max(1, Math.max(width, height) / (ThumbnailSize.LARGE.getMaxSide() * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private BufferedImage scale(BufferedImage source, int maxSide) {
+        final double ratio = (double) maxSide / Math.max(source.getWidth(), source.getHeight());
+        final int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        final int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        final BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private void writeVariant(String key, BufferedImage image) throws IOException {
+        final Path tempDirectory = Files.createDirectories(Paths.get(baseFileDirectory, TEMP_DIRECTORY));
+        final Path tempFile = Files.createTempFile(tempDirectory, "thumbnail-", "." + THUMBNAIL_EXTENSION);
+        try {
+            final ImageWriter writer = ImageIO.getImageWritersByFormatName(THUMBNAIL_FORMAT).next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(tempFile.toFile())) {
+                final ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                writer.setOutput(out);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            blobStore.put(key, tempFile, MediaType.IMAGE_JPEG_VALUE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private ImageVariant copyOf(ImageVariant variant) {
+        return ImageVariant.builder()
+                .variant(variant.getVariant())
+                .storageKey(variant.getStorageKey())
+                .width(variant.getWidth())
+                .height(variant.getHeight())
+                .build();
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.kardomoblieapp.datafiles.storage;
+
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Хранилище содержимого файлов. Файлы адресуются ключом, который формирует StorageLayout и который хранится
+ * в DataFile.storageKey; абсолютные пути и адреса конкретного хранилища в базу данных не попадают.
+ */
+public interface BlobStore {
+
+    /**
+     * Сохранение содержимого локального файла под ключом. Реализация может переместить исходный файл,
+     * поэтому после вызова он не должен использоваться; удаление оставшегося исходного файла - задача вызывающего.
+     *
+     * @param key         ключ файла
+     * @param source      локальный файл с содержимым
+     * @param contentType MIME тип содержимого
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    /**
+     * Получение содержимого файла. Содержимое читается из хранилища при обращении к потоку ресурса.
+     *
+     * @param key ключ файла
+     * @return ресурс с содержимым файла
+     */
+    Resource getResource(String key);
+
+    /**
+     * Ссылка, по которой клиент может скачать файл напрямую из хранилища, минуя приложение.
+     *
+     * @param key ключ файла
+     * @return ссылка или пустой Optional, если хранилище не поддерживает прямое скачивание
+     */
+    Optional<URI> getDirectDownloadUri(String key);
+
+    /**
+     * Перемещение файла под другой ключ.
+     *
+     * @param sourceKey текущий ключ файла
+     * @param targetKey новый ключ файла
+     */
+    void move(String sourceKey, String targetKey) throws IOException;
+
+    /**
+     * Удаление файла. Отсутствие файла ошибкой не считается.
+     *
+     * @param key ключ файла
+     */
+    void delete(String key) throws IOException;
+
+    /**
+     * Обход всех файлов хранилища. Файлы передаются обработчику по мере обхода, без построения полного списка.
+     *
+     * @param action обработчик найденного файла
+     */
+    void forEachObject(Consumer<StoredObject> action) throws IOException;
+}
@@ -0,0 +1,119 @@
+package ru.yandex.kardomoblieapp.datafiles.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Хранение файлов в локальной директории server.file-storage.directory. Ключ файла - путь относительно этой
+ * директории. Созданные директории запоминаются, поэтому файловая система проверяется только при первом
+ * обращении к директории.
+ */
+@Component
+@ConditionalOnProperty(name = "server.file-storage.type", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class FileSystemBlobStore implements BlobStore {
+
+    @Value("${server.file-storage.directory}")
+    private String baseFileDirectory;
+
+    private final Set<Path> createdDirectories = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        moveFile(source, resolve(key));
+    }
+
+    @Override
+    public Resource getResource(String key) {
+        return new FileSystemResource(resolve(key));
+    }
+
+    @Override
+    public Optional<URI> getDirectDownloadUri(String key) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        moveFile(resolve(sourceKey), resolve(targetKey));
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    /**
+     * Обход дерева директорий хранилища. Ключ файла - путь относительно корня с разделителем '/'. Недоступные файлы
+     * и директории пропускаются.
+     */
+    @Override
+    public void forEachObject(Consumer<StoredObject> action) throws IOException {
+        final Path root = Paths.get(baseFileDirectory);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                if (attributes.isRegularFile()) {
+                    final String key = root.relativize(file).toString()
+                            .replace(file.getFileSystem().getSeparator(), "/");
+                    action.accept(new StoredObject(key, attributes.size(), attributes.lastModifiedTime().toInstant()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                log.warn("Не удалось прочитать '{}' при обходе хранилища: {}", file, e.getLocalizedMessage());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private Path resolve(String key) {
+        return Paths.get(baseFileDirectory, key);
+    }
+
+    /**
+     * Атомарное перемещение файла. Если директория из кэша была удалена извне, она создается заново.
+     */
+    private void moveFile(Path source, Path target) throws IOException {
+        final Path directory = target.getParent();
+        createDirectoryIfNotExists(directory);
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (NoSuchFileException e) {
+            createdDirectories.remove(directory);
+            createDirectoryIfNotExists(directory);
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private void createDirectoryIfNotExists(Path directory) throws IOException {
+        if (!createdDirectories.contains(directory)) {
+            Files.createDirectories(directory);
+            createdDirectories.add(directory);
+        }
+    }
+}
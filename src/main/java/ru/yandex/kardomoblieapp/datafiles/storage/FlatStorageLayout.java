@@ -0,0 +1,18 @@
+package ru.yandex.kardomoblieapp.datafiles.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Расположение всех файлов в одной директории: blobs/abcd...ef.jpg.
+ */
+@Component
+@ConditionalOnProperty(name = "server.file-storage.layout", havingValue = "flat")
+public class FlatStorageLayout implements StorageLayout {
+
+    @Override
+    public String resolve(String contentHash, String extension) {
+        final String fileName = extension == null || extension.isEmpty() ? contentHash : contentHash + "." + extension;
+        return ROOT_DIRECTORY + "/" + fileName;
+    }
+}
@@ -0,0 +1,30 @@
+package ru.yandex.kardomoblieapp.datafiles.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Расположение файлов по префиксу хэша: blobs/ab/cd/abcd...ef.jpg. Два уровня по 256 директорий ограничивают
+ * размер каждой директории независимо от количества файлов и пользователей.
+ */
+@Component
+@ConditionalOnProperty(name = "server.file-storage.layout", havingValue = "sharded", matchIfMissing = true)
+public class HashPrefixStorageLayout implements StorageLayout {
+
+    private static final int SHARD_LEVELS = 2;
+
+    private static final int SHARD_WIDTH = 2;
+
+    @Override
+    public String resolve(String contentHash, String extension) {
+        final StringBuilder path = new StringBuilder(ROOT_DIRECTORY);
+        for (int level = 0; level < SHARD_LEVELS; level++) {
+            path.append('/').append(contentHash, level * SHARD_WIDTH, (level + 1) * SHARD_WIDTH);
+        }
+        path.append('/').append(contentHash);
+        if (extension != null && !extension.isEmpty()) {
+            path.append('.').append(extension);
+        }
+        return path.toString();
+    }
+}
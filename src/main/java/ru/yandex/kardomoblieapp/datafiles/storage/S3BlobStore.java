@@ -0,0 +1,361 @@
+package ru.yandex.kardomoblieapp.datafiles.storage;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Хранение файлов в S3 совместимом объектном хранилище. Файлы больше размера части загружаются multipart
+ * загрузкой, части отправляются параллельно и читаются из локального файла по мере отправки. Для скачивания
+ * клиентам выдаются подписанные ссылки, поэтому содержимое файлов не проходит через приложение.
+ */
+@Component
+@ConditionalOnProperty(name = "server.file-storage.type", havingValue = "s3")
+@Slf4j
+public class S3BlobStore implements BlobStore {
+
+    private static final long MIN_PART_SIZE = DataSize.ofMegabytes(5).toBytes();
+
+    private static final long MAX_PART_SIZE = DataSize.ofGigabytes(5).toBytes();
+
+    private static final long MAX_PARTS = 10_000;
+
+    @Value("${server.file-storage.s3.endpoint}")
+    private String endpoint;
+
+    @Value("${server.file-storage.s3.region}")
+    private String region;
+
+    @Value("${server.file-storage.s3.bucket}")
+    private String bucket;
+
+    @Value("${server.file-storage.s3.access-key}")
+    private String accessKey;
+
+    @Value("${server.file-storage.s3.secret-key}")
+    private String secretKey;
+
+    @Value("${server.file-storage.s3.part-size:8388608}")
+    private long partSize;
+
+    @Value("${server.file-storage.s3.max-object-size:${spring.servlet.multipart.max-file-size:1MB}}")
+    private DataSize maxObjectSize;
+
+    @Value("${server.file-storage.s3.upload-threads:4}")
+    private int uploadThreads;
+
+    @Value("${server.file-storage.s3.presigned-url-ttl:PT15M}")
+    private Duration presignedUrlTtl;
+
+    private S3Client s3Client;
+
+    private S3Presigner s3Presigner;
+
+    private ExecutorService uploadExecutor;
+
+    @PostConstruct
+    void init() {
+        validatePartSize();
+        final StaticCredentialsProvider credentials =
+                StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey));
+        final S3Configuration configuration = S3Configuration.builder()
+                .pathStyleAccessEnabled(true)
+                .build();
+        s3Client = S3Client.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration)
+                .build();
+        s3Presigner = S3Presigner.builder()
+                .endpointOverride(URI.create(endpoint))
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(configuration)
+                .build();
+        uploadExecutor = Executors.newFixedThreadPool(uploadThreads);
+    }
+
+    /**
+     * Проверка размера части при запуске. S3 принимает части от 5 МБ до 5 ГБ, кроме последней, и не больше 10 000
+     * частей в одной загрузке, поэтому файл максимального размера должен укладываться в это количество частей.
+     */
+    private void validatePartSize() {
+        if (partSize < MIN_PART_SIZE || partSize > MAX_PART_SIZE) {
+            throw new IllegalStateException("Размер части multipart загрузки должен быть от " + MIN_PART_SIZE
+                    + " до " + MAX_PART_SIZE + " байт, указано: " + partSize + ".");
+        }
+        final long parts = (maxObjectSize.toBytes() + partSize - 1) / partSize;
+        if (parts > MAX_PARTS) {
+            throw new IllegalStateException("Файл размером " + maxObjectSize.toBytes() + " байт при размере части "
+                    + partSize + " байт требует " + parts + " частей, допустимо не больше " + MAX_PARTS + ".");
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        uploadExecutor.shutdown();
+        s3Presigner.close();
+        s3Client.close();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        final long size = Files.size(source);
+        try {
+            if (size <= partSize) {
+                s3Client.putObject(PutObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .contentType(contentType)
+                        .build(), RequestBody.fromFile(source));
+            } else {
+                uploadMultipart(key, source, contentType, size);
+            }
+        } catch (SdkException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Resource getResource(String key) {
+        return new S3ObjectResource(key);
+    }
+
+    @Override
+    public Optional<URI> getDirectDownloadUri(String key) {
+        final GetObjectPresignRequest presignRequest = GetObjectPresignRequest.builder()
+                .signatureDuration(presignedUrlTtl)
+                .getObjectRequest(request -> request.bucket(bucket).key(key))
+                .build();
+        try {
+            return Optional.of(s3Presigner.presignGetObject(presignRequest).url().toURI());
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) throws IOException {
+        try {
+            s3Client.copyObject(CopyObjectRequest.builder()
+                    .sourceBucket(bucket)
+                    .sourceKey(sourceKey)
+                    .destinationBucket(bucket)
+                    .destinationKey(targetKey)
+                    .build());
+            delete(sourceKey);
+        } catch (SdkException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        try {
+            s3Client.deleteObject(DeleteObjectRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .build());
+        } catch (SdkException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Постраничный обход объектов бакета: следующая страница запрашивается только после обработки предыдущей.
+     */
+    @Override
+    public void forEachObject(Consumer<StoredObject> action) throws IOException {
+        try {
+            s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+                            .bucket(bucket)
+                            .build())
+                    .contents()
+                    .forEach(object -> action.accept(new StoredObject(object.key(), object.size(),
+                            object.lastModified())));
+        } catch (SdkException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    private void uploadMultipart(String key, Path source, String contentType, long size) throws IOException {
+        final String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .build()).uploadId();
+        try {
+            final List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+            int partNumber = 1;
+            for (long offset = 0; offset < size; offset += partSize, partNumber++) {
+                final long position = offset;
+                final long length = Math.min(partSize, size - offset);
+                final int number = partNumber;
+                parts.add(CompletableFuture.supplyAsync(
+                        () -> uploadPart(key, uploadId, number, source, position, length), uploadExecutor));
+            }
+            final List<CompletedPart> completedParts = parts.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+                    .build());
+            log.debug("Файл '{}' загружен в хранилище частями в количестве: '{}'.", key, completedParts.size());
+        } catch (CompletionException | SdkException e) {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .build());
+            final Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, Path source, long position,
+                                     long length) {
+        final UploadPartRequest request = UploadPartRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(length)
+                .build();
+        final RequestBody body = RequestBody.fromContentProvider(() -> openRange(source, position, length), length,
+                "application/octet-stream");
+        final String eTag = s3Client.uploadPart(request, body).eTag();
+        return CompletedPart.builder()
+                .partNumber(partNumber)
+                .eTag(eTag)
+                .build();
+    }
+
+    private static InputStream openRange(Path source, long position, long length) {
+        try {
+            final InputStream in = Files.newInputStream(source);
+            in.skipNBytes(position);
+            return BoundedInputStream.builder()
+                    .setInputStream(in)
+                    .setMaxCount(length)
+                    .get();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ресурс, читающий объект из хранилища при обращении к потоку.
+     */
+    private class S3ObjectResource extends AbstractResource {
+
+        private final String key;
+
+        S3ObjectResource(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String getDescription() {
+            return "S3 object [" + bucket + "/" + key + "]";
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException {
+            try {
+                return s3Client.getObject(GetObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .build());
+            } catch (NoSuchKeyException e) {
+                throw new FileNotFoundException(getDescription() + " не найден");
+            } catch (SdkException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public boolean exists() {
+            try {
+                head();
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return head().contentLength();
+        }
+
+        @Override
+        public long lastModified() throws IOException {
+            return head().lastModified().toEpochMilli();
+        }
+
+        private HeadObjectResponse head() throws IOException {
+            try {
+                return s3Client.headObject(HeadObjectRequest.builder()
+                        .bucket(bucket)
+                        .key(key)
+                        .build());
+            } catch (NoSuchKeyException e) {
+                throw new FileNotFoundException(getDescription() + " не найден");
+            } catch (SdkException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.yandex.kardomoblieapp.datafiles.storage;
+
+/**
+ * Расположение файлов в хранилище. Определяет путь файла относительно корневой директории хранилища
+ * по хэшу его содержимого.
+ */
+public interface StorageLayout {
+
+    /**
+     * Директория хранилища, в которой лежат файлы с содержимым. Остальные директории хранилища, например директория
+     * временных файлов, наружу не отдаются.
+     */
+    String ROOT_DIRECTORY = "blobs";
+
+    /**
+     * Путь файла относительно корневой директории хранилища.
+     *
+     * @param contentHash SHA-256 содержимого файла в шестнадцатеричном виде
+     * @param extension   расширение файла, может быть пустым
+     * @return относительный путь файла
+     */
+    String resolve(String contentHash, String extension);
+}
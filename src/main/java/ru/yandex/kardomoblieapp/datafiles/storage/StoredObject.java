@@ -0,0 +1,13 @@
+package ru.yandex.kardomoblieapp.datafiles.storage;
+
+import java.time.Instant;
+
+/**
+ * Описание файла, найденного в хранилище при обходе.
+ *
+ * @param key          ключ файла
+ * @param size         размер в байтах
+ * @param lastModified время последнего изменения
+ */
+public record StoredObject(String key, long size, Instant lastModified) {
+}
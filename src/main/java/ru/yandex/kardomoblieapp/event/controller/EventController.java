@@ -2,6 +2,7 @@ package ru.yandex.kardomoblieapp.event.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -11,6 +12,7 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -34,6 +36,8 @@ import ru.yandex.kardomoblieapp.participation.mapper.ParticipationMapper;
 import ru.yandex.kardomoblieapp.participation.model.Participation;
 import ru.yandex.kardomoblieapp.participation.service.ParticipationService;
 import ru.yandex.kardomoblieapp.shared.exception.ErrorResponse;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.shared.pagination.PageCursor;
 
 import java.util.List;
 
@@ -80,21 +84,26 @@ public class EventController {
     @Operation(summary = "Поиск мероприятий")
     @SecurityRequirement(name = "JWT")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список мероприятий получен", content = {
+            @ApiResponse(responseCode = "200", description = "Список мероприятий получен", headers = {
+                    @Header(name = PageCursor.NEXT_CURSOR_HEADER, description = "Курсор следующей страницы")}, content = {
                     @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = EventDto.class)))}),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
             @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован"),
             @ApiResponse(responseCode = "403", description = "Срок действия токена доступа истек"),
             @ApiResponse(responseCode = "500", description = "Произошла неизвестная ошибка", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
     })
-    public List<EventDto> searchEvents(@Parameter(description = "Фильтр поиска") EventSearchFilter searchFilter,
-                                       @RequestParam(defaultValue = "0")
-                                       @Parameter(description = "Номер страницы") Integer page,
-                                       @RequestParam(defaultValue = "10")
-                                       @Parameter(description = "Количество постов на странице") Integer size) {
-        log.debug("Поиск мероприятий.");
-        final List<Event> events = eventService.searchEvents(searchFilter, page, size);
-        return eventMapper.toDtoList(events);
+    public ResponseEntity<List<EventDto>> searchEvents(@Parameter(description = "Фильтр поиска") EventSearchFilter searchFilter,
+                                                       @RequestParam(required = false)
+                                                       @Parameter(description = "Курсор следующей страницы") String cursor,
+                                                       @RequestParam(defaultValue = "0")
+                                                       @Parameter(description = "Номер страницы") Integer page,
+                                                       @RequestParam(defaultValue = "10")
+                                                       @Parameter(description = "Количество постов на странице") Integer size) {
+        log.debug("Поиск мероприятий. cursor = '{}'.", cursor);
+        final CursorPage<Event> events = eventService.searchEvents(searchFilter, cursor, page, size);
+        return events.toResponseEntity(eventMapper.toDtoList(events.content()));
     }
 
     @GetMapping("/activities")
@@ -4,10 +4,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import ru.yandex.kardomoblieapp.event.model.Event;
+import ru.yandex.kardomoblieapp.shared.search.RankedSearchExecutor;
 
 import java.util.Optional;
 
-public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event> {
+public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event>,
+        RankedSearchExecutor<Event> {
 
     @Query("SELECT e FROM Event e LEFT JOIN FETCH e.activity a LEFT JOIN FETCH e.country c " +
             "LEFT JOIN FETCH e.region r LEFT JOIN FETCH e.city ct WHERE e.id = ?1")
@@ -4,6 +4,7 @@ import lombok.experimental.UtilityClass;
 import org.springframework.data.jpa.domain.Specification;
 import ru.yandex.kardomoblieapp.event.model.Event;
 import ru.yandex.kardomoblieapp.event.model.EventType;
+import ru.yandex.kardomoblieapp.shared.search.TextSearchSpecification;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -47,18 +48,13 @@ public class EventSpecification {
                 endRange.plusDays(1));
     }
 
-    public static Specification<Event> textInNameOrDescription(String text) {
+    public static Specification<Event> textInNameOrDescription(String text, boolean fullText) {
         if (text == null) {
             return null;
         }
 
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.or(
-                        criteriaBuilder.like(criteriaBuilder.lower(root.get("eventName")),
-                                "%" + text.toLowerCase() + "%"),
-                        criteriaBuilder.like(criteriaBuilder.lower(root.get("description")),
-                                "%" + text.toLowerCase() + "%")
-                );
+                TextSearchSpecification.matches(root, criteriaBuilder, text, fullText, "eventName", "description");
     }
 
     public static Specification<Event> textInCountyName(String text) {
@@ -90,28 +86,4 @@ public class EventSpecification {
                 criteriaBuilder.like(criteriaBuilder.lower(root.get("city").get("name")),
                         "%" + text.toLowerCase() + "%");
     }
-
-    public static Specification<Event> orderByPrize(Specification<Event> spec) {
-        return (root, query, criteriaBuilder) -> {
-            query.orderBy(
-                    criteriaBuilder.desc(root.get("prize")));
-            return spec.toPredicate(root, query, criteriaBuilder);
-        };
-    }
-
-    public static Specification<Event> orderById(Specification<Event> spec) {
-        return (root, query, criteriaBuilder) -> {
-            query.orderBy(
-                    criteriaBuilder.desc(root.get("id")));
-            return spec.toPredicate(root, query, criteriaBuilder);
-        };
-    }
-
-    public static Specification<Event> orderByEventStartDate(Specification<Event> spec) {
-        return (root, query, criteriaBuilder) -> {
-            query.orderBy(
-                    criteriaBuilder.asc(root.get("eventStart")));
-            return spec.toPredicate(root, query, criteriaBuilder);
-        };
-    }
 }
@@ -5,6 +5,7 @@ import ru.yandex.kardomoblieapp.event.dto.EventUpdateRequest;
 import ru.yandex.kardomoblieapp.event.dto.NewEventRequest;
 import ru.yandex.kardomoblieapp.event.dto.NewSubEventRequest;
 import ru.yandex.kardomoblieapp.event.model.Event;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
 
 import java.util.List;
 
@@ -20,4 +21,6 @@ public interface EventService {
     Event findEventById(long eventId);
 
     List<Event> searchEvents(EventSearchFilter searchFilter, Integer page, Integer size);
+
+    CursorPage<Event> searchEvents(EventSearchFilter searchFilter, String cursor, Integer page, Integer size);
 }
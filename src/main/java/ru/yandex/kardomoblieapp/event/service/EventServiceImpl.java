@@ -2,8 +2,8 @@ package ru.yandex.kardomoblieapp.event.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -21,6 +21,10 @@ import ru.yandex.kardomoblieapp.location.dto.Location;
 import ru.yandex.kardomoblieapp.location.service.LocationService;
 import ru.yandex.kardomoblieapp.shared.exception.IncorrectEventDatesException;
 import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.shared.pagination.KeysetPagination;
+import ru.yandex.kardomoblieapp.shared.pagination.KeysetSpecification;
+import ru.yandex.kardomoblieapp.shared.pagination.PageCursor;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -29,9 +33,6 @@ import java.util.stream.Collectors;
 
 import static ru.yandex.kardomoblieapp.event.repository.EventSpecification.eventStartInRange;
 import static ru.yandex.kardomoblieapp.event.repository.EventSpecification.eventTypeEquals;
-import static ru.yandex.kardomoblieapp.event.repository.EventSpecification.orderByEventStartDate;
-import static ru.yandex.kardomoblieapp.event.repository.EventSpecification.orderById;
-import static ru.yandex.kardomoblieapp.event.repository.EventSpecification.orderByPrize;
 import static ru.yandex.kardomoblieapp.event.repository.EventSpecification.textInActivityNameIgnoreCase;
 import static ru.yandex.kardomoblieapp.event.repository.EventSpecification.textInCityName;
 import static ru.yandex.kardomoblieapp.event.repository.EventSpecification.textInCountyName;
@@ -43,6 +44,14 @@ import static ru.yandex.kardomoblieapp.event.repository.EventSpecification.textI
 @Slf4j
 public class EventServiceImpl implements EventService {
 
+    private static final Sort ORDER_BY_ID = Sort.by("id").descending();
+
+    private static final Sort ORDER_BY_EVENT_START = Sort.by("eventStart", "id").ascending();
+
+    private static final Sort ORDER_BY_PRIZE = Sort.by("prize", "id").descending();
+
+    private static final String[] TEXT_SEARCH_FIELDS = {"eventName", "description"};
+
     private final EventRepository eventRepository;
 
     private final ActivityRepository activityRepository;
@@ -51,6 +60,9 @@ public class EventServiceImpl implements EventService {
 
     private final LocationService locationService;
 
+    @Value("${search.full-text.enabled:true}")
+    private boolean fullTextSearchEnabled;
+
     /**
      * Добавление нового мероприятия.
      *
@@ -146,12 +158,37 @@ public class EventServiceImpl implements EventService {
      */
     @Override
     public List<Event> searchEvents(EventSearchFilter searchFilter, Integer page, Integer size) {
-        final Pageable pageable = PageRequest.of(page, size);
+        return searchEvents(searchFilter, null, page, size).content();
+    }
+
+    /**
+     * Поиск мероприятий по фильтру. Если сортировка не задана и указан текст поиска, то мероприятия сортируются по
+     * релевантности. Если указан курсор, то мероприятия возвращаются начиная с мероприятия, следующего за последним
+     * мероприятием предыдущей страницы. Иначе мероприятия возвращаются постранично.
+     *
+     * @param searchFilter фильтр поиска
+     * @param cursor       курсор следующей страницы
+     * @param page         номер страницы, используется если курсор не указан
+     * @param size         количество элементов на странице
+     * @return список мероприятий и курсор следующей страницы
+     */
+    @Override
+    public CursorPage<Event> searchEvents(EventSearchFilter searchFilter, String cursor, Integer page, Integer size) {
         final List<Specification<Event>> specifications = eventSearchFilterToSpecifications(searchFilter);
         final Specification<Event> resultSpec = specifications.stream().reduce(Specification::and).orElse(null);
-        final List<Event> events = eventRepository.findAll(getSort(searchFilter.sort(), resultSpec), pageable).getContent();
+        final EventSort eventSort = searchFilter.sort();
+        final String text = searchFilter.text();
+        if (eventSort == null && fullTextSearchEnabled && text != null) {
+            final CursorPage<Event> rankedEvents = eventRepository.findAllRanked(Event.class, resultSpec, cursor, page,
+                    size, text, TEXT_SEARCH_FIELDS);
+            log.debug("Получен список событий размером '{}'.", rankedEvents.content().size());
+            return rankedEvents;
+        }
+        final Specification<Event> keyset = cursor == null ? null : getKeyset(eventSort, cursor);
+        final List<Event> events = KeysetPagination.findContent(eventRepository, resultSpec, keyset, page, size,
+                getSort(eventSort));
         log.debug("Получен список событий размером '{}'.", events.size());
-        return events;
+        return CursorPage.of(events, size, event -> getCursor(eventSort, event));
     }
 
     private List<Specification<Event>> eventSearchFilterToSpecifications(EventSearchFilter searchFilter) {
@@ -159,20 +196,43 @@ public class EventServiceImpl implements EventService {
         resultSpecification.add(eventTypeEquals(searchFilter.types()));
         resultSpecification.add(textInActivityNameIgnoreCase(searchFilter.activity()));
         resultSpecification.add(eventStartInRange(searchFilter.startDate(), searchFilter.endDate()));
-        resultSpecification.add(textInNameOrDescription(searchFilter.text()));
+        resultSpecification.add(textInNameOrDescription(searchFilter.text(), fullTextSearchEnabled));
         resultSpecification.add(textInCountyName(searchFilter.country()));
         resultSpecification.add(textInRegionName(searchFilter.region()));
         resultSpecification.add(textInCityName(searchFilter.city()));
         return resultSpecification.stream().filter(Objects::nonNull).collect(Collectors.toList());
     }
 
-    private Specification<Event> getSort(EventSort eventSort, Specification<Event> spec) {
+    private Sort getSort(EventSort eventSort) {
+        if (eventSort == null) {
+            return ORDER_BY_ID;
+        }
+        return switch (eventSort) {
+            case EVENT_START -> ORDER_BY_EVENT_START;
+            case PRIZE -> ORDER_BY_PRIZE;
+        };
+    }
+
+    private Specification<Event> getKeyset(EventSort eventSort, String cursor) {
+        if (eventSort == null) {
+            return KeysetSpecification.afterId(PageCursor.decode(cursor, 1).getLong(0), Sort.Direction.DESC);
+        }
+        final PageCursor pageCursor = PageCursor.decode(cursor, 2);
+        return switch (eventSort) {
+            case EVENT_START -> KeysetSpecification.after("eventStart", pageCursor.getDateTime(0),
+                    pageCursor.getLong(1), Sort.Direction.ASC);
+            case PRIZE -> KeysetSpecification.after("prize", pageCursor.getInt(0), pageCursor.getLong(1),
+                    Sort.Direction.DESC);
+        };
+    }
+
+    private String getCursor(EventSort eventSort, Event event) {
         if (eventSort == null) {
-            return orderById(spec);
+            return PageCursor.encode(event.getId());
         }
         return switch (eventSort) {
-            case EVENT_START -> orderByEventStartDate(spec);
-            case PRIZE -> orderByPrize(spec);
+            case EVENT_START -> PageCursor.encode(event.getEventStart(), event.getId());
+            case PRIZE -> PageCursor.encode(event.getPrize(), event.getId());
         };
     }
 
@@ -12,6 +12,7 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -31,9 +32,9 @@ import ru.yandex.kardomoblieapp.participation.model.ParticipantType;
 import ru.yandex.kardomoblieapp.participation.model.Participation;
 import ru.yandex.kardomoblieapp.participation.model.Score;
 import ru.yandex.kardomoblieapp.participation.service.ParticipationService;
+import ru.yandex.kardomoblieapp.security.userservice.TokenUser;
 import ru.yandex.kardomoblieapp.shared.exception.ErrorResponse;
 
-import java.security.Principal;
 import java.util.List;
 
 @RestController
@@ -75,9 +76,10 @@ public class ParticipationController {
                                                 @RequestBody
                                                 @Parameter(description = "Запрос обновления заявки")
                                                 ParticipationUpdateRequest updateRequest,
-                                                @Parameter(hidden = true) Principal principal) {
+                                                @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
         log.info("Обновленные заявки на участие");
-        final Participation participation = participationService.updateParticipation(participationId, updateRequest, principal.getName());
+        final Participation participation = participationService.updateParticipation(participationId, updateRequest,
+                user.getUserId(), user.getRole());
         return participationMapper.toDto(participation);
     }
 
@@ -98,9 +100,9 @@ public class ParticipationController {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
     })
     public void deleteParticipation(@PathVariable @Parameter(description = "Идентификатор заявки") long participationId,
-                                    @Parameter(hidden = true) Principal principal) {
+                                    @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
         log.info("Удаление заявки на участие");
-        participationService.deleteParticipation(participationId, principal.getName());
+        participationService.deleteParticipation(participationId, user.getUserId(), user.getRole());
     }
 
     @GetMapping("/users/{userId}")
@@ -166,11 +168,11 @@ public class ParticipationController {
                                               @PathVariable long participationId,
                                               @Parameter(description = "Запрос на установку оценки заявки")
                                               @RequestBody @Valid NewScoreRequest newScoreRequest,
-                                              @Parameter(hidden = true) Principal principal) {
-        log.info("Пользователь '{}' ставит оценку заявке с id '{}.", principal.getName(), participationId);
+                                              @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.info("Пользователь с id '{}' ставит оценку заявке с id '{}.", user.getUserId(), participationId);
         final Score score = scoreMapper.toModel(newScoreRequest);
         final Participation ratedParticipation = participationService.rateParticipation(participationId, score,
-                principal.getName());
+                user.getUserId());
         return participationMapper.toDto(ratedParticipation);
     }
 }
@@ -6,6 +6,7 @@ import ru.yandex.kardomoblieapp.participation.model.ParticipantType;
 import ru.yandex.kardomoblieapp.participation.model.Participation;
 import ru.yandex.kardomoblieapp.participation.model.ParticipationStatus;
 import ru.yandex.kardomoblieapp.participation.model.Score;
+import ru.yandex.kardomoblieapp.user.model.UserRole;
 
 import java.util.List;
 
@@ -14,13 +15,14 @@ public interface ParticipationService {
 
     Participation changeParticipationStatus(long participationId, ParticipationStatus status);
 
-    Participation updateParticipation(long participationId, ParticipationUpdateRequest updateRequest, String username);
+    Participation updateParticipation(long participationId, ParticipationUpdateRequest updateRequest, long userId,
+                                      UserRole role);
 
-    void deleteParticipation(long participationId, String username);
+    void deleteParticipation(long participationId, long userId, UserRole role);
 
     List<Participation> findUsersParticipations(long userId, ParticipantType type);
 
     Participation findParticipationById(long participationId);
 
-    Participation rateParticipation(long participationId, Score score, String username);
+    Participation rateParticipation(long participationId, Score score, long judgeId);
 }
@@ -94,14 +94,15 @@ public class ParticipationServiceImpl implements ParticipationService {
      *
      * @param participationId идентификатор заявки
      * @param updateRequest   новые данные заявки
-     * @param username        никнейм пользователя, делающего запрос
+     * @param userId          идентификатор пользователя, делающего запрос
+     * @param role            роль пользователя, делающего запрос
      * @return обновленная заявка
      */
     @Override
-    public Participation updateParticipation(long participationId, ParticipationUpdateRequest updateRequest, String username) {
+    public Participation updateParticipation(long participationId, ParticipationUpdateRequest updateRequest, long userId,
+                                             UserRole role) {
         final Participation participation = getParticipation(participationId);
-        final User user = userService.findByUsername(username);
-        checkIfUserCanModifyParticipation(participation, user);
+        checkIfUserCanModifyParticipation(participation, userId, role);
         participation.setLinkToContestFile(updateRequest.linkToContestFile());
         final Participation updatedParticipation = participationRepository.save(participation);
         log.info("Заявка с id '{}' обновлена.", participationId);
@@ -113,13 +114,13 @@ public class ParticipationServiceImpl implements ParticipationService {
      * данного статуса удаление возможно только администратором.
      *
      * @param participationId идентификатор заявки
-     * @param username        никнейм пользователя, делащего запрос
+     * @param userId          идентификатор пользователя, делающего запрос
+     * @param role            роль пользователя, делающего запрос
      */
     @Override
-    public void deleteParticipation(long participationId, String username) {
+    public void deleteParticipation(long participationId, long userId, UserRole role) {
         final Participation participation = getParticipation(participationId);
-        final User user = userService.findByUsername(username);
-        checkIfUserCanModifyParticipation(participation, user);
+        checkIfUserCanModifyParticipation(participation, userId, role);
         participationRepository.deleteById(participationId);
         log.info("Заявка с id '{}' удалена.", participationId);
     }
@@ -163,17 +164,16 @@ public class ParticipationServiceImpl implements ParticipationService {
      *
      * @param participationId идентификатор заявки
      * @param score           оценка
-     * @param username        никнейм пользователя, выставляющего оценку
+     * @param judgeId         идентификатор пользователя, выставляющего оценку
      * @return оцененная заявка
      */
     @Override
     @Transactional
-    public Participation rateParticipation(long participationId, Score score, String username) {
+    public Participation rateParticipation(long participationId, Score score, long judgeId) {
         final Participation participation = getParticipation(participationId);
-        final User judge = userService.findByUsername(username);
-        checkIfUserCanRateParticipation(participation, judge);
+        checkIfUserCanRateParticipation(participation, judgeId);
         score.setParticipation(participation);
-        score.setJudge(judge);
+        score.setJudge(userService.getUserReference(judgeId));
         scoreRepository.save(score);
         participation.setAvgScore(scoreRepository.findAvgRatingOfParticipation(participationId));
         final Participation result = participationRepository.save(participation);
@@ -181,18 +181,18 @@ public class ParticipationServiceImpl implements ParticipationService {
         return result;
     }
 
-    private void checkIfUserCanRateParticipation(Participation participation, User user) {
+    private void checkIfUserCanRateParticipation(Participation participation, long userId) {
         Optional<Participation> userParticipation = participationRepository.findByEventIdUserIdAndParticipantType(participation.getEvent().getId(),
-                user.getId(), ParticipantType.JUDGE);
+                userId, ParticipantType.JUDGE);
         if (userParticipation.isEmpty() || !participation.getStatus().equals(APPROVED)) {
-            throw new NotAuthorizedException("Пользователь с id '" + user.getId() + "' не может судить " +
+            throw new NotAuthorizedException("Пользователь с id '" + userId + "' не может судить " +
                     "мероприятие с id '" + participation.getEvent().getId() + "'.");
         }
     }
 
-    private void checkIfUserCanModifyParticipation(Participation participation, User user) {
-        if (!user.getRole().equals(UserRole.ADMIN)) {
-            if (!participation.getUser().getId().equals(user.getId()) || !participation.getStatus().equals(CREATED)) {
+    private void checkIfUserCanModifyParticipation(Participation participation, long userId, UserRole role) {
+        if (role != UserRole.ADMIN) {
+            if (participation.getUser().getId() != userId || !participation.getStatus().equals(CREATED)) {
                 throw new NotAuthorizedException("Пользователь не имеет прав на редактирование заявки!");
             }
         }
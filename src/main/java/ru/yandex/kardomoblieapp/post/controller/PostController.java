@@ -2,6 +2,7 @@ package ru.yandex.kardomoblieapp.post.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -16,6 +17,8 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -41,10 +44,13 @@ import ru.yandex.kardomoblieapp.post.model.Post;
 import ru.yandex.kardomoblieapp.post.model.PostSort;
 import ru.yandex.kardomoblieapp.post.model.PostWithLike;
 import ru.yandex.kardomoblieapp.post.service.PostService;
+import ru.yandex.kardomoblieapp.security.userservice.TokenUser;
 import ru.yandex.kardomoblieapp.shared.exception.ErrorResponse;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.shared.pagination.PageCursor;
 
-import java.security.Principal;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/posts")
@@ -85,9 +91,9 @@ public class PostController {
                               @Size(min = 2, max = 100, message = "Текст должен содержать от 2 до 100 символов")
                               @NotBlank(message = "Текст должен содержать от 2 до 100 символов")
                               @RequestParam("content") @Parameter(description = "Название поста") String content,
-                              @Parameter(hidden = true) Principal principal) {
-        log.info("Пользователь c id '{}' публикует новый пост.", principal.getName());
-        final Post createdPost = postService.createPost(principal.getName(), file, content);
+                              @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.info("Пользователь c id '{}' публикует новый пост.", user.getUserId());
+        final Post createdPost = postService.createPost(user.getUserId(), file, content);
         return postMapper.toDto(createdPost);
     }
 
@@ -116,9 +122,9 @@ public class PostController {
                               @Size(min = 2, max = 100, message = "Название поста должно содержать от 2 до 100 символов")
                               @RequestParam(value = "content", required = false)
                               @Parameter(description = "Содержание поста") String content,
-                              @Parameter(hidden = true) Principal principal) {
-        log.info("Пользователь c id '{}' обновляет пост с id '{}'.", principal.getName(), postId);
-        final Post updatedPost = postService.updatePost(principal.getName(), postId, file, content);
+                              @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.info("Пользователь c id '{}' обновляет пост с id '{}'.", user.getUserId(), postId);
+        final Post updatedPost = postService.updatePost(user.getUserId(), postId, file, content);
         return postMapper.toDto(updatedPost);
     }
 
@@ -139,9 +145,9 @@ public class PostController {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
     })
     public void deletePost(@PathVariable @Parameter(description = "Идентификатор поста") long postId,
-                           @Parameter(hidden = true) Principal principal) {
-        log.info("Пользователь c id '{}' удаляет пост с id '{}'.", principal.getName(), postId);
-        postService.deletePost(postId, principal.getName());
+                           @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.info("Пользователь c id '{}' удаляет пост с id '{}'.", user.getUserId(), postId);
+        postService.deletePost(postId, user.getUserId());
     }
 
     @GetMapping("/{postId}")
@@ -162,9 +168,9 @@ public class PostController {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
     })
     public PostWithLikeDto getPostById(@PathVariable @Parameter(description = "Идентификатор поста") long postId,
-                                       @Parameter(hidden = true) Principal principal) {
-        log.debug("Пользователь c id '{}' запрашивает пост с id '{}'.", principal.getName(), postId);
-        final PostWithLike post = postService.findPostById(postId, principal.getName());
+                                       @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.debug("Пользователь c id '{}' запрашивает пост с id '{}'.", user.getUserId(), postId);
+        final PostWithLike post = postService.findPostById(postId, user.getUserId());
         return postMapper.toDto(post);
     }
 
@@ -201,52 +207,65 @@ public class PostController {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
     })
     public long addLikeToPost(@PathVariable @Parameter(description = "Идентификатор поста") long postId,
-                              @Parameter(hidden = true) Principal principal) {
-        log.debug("Пользователь с id '{}' ставит лайк посту с id '{}'.", principal.getName(), postId);
-        return postService.addLikeToPost(principal.getName(), postId);
+                              @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.debug("Пользователь с id '{}' ставит лайк посту с id '{}'.", user.getUserId(), postId);
+        return postService.addLikeToPost(user.getUserId(), postId);
     }
 
     @GetMapping("/feed")
     @SecurityRequirement(name = "JWT")
     @Operation(summary = "Получение ленты постов")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Лента получена", content = {
-                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = PostDto.class)))}),
+            @ApiResponse(responseCode = "200", description = "Лента получена", headers = {
+                    @Header(name = PageCursor.NEXT_CURSOR_HEADER, description = "Курсор следующей страницы")}, content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = PostWithLikeDto.class)))}),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
             @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован"),
             @ApiResponse(responseCode = "403", description = "Срок действия токена доступа истек"),
             @ApiResponse(responseCode = "500", description = "Произошла неизвестная ошибка", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
     })
-    public List<PostDto> getPostsFeed(@RequestParam(defaultValue = "0")
-                                      @Parameter(description = "Номер страницы") Integer page,
-                                      @RequestParam(defaultValue = "10")
-                                      @Parameter(description = "Количество постов на странице") Integer size) {
-        log.debug("Получение ленты постов. from = '{}', size = '{}'.", page, size);
-        List<Post> feed = postService.getPostsFeed(page, size);
-        return postMapper.toDtoList(feed);
+    public ResponseEntity<List<PostWithLikeDto>> getPostsFeed(@RequestParam(required = false)
+                                                              @Parameter(description = "Курсор следующей страницы") String cursor,
+                                                              @RequestParam(defaultValue = "0")
+                                                              @Parameter(description = "Номер страницы") Integer page,
+                                                              @RequestParam(defaultValue = "10")
+                                                              @Parameter(description = "Количество постов на странице") Integer size,
+                                                              @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.debug("Получение ленты постов. cursor = '{}', from = '{}', size = '{}'.", cursor, page, size);
+        CursorPage<Post> feed = postService.getPostsFeed(cursor, page, size);
+        Set<Long> likedPostIds = postService.findLikedPostIds(user.getUserId(), feed.content());
+        return feed.toResponseEntity(postMapper.toDtoList(feed.content(), likedPostIds));
     }
 
     @GetMapping("/recommendations")
     @SecurityRequirement(name = "JWT")
     @Operation(summary = "Получение рекомендаций")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список рекомендаций получен", content = {
-                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = PostDto.class)))}),
+            @ApiResponse(responseCode = "200", description = "Список рекомендаций получен", headers = {
+                    @Header(name = PageCursor.NEXT_CURSOR_HEADER, description = "Курсор следующей страницы")}, content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = PostWithLikeDto.class)))}),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
             @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован"),
             @ApiResponse(responseCode = "403", description = "Срок действия токена доступа истек"),
             @ApiResponse(responseCode = "500", description = "Произошла неизвестная ошибка", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
     })
-    public List<PostDto> getRecommendations(@RequestParam(defaultValue = "0")
-                                            @Parameter(description = "Номер страницы") Integer page,
-                                            @RequestParam(defaultValue = "10")
-                                            @Parameter(description = "Количество постов на странице") Integer size,
-                                            @RequestParam(defaultValue = "LIKES")
-                                            @Parameter(description = "Тип сортировки") PostSort sort,
-                                            @Parameter(hidden = true) Principal principal) {
-        log.debug("Получение рекомендаций. from: '{}, size: '{}', sort: '{}'.", page, size, sort);
-        List<Post> recommendations = postService.getRecommendations(principal.getName(), page, size, sort);
-        return postMapper.toDtoList(recommendations);
+    public ResponseEntity<List<PostWithLikeDto>> getRecommendations(@RequestParam(required = false)
+                                                                    @Parameter(description = "Курсор следующей страницы") String cursor,
+                                                                    @RequestParam(defaultValue = "0")
+                                                                    @Parameter(description = "Номер страницы") Integer page,
+                                                                    @RequestParam(defaultValue = "10")
+                                                                    @Parameter(description = "Количество постов на странице") Integer size,
+                                                                    @RequestParam(defaultValue = "LIKES")
+                                                                    @Parameter(description = "Тип сортировки") PostSort sort,
+                                                                    @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.debug("Получение рекомендаций. cursor = '{}', from: '{}, size: '{}', sort: '{}'.", cursor, page, size, sort);
+        CursorPage<Post> recommendations = postService.getRecommendations(user.getUserId(), cursor, page, size, sort);
+        Set<Long> likedPostIds = postService.findLikedPostIds(user.getUserId(), recommendations.content());
+        return recommendations.toResponseEntity(postMapper.toDtoList(recommendations.content(), likedPostIds));
     }
 
     @PostMapping("/{postId}/comment")
@@ -266,13 +285,39 @@ public class PostController {
     })
     public CommentDto addCommentToPost(@PathVariable @Parameter(description = "Идентификатор поста") long postId,
                                        @RequestBody @Valid @Parameter(description = "Новый комментарий") CommentRequest commentRequest,
-                                       @Parameter(hidden = true) Principal principal) {
-        log.debug("Пользователь с id '{}' добавляет комментарий к посту с id '{}'.", principal.getName(), postId);
+                                       @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.debug("Пользователь с id '{}' добавляет комментарий к посту с id '{}'.", user.getUserId(), postId);
         Comment newComment = commentMapper.toModel(commentRequest);
-        Comment comment = postService.addCommentToPost(principal.getName(), postId, newComment);
+        Comment comment = postService.addCommentToPost(user.getUserId(), postId, newComment);
         return commentMapper.toDto(comment);
     }
 
+    @GetMapping("/{postId}/comments")
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Получение комментариев к посту")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Список комментариев получен", headers = {
+                    @Header(name = PageCursor.NEXT_CURSOR_HEADER, description = "Курсор следующей страницы")}, content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CommentDto.class)))}),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован"),
+            @ApiResponse(responseCode = "403", description = "Срок действия токена доступа истек"),
+            @ApiResponse(responseCode = "404", description = "Пост не найден", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Произошла неизвестная ошибка", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
+    })
+    public ResponseEntity<List<CommentDto>> getPostComments(@PathVariable @Parameter(description = "Идентификатор поста") long postId,
+                                                            @RequestParam(required = false)
+                                                            @Parameter(description = "Курсор следующей страницы") String cursor,
+                                                            @RequestParam(defaultValue = "20")
+                                                            @Parameter(description = "Количество комментариев на странице") Integer size) {
+        log.debug("Получение комментариев к посту с id '{}'. cursor = '{}', size = '{}'.", postId, cursor, size);
+        CursorPage<Comment> comments = postService.getPostComments(postId, cursor, size);
+        return comments.toResponseEntity(commentMapper.toDtoList(comments.content()));
+    }
+
     @PatchMapping("/{postId}/comment/{commentId}")
     @SecurityRequirement(name = "JWT")
     @Operation(summary = "Редактирование комментария")
@@ -295,9 +340,9 @@ public class PostController {
     public CommentDto updateComment(@PathVariable @Parameter(description = "Идентификатор поста") long postId,
                                     @PathVariable @Parameter(description = "Идентификатор комментария") long commentId,
                                     @RequestBody @Valid @Parameter(description = "Новый комментарий") CommentRequest commentRequest,
-                                    @Parameter(hidden = true) Principal principal) {
-        log.info("Пользователь с id '{}' добавляет комментарий c id '{}'.", principal.getName(), commentId);
-        Comment updatedComment = postService.updateComment(principal.getName(), commentId, commentRequest);
+                                    @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.info("Пользователь с id '{}' добавляет комментарий c id '{}'.", user.getUserId(), commentId);
+        Comment updatedComment = postService.updateComment(user.getUserId(), commentId, commentRequest);
         return commentMapper.toDto(updatedComment);
     }
 
@@ -320,28 +365,35 @@ public class PostController {
     })
     public void deleteComment(@PathVariable @Parameter(description = "Идентификатор поста") long postId,
                               @PathVariable @Parameter(description = "Идентификатор комментария") long commentId,
-                              @Parameter(hidden = true) Principal principal) {
-        log.info("Пользователь с id '{}' удаляет комментарий c id '{}'.", principal.getName(), commentId);
-        postService.deleteComment(principal.getName(), commentId);
+                              @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        log.info("Пользователь с id '{}' удаляет комментарий c id '{}'.", user.getUserId(), commentId);
+        postService.deleteComment(user.getUserId(), commentId);
     }
 
     @GetMapping("/search")
     @SecurityRequirement(name = "JWT")
     @Operation(summary = "Поиск постов")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Список постов получен", content = {
-                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = PostDto.class)))}),
+            @ApiResponse(responseCode = "200", description = "Список постов получен", headers = {
+                    @Header(name = PageCursor.NEXT_CURSOR_HEADER, description = "Курсор следующей страницы")}, content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = PostWithLikeDto.class)))}),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
             @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован"),
             @ApiResponse(responseCode = "403", description = "Срок действия токена доступа истек"),
             @ApiResponse(responseCode = "500", description = "Произошла неизвестная ошибка", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
     })
-    public List<PostDto> searchPosts(@Parameter(description = "Фильтр поиска") PostSearchFilter searchFilter,
-                                     @RequestParam(defaultValue = "0")
-                                     @Parameter(description = "Номер страницы") Integer page,
-                                     @RequestParam(defaultValue = "10")
-                                     @Parameter(description = "Количество постов на странице") Integer size) {
-        final List<Post> posts = postService.searchPosts(searchFilter, page, size);
-        return postMapper.toDtoList(posts);
+    public ResponseEntity<List<PostWithLikeDto>> searchPosts(@Parameter(description = "Фильтр поиска") PostSearchFilter searchFilter,
+                                                             @RequestParam(required = false)
+                                                             @Parameter(description = "Курсор следующей страницы") String cursor,
+                                                             @RequestParam(defaultValue = "0")
+                                                             @Parameter(description = "Номер страницы") Integer page,
+                                                             @RequestParam(defaultValue = "10")
+                                                             @Parameter(description = "Количество постов на странице") Integer size,
+                                                             @Parameter(hidden = true) @AuthenticationPrincipal TokenUser user) {
+        final CursorPage<Post> posts = postService.searchPosts(searchFilter, cursor, page, size);
+        final Set<Long> likedPostIds = postService.findLikedPostIds(user.getUserId(), posts.content());
+        return posts.toResponseEntity(postMapper.toDtoList(posts.content(), likedPostIds));
     }
 }
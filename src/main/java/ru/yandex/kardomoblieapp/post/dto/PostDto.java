@@ -5,8 +5,6 @@ import lombok.Builder;
 import ru.yandex.kardomoblieapp.datafiles.dto.DataFileDto;
 import ru.yandex.kardomoblieapp.user.dto.ShortUserDto;
 
-import java.util.List;
-
 @Builder
 @Schema(description = "Пост пользователя")
 public record PostDto(@Schema(description = "Идентификатор поста")
@@ -21,7 +19,7 @@ public record PostDto(@Schema(description = "Идентификатор пост
                       long likes,
                       @Schema(description = "Количество просмотров")
                       long views,
-                      @Schema(description = "Комментарии к посту")
-                      List<CommentDto> comments) {
+                      @Schema(description = "Количество комментариев")
+                      long commentsCount) {
 
 }
@@ -21,7 +21,9 @@ public record PostWithLikeDto(@Schema(description = "Идентификатор
                               long likes,
                               @Schema(description = "Количество просмотров")
                               long views,
-                              @Schema(description = "Комментарии к посту")
+                              @Schema(description = "Количество комментариев")
+                              long commentsCount,
+                              @Schema(description = "Первые комментарии к посту, заполняются только при получении поста по идентификатору")
                               List<CommentDto> comments,
                               @Schema(description = "Лайкнут ли пост пользователем")
                               boolean likedByUser) {
@@ -7,11 +7,15 @@ import ru.yandex.kardomoblieapp.post.dto.CommentRequest;
 import ru.yandex.kardomoblieapp.post.model.Comment;
 import ru.yandex.kardomoblieapp.user.mapper.UserMapper;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring", uses = {UserMapper.class})
 public interface CommentMapper {
 
     @Mapping(source = "author.id", target = "authorId")
     CommentDto toDto(Comment comment);
 
+    List<CommentDto> toDtoList(List<Comment> comments);
+
     Comment toModel(CommentRequest commentRequest);
 }
@@ -1,6 +1,7 @@
 package ru.yandex.kardomoblieapp.post.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import ru.yandex.kardomoblieapp.datafiles.mapper.DataFileMapper;
 import ru.yandex.kardomoblieapp.post.dto.PostDto;
 import ru.yandex.kardomoblieapp.post.dto.PostWithLikeDto;
@@ -9,8 +10,9 @@ import ru.yandex.kardomoblieapp.post.model.PostWithLike;
 import ru.yandex.kardomoblieapp.user.mapper.UserMapper;
 
 import java.util.List;
+import java.util.Set;
 
-@Mapper(componentModel = "spring", uses = {UserMapper.class, DataFileMapper.class})
+@Mapper(componentModel = "spring", uses = {UserMapper.class, DataFileMapper.class, CommentMapper.class})
 public interface PostMapper {
 
     PostDto toDto(Post post);
@@ -18,4 +20,13 @@ public interface PostMapper {
     List<PostDto> toDtoList(List<Post> userPosts);
 
     PostWithLikeDto toDto(PostWithLike post);
+
+    @Mapping(target = "comments", ignore = true)
+    PostWithLikeDto toDto(Post post, boolean likedByUser);
+
+    default List<PostWithLikeDto> toDtoList(List<Post> posts, Set<Long> likedPostIds) {
+        return posts.stream()
+                .map(post -> toDto(post, likedPostIds.contains(post.getId())))
+                .toList();
+    }
 }
@@ -3,13 +3,11 @@ package ru.yandex.kardomoblieapp.post.model;
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
@@ -23,8 +21,6 @@ import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
 import ru.yandex.kardomoblieapp.user.model.User;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 @Entity
 @Table(name = "posts")
@@ -56,21 +52,12 @@ public class Post {
     @ToString.Exclude
     private DataFile file;
 
-    @Column(name = "likes")
+    @Column(name = "likes", updatable = false)
     private long likes;
 
-    @Column(name = "views")
+    @Column(name = "views", updatable = false)
     private long views;
 
-    @OneToMany(mappedBy = "post", fetch = FetchType.LAZY)
-    @ToString.Exclude
-    private final List<Comment> comments = new ArrayList<>();
-
-    public void addView() {
-        views++;
-    }
-
-    public void addComment(Comment comment) {
-        comments.add(comment);
-    }
+    @Column(name = "comments_count", updatable = false)
+    private long commentsCount;
 }
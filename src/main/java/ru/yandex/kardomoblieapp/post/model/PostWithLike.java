@@ -7,7 +7,6 @@ import lombok.NoArgsConstructor;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
 import ru.yandex.kardomoblieapp.user.model.User;
 
-import java.util.ArrayList;
 import java.util.List;
 
 @Data
@@ -28,14 +27,17 @@ public class PostWithLike {
 
     private long views;
 
+    private long commentsCount;
+
     private List<Comment> comments;
 
     private boolean likedByUser;
 
-    public PostWithLike(Post post, boolean isPostLikedByUser) {
+    public PostWithLike(Post post, List<Comment> comments, boolean isPostLikedByUser) {
         this.id = post.getId();
         this.author = post.getAuthor();
-        this.comments = new ArrayList<>(post.getComments());
+        this.commentsCount = post.getCommentsCount();
+        this.comments = comments;
         this.file = post.getFile();
         this.title = post.getTitle();
         this.likes = post.getLikes();
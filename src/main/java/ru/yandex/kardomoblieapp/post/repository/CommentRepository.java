@@ -1,13 +1,28 @@
 package ru.yandex.kardomoblieapp.post.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.yandex.kardomoblieapp.post.model.Comment;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
     @Query("SELECT c FROM Comment c LEFT JOIN FETCH c.author a WHERE c.id = ?1")
     Optional<Comment> findCommentById(long commentId);
+
+    @Query("SELECT c FROM Comment c LEFT JOIN FETCH c.author a LEFT JOIN FETCH a.profilePicture pp " +
+            "WHERE c.post.id = ?1 ORDER BY c.id")
+    List<Comment> findPostComments(long postId, Pageable pageable);
+
+    @Query("SELECT c FROM Comment c LEFT JOIN FETCH c.author a LEFT JOIN FETCH a.profilePicture pp " +
+            "WHERE c.post.id = ?1 AND c.id > ?2 ORDER BY c.id")
+    List<Comment> findPostCommentsAfter(long postId, long commentId, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM Comment c WHERE c.id = ?1")
+    int deleteCommentById(long commentId);
 }
@@ -2,11 +2,33 @@ package ru.yandex.kardomoblieapp.post.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.kardomoblieapp.post.model.PostLike;
 import ru.yandex.kardomoblieapp.post.model.PostLikeId;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface PostLikeRepository extends JpaRepository<PostLike, PostLikeId> {
 
-    @Query(value = "SELECT COUNT(*) FROM post_likes WHERE post_id = ?1", nativeQuery = true)
-    long findPostLikesCount(long postId);
+    /**
+     * Переключение лайка пользователя одним запросом. Если лайк существует, то он удаляется, иначе добавляется.
+     * Количество лайков поста изменяется атомарно на той же строке.
+     *
+     * @param postId идентификатор поста
+     * @param userId идентификатор пользователя
+     * @return количество лайков поста
+     */
+    @Transactional
+    @Query(value = "WITH deleted AS (" +
+            "DELETE FROM post_likes WHERE post_id = ?1 AND user_id = ?2 RETURNING post_id), " +
+            "inserted AS (" +
+            "INSERT INTO post_likes (post_id, user_id) SELECT ?1, ?2 WHERE NOT EXISTS (SELECT 1 FROM deleted) " +
+            "ON CONFLICT DO NOTHING RETURNING post_id) " +
+            "UPDATE posts SET likes = likes + (SELECT COUNT(*) FROM inserted) - (SELECT COUNT(*) FROM deleted) " +
+            "WHERE post_id = ?1 RETURNING likes", nativeQuery = true)
+    long toggleLike(long postId, long userId);
+
+    @Query(value = "SELECT post_id FROM post_likes WHERE user_id = ?1 AND post_id IN ?2", nativeQuery = true)
+    List<Long> findLikedPostIds(long userId, Collection<Long> postIds);
 }
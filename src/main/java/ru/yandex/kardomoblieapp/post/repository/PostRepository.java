@@ -1,15 +1,21 @@
 package ru.yandex.kardomoblieapp.post.repository;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.yandex.kardomoblieapp.post.model.Post;
+import ru.yandex.kardomoblieapp.shared.search.RankedSearchExecutor;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface PostRepository extends JpaRepository<Post, Long>, JpaSpecificationExecutor<Post> {
+public interface PostRepository extends JpaRepository<Post, Long>, JpaSpecificationExecutor<Post>,
+        RankedSearchExecutor<Post> {
 
     @Query("SELECT p FROM Post p LEFT JOIN FETCH p.author u LEFT JOIN FETCH p.file f WHERE u.id = ?1")
     List<Post> findPostsByAuthorId(long userId);
@@ -17,13 +23,24 @@ public interface PostRepository extends JpaRepository<Post, Long>, JpaSpecificat
     @Query("SELECT p FROM Post p LEFT JOIN FETCH p.author u LEFT JOIN FETCH p.file f WHERE p.id = ?1")
     Optional<Post> findPostById(long id);
 
-    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.author u LEFT JOIN FETCH p.file f LEFT JOIN p.comments c WHERE p.id = ?1")
-    Optional<Post> findPostWithCommentsById(long id);
-
 
     @Query("SELECT p FROM Post p LEFT JOIN FETCH p.author a LEFT JOIN FETCH p.file f")
     List<Post> getPostsFeed(Pageable pageable);
 
-    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.author a LEFT JOIN FETCH p.file f WHERE a.id NOT IN ?1")
-    List<Post> findRecommendations(List<Long> friendsIds, Pageable pageable);
+    /**
+     * Выборка идентификаторов постов ленты, следующих за курсором. Сравнение строк (views, created_on, post_id)
+     * позволяет начать чтение индекса idx_posts_feed сразу с позиции курсора.
+     */
+    String FEED_AFTER_QUERY = "SELECT post_id FROM posts WHERE (views, created_on, post_id) < (?1, ?2, ?3) " +
+            "ORDER BY views DESC, created_on DESC, post_id DESC LIMIT ?4";
+
+    @Query(value = FEED_AFTER_QUERY, nativeQuery = true)
+    List<Long> findPostsFeedIdsAfter(long views, LocalDateTime createdOn, long postId, int limit);
+
+    @Query("SELECT p FROM Post p LEFT JOIN FETCH p.author a LEFT JOIN FETCH p.file f WHERE p.id IN ?1")
+    List<Post> findPostsByIds(Collection<Long> ids, Sort sort);
+
+    @Modifying
+    @Query(value = "UPDATE posts SET comments_count = comments_count + ?2 WHERE post_id = ?1", nativeQuery = true)
+    void changeCommentsCount(long postId, long delta);
 }
@@ -1,17 +1,46 @@
 package ru.yandex.kardomoblieapp.post.repository;
 
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import lombok.experimental.UtilityClass;
 import org.springframework.data.jpa.domain.Specification;
 import ru.yandex.kardomoblieapp.post.model.Post;
+import ru.yandex.kardomoblieapp.shared.search.TextSearchSpecification;
+import ru.yandex.kardomoblieapp.user.model.Friendship;
 
 @UtilityClass
 public class PostSpecification {
 
-    public static Specification<Post> textInPostTitle(String text) {
+    public static Specification<Post> textInPostTitle(String text, boolean fullText) {
         if (text == null) {
             return null;
         }
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.like(criteriaBuilder.lower(root.get("title")), "%" + text.toLowerCase() + "%");
+                TextSearchSpecification.matches(root, criteriaBuilder, text, fullText, "title");
+    }
+
+    public static Specification<Post> notFromUserAndHisFriends(long userId) {
+        return (root, query, criteriaBuilder) -> {
+            final Subquery<Integer> friendship = query.subquery(Integer.class);
+            final Root<Friendship> friendshipRoot = friendship.from(Friendship.class);
+            friendship.select(criteriaBuilder.literal(1))
+                    .where(criteriaBuilder.equal(friendshipRoot.get("id").get("user").get("id"), userId),
+                            criteriaBuilder.equal(friendshipRoot.get("id").get("friend").get("id"),
+                                    root.get("author").get("id")));
+            return criteriaBuilder.and(
+                    criteriaBuilder.notEqual(root.get("author").get("id"), userId),
+                    criteriaBuilder.not(criteriaBuilder.exists(friendship)));
+        };
+    }
+
+    public static Specification<Post> fetchAuthorAndFile() {
+        return (root, query, criteriaBuilder) -> {
+            if (!Long.class.equals(query.getResultType())) {
+                root.fetch("author", JoinType.LEFT);
+                root.fetch("file", JoinType.LEFT);
+            }
+            return null;
+        };
     }
 }
@@ -7,31 +7,43 @@ import ru.yandex.kardomoblieapp.post.model.Comment;
 import ru.yandex.kardomoblieapp.post.model.Post;
 import ru.yandex.kardomoblieapp.post.model.PostSort;
 import ru.yandex.kardomoblieapp.post.model.PostWithLike;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
 
 import java.util.List;
+import java.util.Set;
 
 public interface PostService {
-    Post createPost(String username, MultipartFile file, String content);
+    Post createPost(long userId, MultipartFile file, String content);
 
-    Post updatePost(String username, long postId, MultipartFile file, String content);
+    Post updatePost(long userId, long postId, MultipartFile file, String content);
 
-    void deletePost(long postId, String username);
+    void deletePost(long postId, long userId);
 
-    PostWithLike findPostById(long postId, String username);
+    PostWithLike findPostById(long postId, long userId);
 
     List<Post> findPostsFromUser(long userId);
 
-    long addLikeToPost(String username, long postId);
+    long addLikeToPost(long userId, long postId);
 
     List<Post> getPostsFeed(Integer from, Integer size);
 
-    Comment addCommentToPost(String username, long postId, Comment newComment);
+    CursorPage<Post> getPostsFeed(String cursor, Integer page, Integer size);
 
-    Comment updateComment(String username, long commentId, CommentRequest commentRequest);
+    Comment addCommentToPost(long userId, long postId, Comment newComment);
 
-    void deleteComment(String username, long commentId);
+    CursorPage<Comment> getPostComments(long postId, String cursor, Integer size);
 
-    List<Post> getRecommendations(String username, Integer from, Integer size, PostSort sort);
+    Comment updateComment(long userId, long commentId, CommentRequest commentRequest);
+
+    void deleteComment(long userId, long commentId);
+
+    List<Post> getRecommendations(long userId, Integer from, Integer size, PostSort sort);
+
+    CursorPage<Post> getRecommendations(long userId, String cursor, Integer page, Integer size, PostSort sort);
 
     List<Post> searchPosts(PostSearchFilter searchFilter, Integer page, Integer size);
+
+    CursorPage<Post> searchPosts(PostSearchFilter searchFilter, String cursor, Integer page, Integer size);
+
+    Set<Long> findLikedPostIds(long userId, List<Post> posts);
 }
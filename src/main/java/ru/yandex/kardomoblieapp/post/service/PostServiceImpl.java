@@ -2,8 +2,8 @@ package ru.yandex.kardomoblieapp.post.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
@@ -15,8 +15,6 @@ import ru.yandex.kardomoblieapp.post.dto.CommentRequest;
 import ru.yandex.kardomoblieapp.post.dto.PostSearchFilter;
 import ru.yandex.kardomoblieapp.post.model.Comment;
 import ru.yandex.kardomoblieapp.post.model.Post;
-import ru.yandex.kardomoblieapp.post.model.PostLike;
-import ru.yandex.kardomoblieapp.post.model.PostLikeId;
 import ru.yandex.kardomoblieapp.post.model.PostSort;
 import ru.yandex.kardomoblieapp.post.model.PostWithLike;
 import ru.yandex.kardomoblieapp.post.repository.CommentRepository;
@@ -25,13 +23,18 @@ import ru.yandex.kardomoblieapp.post.repository.PostRepository;
 import ru.yandex.kardomoblieapp.post.repository.PostSpecification;
 import ru.yandex.kardomoblieapp.shared.exception.NotAuthorizedException;
 import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.shared.pagination.KeysetPagination;
+import ru.yandex.kardomoblieapp.shared.pagination.KeysetSpecification;
+import ru.yandex.kardomoblieapp.shared.pagination.PageCursor;
 import ru.yandex.kardomoblieapp.user.model.User;
 import ru.yandex.kardomoblieapp.user.service.UserService;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -39,6 +42,12 @@ import java.util.stream.Collectors;
 @Slf4j
 public class PostServiceImpl implements PostService {
 
+    private static final Sort FEED_SORT = Sort.by("views", "createdOn", "id").descending();
+
+    private static final Sort SEARCH_SORT = Sort.by("id").descending();
+
+    private static final int FIRST_COMMENTS_SIZE = 10;
+
     private final PostRepository postRepository;
 
     private final UserService userService;
@@ -49,18 +58,23 @@ public class PostServiceImpl implements PostService {
 
     private final CommentRepository commentRepository;
 
+    private final PostViewCounter postViewCounter;
+
+    @Value("${search.full-text.enabled:true}")
+    private boolean fullTextSearchEnabled;
+
     /**
      * Создание поста пользователем.
      *
-     * @param username никнейм пользователя, создающего пост
-     * @param file     файл, прикрепленный к посту
-     * @param content  содержание поста
+     * @param userId  идентификатор пользователя, создающего пост
+     * @param file    файл, прикрепленный к посту
+     * @param content содержание поста
      * @return созданный пост
      */
     @Override
     @Transactional
-    public Post createPost(String username, MultipartFile file, String content) {
-        final User author = userService.findByUsername(username);
+    public Post createPost(long userId, MultipartFile file, String content) {
+        final User author = userService.findUserById(userId);
         final Post newPost = Post.builder()
                 .author(author)
                 .title(content)
@@ -76,21 +90,20 @@ public class PostServiceImpl implements PostService {
     /**
      * Обновление поста.
      *
-     * @param username никнейм пользователя, обновляющего пост
-     * @param file     новый файл
-     * @param content  новое содержание поста
+     * @param userId  идентификатор пользователя, обновляющего пост
+     * @param file    новый файл
+     * @param content новое содержание поста
      * @return обновленный пост
      */
     @Override
     @Transactional
-    public Post updatePost(String username, long postId, MultipartFile file, String content) {
-        User user = userService.findByUsername(username);
+    public Post updatePost(long userId, long postId, MultipartFile file, String content) {
         final Post postToUpdate = getPost(postId);
 
         DataFile currentFile = postToUpdate.getFile();
         if (file != null && !currentFile.getFileName().equals(file.getOriginalFilename())) {
             dataFileService.deleteFile(currentFile.getId());
-            DataFile newFile = dataFileService.uploadFile(file, user.getId());
+            DataFile newFile = dataFileService.uploadFile(file, userId);
             postToUpdate.setFile(newFile);
         }
         if (content != null) {
@@ -98,46 +111,46 @@ public class PostServiceImpl implements PostService {
         }
 
         postRepository.save(postToUpdate);
-        long likes = postLikeRepository.findPostLikesCount(postId);
-        postToUpdate.setLikes(likes);
-        log.info("Пост с id '{}' был обновлен пользователем с id '{}'.", postId, user.getId());
+        log.info("Пост с id '{}' был обновлен пользователем с id '{}'.", postId, userId);
         return postToUpdate;
     }
 
     /**
      * Удаление поста по идентификатору.
      *
-     * @param postId   идентификатор поста
-     * @param username никнейм пользователя, делающего запрос
+     * @param postId идентификатор поста
+     * @param userId идентификатор пользователя, делающего запрос
      */
     @Override
     @Transactional
-    public void deletePost(long postId, String username) {
-        userService.findByUsername(username);
+    public void deletePost(long postId, long userId) {
         final Post postToDelete = getPost(postId);
         DataFile file = postToDelete.getFile();
         dataFileService.deleteFile(file.getId());
         postRepository.deleteById(postId);
+        log.info("Пост с id '{}' был удален пользователем с id '{}'.", postId, userId);
     }
 
     /**
-     * Поиск поста по идентификатору.
+     * Поиск поста по идентификатору. Просмотр поста учитывается в счетчике просмотров и записывается в базу данных
+     * отложенно, количество просмотров в ответе включает еще не записанные просмотры. Вместе с постом возвращаются
+     * только первые комментарии, остальные комментарии запрашиваются постранично.
      *
-     * @param postId   идентификатор поста
-     * @param username никнейм пользователя, делающего запрос
+     * @param postId идентификатор поста
+     * @param userId идентификатор пользователя, делающего запрос
      */
     @Override
     @Transactional
-    public PostWithLike findPostById(long postId, String username) {
-        final Post post = getPostWithComments(postId);
-        final User user = userService.findByUsername(username);
-        post.addView();
-        postRepository.save(post);
-        long likes = postLikeRepository.findPostLikesCount(postId);
-        post.setLikes(likes);
-        final boolean isPostLikedByUser = postLikeRepository.existsById(PostLikeId.of(post, user));
+    public PostWithLike findPostById(long postId, long userId) {
+        final Post post = getPost(postId);
+        postViewCounter.addView(postId);
+        final boolean isPostLikedByUser = !postLikeRepository.findLikedPostIds(userId, List.of(postId)).isEmpty();
+        final List<Comment> comments = commentRepository.findPostComments(postId,
+                PageRequest.of(0, FIRST_COMMENTS_SIZE));
+        final PostWithLike postWithLike = new PostWithLike(post, comments, isPostLikedByUser);
+        postWithLike.setViews(post.getViews() + postViewCounter.getPendingViews(postId));
         log.debug("Получение поста с id '{}'.", postId);
-        return new PostWithLike(post, isPostLikedByUser);
+        return postWithLike;
     }
 
     /**
@@ -155,35 +168,22 @@ public class PostServiceImpl implements PostService {
 
     /**
      * Добавление лайка посту. Пользователь может поставить только один лайк посту. При попытке повторно поставить лайк
-     * предыдущий лайк будет удален.
+     * предыдущий лайк будет удален. Лайк и количество лайков поста изменяются одним запросом к базе данных.
      *
-     * @param username никнейм пользователя
-     * @param postId   идентификатор поста
+     * @param userId идентификатор пользователя
+     * @param postId идентификатор поста
      * @return количество лайков поста
      */
     @Override
     @Transactional
-    public long addLikeToPost(String username, long postId) {
-        User user = userService.findByUsername(username);
-        Post post = getPost(postId);
-
-        PostLikeId likeId = PostLikeId.of(post, user);
-        Optional<PostLike> like = postLikeRepository.findById(likeId);
-
-        if (like.isEmpty()) {
-            postLikeRepository.save(new PostLike(likeId));
-            log.debug("Пользователь с id '{}' поставил лайк посту с id '{}'.", user.getId(),
-                    postId);
-        } else {
-            postLikeRepository.deleteById(likeId);
-            log.debug("Пользователь с id '{}' попытался повторно поставить лайк посту с id '{}'. Лайк удален.",
-                    user.getId(), postId);
+    public long addLikeToPost(long userId, long postId) {
+        if (!postRepository.existsById(postId)) {
+            throw new NotFoundException("Пост с id '" + postId + "' не найден.");
         }
 
-        long likesCount = postLikeRepository.findPostLikesCount(postId);
-        post.setLikes(likesCount);
-        postRepository.save(post);
-        log.debug("Количество лайков поста с id '{}': '{}'.", postId, likesCount);
+        long likesCount = postLikeRepository.toggleLike(postId, userId);
+        log.debug("Пользователь с id '{}' изменил лайк поста с id '{}'. Количество лайков: '{}'.", userId, postId,
+                likesCount);
         return likesCount;
     }
 
@@ -196,87 +196,164 @@ public class PostServiceImpl implements PostService {
      */
     @Override
     public List<Post> getPostsFeed(Integer page, Integer size) {
-        Pageable pageable = PageRequest.of(page, size,
-                Sort.by("views", "createdOn").descending());
-        List<Post> feed = postRepository.getPostsFeed(pageable);
-        log.debug("Получен фид постов размером ");
-        return feed;
+        return getPostsFeed(null, page, size).content();
+    }
+
+    /**
+     * Получение ленты постов. Если указан курсор, то посты возвращаются начиная с поста, следующего за последним постом
+     * предыдущей страницы, без пропуска строк по смещению: сначала по индексу выбираются идентификаторы постов
+     * страницы, затем сами посты вместе с авторами и файлами. Иначе посты возвращаются постранично.
+     *
+     * @param cursor курсор следующей страницы
+     * @param page   номер страницы, используется если курсор не указан
+     * @param size   количество элементов на странице
+     * @return лента постов и курсор следующей страницы
+     */
+    @Override
+    public CursorPage<Post> getPostsFeed(String cursor, Integer page, Integer size) {
+        final List<Post> feed;
+        if (cursor == null) {
+            feed = postRepository.getPostsFeed(PageRequest.of(page, size, FEED_SORT));
+        } else {
+            final PageCursor pageCursor = PageCursor.decode(cursor, 3);
+            final List<Long> postIds = postRepository.findPostsFeedIdsAfter(pageCursor.getLong(0),
+                    pageCursor.getDateTime(1), pageCursor.getLong(2), size);
+            feed = postIds.isEmpty() ? List.of() : postRepository.findPostsByIds(postIds, FEED_SORT);
+        }
+        log.debug("Получен фид постов размером '{}'.", feed.size());
+        return CursorPage.of(feed, size,
+                post -> PageCursor.encode(post.getViews(), post.getCreatedOn(), post.getId()));
     }
 
     /**
      * Добавление комментария к посту.
      *
-     * @param username   никнейм пользователя, оставляющий комментарий
+     * @param userId     идентификатор пользователя, оставляющего комментарий
      * @param postId     идентификатор поста
      * @param newComment комментарий
      * @return сохраненный комментарий
      */
     @Override
     @Transactional
-    public Comment addCommentToPost(String username, long postId, Comment newComment) {
-        User author = userService.findByUsername(username);
+    public Comment addCommentToPost(long userId, long postId, Comment newComment) {
+        User author = userService.findUserById(userId);
         Post post = getPost(postId);
         newComment.setAuthor(author);
         newComment.setPost(post);
         Comment savedComment = commentRepository.save(newComment);
-        post.addComment(savedComment);
-        postRepository.save(post);
+        postRepository.changeCommentsCount(postId, 1);
         log.debug("Пользователь с id '{} оставил комментарий на пост с id '{}'.", author.getId(), postId);
         return savedComment;
     }
 
+    /**
+     * Получение комментариев к посту. Комментарии возвращаются от старых к новым. Если указан курсор, то комментарии
+     * возвращаются начиная с комментария, следующего за последним комментарием предыдущей страницы.
+     *
+     * @param postId идентификатор поста
+     * @param cursor курсор следующей страницы
+     * @param size   количество элементов на странице
+     * @return список комментариев и курсор следующей страницы
+     */
+    @Override
+    public CursorPage<Comment> getPostComments(long postId, String cursor, Integer size) {
+        if (!postRepository.existsById(postId)) {
+            throw new NotFoundException("Пост с id '" + postId + "' не найден.");
+        }
+        final List<Comment> comments;
+        if (cursor == null) {
+            comments = commentRepository.findPostComments(postId, PageRequest.of(0, size));
+        } else {
+            final long lastCommentId = PageCursor.decode(cursor, 1).getLong(0);
+            comments = commentRepository.findPostCommentsAfter(postId, lastCommentId, PageRequest.of(0, size));
+        }
+        log.debug("Получены комментарии к посту с id '{}'. Количество комментариев: '{}'.", postId, comments.size());
+        return CursorPage.of(comments, size, comment -> PageCursor.encode(comment.getId()));
+    }
+
     /**
      * Обновление комментария.
      *
-     * @param username       никнейм пользователя, обновляющий комментарий
+     * @param userId         идентификатор пользователя, обновляющего комментарий
      * @param commentId      идентификатор комментария
      * @param commentRequest обновленные данные комментария
      * @return обновленный комментарий
      */
     @Override
-    public Comment updateComment(String username, long commentId, CommentRequest commentRequest) {
+    public Comment updateComment(long userId, long commentId, CommentRequest commentRequest) {
         Comment comment = getCommentWithAuthor(commentId);
-        checkIfUserIsCommentAuthor(username, comment);
+        checkIfUserIsCommentAuthor(userId, comment);
         comment.setText(commentRequest.text());
         Comment savedComment = commentRepository.save(comment);
-        log.info("Пользователь с id '{}' отредактировал комментарий с id '{}'.", username, commentId);
+        log.info("Пользователь с id '{}' отредактировал комментарий с id '{}'.", userId, commentId);
         return savedComment;
     }
 
     /**
-     * Удаление комментария по идентификатору.
+     * Удаление комментария по идентификатору. Счетчик комментариев поста уменьшается, только если комментарий
+     * удален этим запросом: при одновременных удалениях одного комментария счетчик уменьшается один раз.
      *
-     * @param username  никнейм пользователя, делающего запрос
+     * @param userId    идентификатор пользователя, делающего запрос
      * @param commentId идентификатор комментария
      */
     @Override
-    public void deleteComment(String username, long commentId) {
-        userService.findByUsername(username);
+    @Transactional
+    public void deleteComment(long userId, long commentId) {
         Comment comment = getCommentWithAuthor(commentId);
-        checkIfUserIsCommentAuthor(username, comment);
-        commentRepository.deleteById(commentId);
-        log.info("Пользователь с id '{}' удалил комментарий с id '{}'.", username, commentId);
+        checkIfUserIsCommentAuthor(userId, comment);
+        if (commentRepository.deleteCommentById(commentId) == 0) {
+            log.debug("Комментарий с id '{}' уже удален.", commentId);
+            return;
+        }
+        postRepository.changeCommentsCount(comment.getPost().getId(), -1);
+        log.info("Пользователь с id '{}' удалил комментарий с id '{}'.", userId, commentId);
     }
 
     /**
      * Получение рекомендаций. В качестве списка рекомендаций возвращается список постов пользователей, на которых не
      * подписан пользователь. Собственные посты пользователя также не отображаются в рекомендациях.
      *
-     * @param username никнейм пользователя, для которого запрашиваются рекомендации
-     * @param page     номер страницы
-     * @param size     количество элементов на странице
-     * @param sort     тип сортировки списка
+     * @param userId идентификатор пользователя, для которого запрашиваются рекомендации
+     * @param page   номер страницы
+     * @param size   количество элементов на странице
+     * @param sort   тип сортировки списка
      * @return список рекомендаций
      */
     @Override
-    public List<Post> getRecommendations(String username, Integer page, Integer size, PostSort sort) {
-        User user = userService.findByUsername(username);
-        List<Long> friendsIds = new ArrayList<>(userService.getFriendsList(user.getId()).stream().map(User::getId).toList());
-        friendsIds.add(user.getId());
-        Pageable pageable = PageRequest.of(page, size, Sort.by(sort.name().toLowerCase()).descending());
-        List<Post> recommendations = postRepository.findRecommendations(friendsIds, pageable);
-        log.debug("Получен список рекомендаций для пользователя с id '{}' длиной '{}'.", user.getId(), recommendations.size());
-        return recommendations;
+    public List<Post> getRecommendations(long userId, Integer page, Integer size, PostSort sort) {
+        return getRecommendations(userId, null, page, size, sort).content();
+    }
+
+    /**
+     * Получение рекомендаций. Посты друзей и подписок пользователя исключаются в запросе к базе данных через
+     * подзапрос NOT EXISTS к таблице friendship. Если указан курсор, то посты возвращаются начиная с поста,
+     * следующего за последним постом предыдущей страницы. Иначе посты возвращаются постранично.
+     *
+     * @param userId идентификатор пользователя, для которого запрашиваются рекомендации
+     * @param cursor курсор следующей страницы
+     * @param page   номер страницы, используется если курсор не указан
+     * @param size   количество элементов на странице
+     * @param sort   тип сортировки списка
+     * @return список рекомендаций и курсор следующей страницы
+     */
+    @Override
+    public CursorPage<Post> getRecommendations(long userId, String cursor, Integer page, Integer size,
+                                               PostSort sort) {
+        final String sortField = sort.name().toLowerCase();
+        final Sort recommendationsSort = Sort.by(sortField, "id").descending();
+        final Specification<Post> spec = Specification.where(PostSpecification.notFromUserAndHisFriends(userId))
+                .and(PostSpecification.fetchAuthorAndFile());
+        Specification<Post> keyset = null;
+        if (cursor != null) {
+            final PageCursor pageCursor = PageCursor.decode(cursor, 2);
+            keyset = KeysetSpecification.after(sortField, pageCursor.getLong(0), pageCursor.getLong(1),
+                    Sort.Direction.DESC);
+        }
+        List<Post> recommendations = KeysetPagination.findContent(postRepository, spec, keyset, page, size,
+                recommendationsSort);
+        log.debug("Получен список рекомендаций для пользователя с id '{}' длиной '{}'.", userId, recommendations.size());
+        return CursorPage.of(recommendations, size, post -> PageCursor.encode(
+                sort == PostSort.LIKES ? post.getLikes() : post.getViews(), post.getId()));
     }
 
     /**
@@ -289,15 +366,60 @@ public class PostServiceImpl implements PostService {
      */
     @Override
     public List<Post> searchPosts(PostSearchFilter searchFilter, Integer page, Integer size) {
-        final Pageable pageable = PageRequest.of(page, size);
+        return searchPosts(searchFilter, null, page, size).content();
+    }
+
+    /**
+     * Поиск постов по фильтру. При поиске по тексту с включенным полнотекстовым поиском посты сортируются по
+     * релевантности, иначе от новых к старым. Если указан курсор, то посты возвращаются начиная с поста, следующего за
+     * последним постом предыдущей страницы. Иначе посты возвращаются постранично.
+     *
+     * @param searchFilter фильтр поиска
+     * @param cursor       курсор следующей страницы
+     * @param page         номер страницы, используется если курсор не указан
+     * @param size         количество элементов на странице
+     * @return список найденных постов и курсор следующей страницы
+     */
+    @Override
+    public CursorPage<Post> searchPosts(PostSearchFilter searchFilter, String cursor, Integer page, Integer size) {
         final List<Specification<Post>> specifications = postSearchFilterToSpecifications(searchFilter);
-        final Specification<Post> resultSpec = specifications.stream().reduce(Specification::and).orElse(null);
-        return postRepository.findAll(resultSpec, pageable).getContent();
+        final Specification<Post> resultSpec = specifications.stream().reduce(Specification::and)
+                .orElse(Specification.where(null))
+                .and(PostSpecification.fetchAuthorAndFile());
+        final String title = searchFilter.title();
+        if (fullTextSearchEnabled && title != null) {
+            return postRepository.findAllRanked(Post.class, resultSpec, cursor, page, size, title, "title");
+        }
+        final Specification<Post> keyset = cursor == null ? null
+                : KeysetSpecification.afterId(PageCursor.decode(cursor, 1).getLong(0), Sort.Direction.DESC);
+        final List<Post> posts = KeysetPagination.findContent(postRepository, resultSpec, keyset, page, size,
+                SEARCH_SORT);
+        return CursorPage.of(posts, size, post -> PageCursor.encode(post.getId()));
+    }
+
+    /**
+     * Получение идентификаторов постов, которым пользователь поставил лайк. Проверка выполняется одним запросом для
+     * всех переданных постов.
+     *
+     * @param userId идентификатор пользователя
+     * @param posts  список постов
+     * @return идентификаторы постов, которым пользователь поставил лайк
+     */
+    @Override
+    public Set<Long> findLikedPostIds(long userId, List<Post> posts) {
+        if (posts.isEmpty()) {
+            return Set.of();
+        }
+        final List<Long> postIds = posts.stream().map(Post::getId).toList();
+        final Set<Long> likedPostIds = new HashSet<>(postLikeRepository.findLikedPostIds(userId, postIds));
+        log.debug("Пользователь с id '{}' поставил лайк '{}' постам из '{}'.", userId, likedPostIds.size(),
+                postIds.size());
+        return likedPostIds;
     }
 
     private List<Specification<Post>> postSearchFilterToSpecifications(PostSearchFilter searchFilter) {
         final List<Specification<Post>> resultSpecification = new ArrayList<>();
-        resultSpecification.add(PostSpecification.textInPostTitle(searchFilter.title()));
+        resultSpecification.add(PostSpecification.textInPostTitle(searchFilter.title(), fullTextSearchEnabled));
         return resultSpecification.stream().filter(Objects::nonNull).collect(Collectors.toList());
     }
 
@@ -306,14 +428,9 @@ public class PostServiceImpl implements PostService {
                 .orElseThrow(() -> new NotFoundException("Пост с id '" + postId + "' не найден."));
     }
 
-    private Post getPostWithComments(long postId) {
-        return postRepository.findPostById(postId)
-                .orElseThrow(() -> new NotFoundException("Пост с id '" + postId + "' не найден."));
-    }
-
-    private void checkIfUserIsCommentAuthor(String username, Comment comment) {
-        if (!comment.getAuthor().getUsername().equals(username)) {
-            throw new NotAuthorizedException("Пользователь с именем '" + username
+    private void checkIfUserIsCommentAuthor(long userId, Comment comment) {
+        if (comment.getAuthor().getId() != userId) {
+            throw new NotAuthorizedException("Пользователь с id '" + userId
                     + "' не имеет прав на редактирование комментария с id '" + comment.getId() + "'.");
         }
     }
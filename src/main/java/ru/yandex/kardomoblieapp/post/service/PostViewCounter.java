@@ -0,0 +1,129 @@
+package ru.yandex.kardomoblieapp.post.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Счетчик просмотров постов с отложенной записью. Просмотры накапливаются в памяти и записываются в базу данных
+ * одним пакетным обновлением по расписанию или при достижении порогового количества непереданных просмотров.
+ */
+@Component
+@Slf4j
+public class PostViewCounter {
+
+    private static final String UPDATE_VIEWS_SQL = "UPDATE posts SET views = views + ? WHERE post_id = ?";
+
+    private final Map<Long, Long> pendingViews = new ConcurrentHashMap<>();
+
+    private final AtomicLong pendingTotal = new AtomicLong();
+
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TaskScheduler taskScheduler;
+
+    private final long flushThreshold;
+
+    public PostViewCounter(JdbcTemplate jdbcTemplate,
+                           TaskScheduler taskScheduler,
+                           @Value("${post.views.flush-threshold:1000}") long flushThreshold) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.taskScheduler = taskScheduler;
+        this.flushThreshold = flushThreshold;
+    }
+
+    /**
+     * Добавление просмотра посту. При достижении порогового количества непереданных просмотров запись в базу данных
+     * планируется немедленно.
+     *
+     * @param postId идентификатор поста
+     */
+    public void addView(long postId) {
+        pendingViews.merge(postId, 1L, Long::sum);
+        if (pendingTotal.incrementAndGet() >= flushThreshold && flushScheduled.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    /**
+     * Получение количества просмотров поста, еще не записанных в базу данных.
+     *
+     * @param postId идентификатор поста
+     * @return количество непереданных просмотров
+     */
+    public long getPendingViews(long postId) {
+        return pendingViews.getOrDefault(postId, 0L);
+    }
+
+    /**
+     * Получение количества постов с непереданными просмотрами.
+     *
+     * @return количество постов
+     */
+    int getPendingPostsCount() {
+        return pendingViews.size();
+    }
+
+    /**
+     * Запись накопленных просмотров в базу данных. Запись поста извлекается из счетчика атомарно вместе с
+     * количеством просмотров, поэтому параллельно добавленный просмотр попадает либо в извлеченное значение, либо в
+     * новую запись, которая будет передана при следующей записи. Размер счетчика ограничен количеством постов,
+     * просмотренных с момента предыдущей записи.
+     */
+    @Scheduled(fixedDelayString = "${post.views.flush-interval:5000}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            flushScheduled.set(false);
+            final List<Object[]> batch = new ArrayList<>();
+            for (Long postId : pendingViews.keySet()) {
+                final Long views = pendingViews.remove(postId);
+                if (views != null) {
+                    pendingTotal.addAndGet(-views);
+                    batch.add(new Object[]{views, postId});
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_VIEWS_SQL, batch);
+                log.debug("Записаны просмотры для '{}' постов.", batch.size());
+            } catch (DataAccessException e) {
+                log.error("Ошибка при записи просмотров постов: {}", e.getLocalizedMessage());
+                batch.forEach(views -> returnViews((Long) views[1], (Long) views[0]));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void returnViews(long postId, long views) {
+        pendingViews.merge(postId, views, Long::sum);
+        pendingTotal.addAndGet(views);
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("Запись накопленных просмотров постов перед остановкой приложения.");
+        flush();
+    }
+}
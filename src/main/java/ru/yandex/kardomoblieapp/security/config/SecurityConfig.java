@@ -6,6 +6,7 @@ import com.nimbusds.jose.crypto.DirectEncrypter;
 import com.nimbusds.jose.crypto.MACSigner;
 import com.nimbusds.jose.crypto.MACVerifier;
 import com.nimbusds.jose.jwk.OctetSequenceKey;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -18,13 +19,17 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import ru.yandex.kardomoblieapp.security.jwt.config.JwtAuthenticationConfigurer;
-import ru.yandex.kardomoblieapp.security.jwt.repository.DeactivatedTokenRepository;
 import ru.yandex.kardomoblieapp.security.jwt.serialization.AccessTokenJwsStringDeserializer;
 import ru.yandex.kardomoblieapp.security.jwt.serialization.AccessTokenJwsStringSerializer;
+import ru.yandex.kardomoblieapp.security.jwt.serialization.CachingTokenDeserializer;
 import ru.yandex.kardomoblieapp.security.jwt.serialization.RefreshTokenJweStringDeserializer;
 import ru.yandex.kardomoblieapp.security.jwt.serialization.RefreshTokenJweStringSerializer;
+import ru.yandex.kardomoblieapp.security.jwt.service.DeactivatedTokenCache;
+import ru.yandex.kardomoblieapp.security.ratelimit.RateLimitFilter;
+import ru.yandex.kardomoblieapp.security.ratelimit.RateLimitProperties;
 
 import java.text.ParseException;
+import java.time.Duration;
 
 import static ru.yandex.kardomoblieapp.user.model.UserRole.ADMIN;
 import static ru.yandex.kardomoblieapp.user.model.UserRole.USER;
@@ -37,7 +42,11 @@ public class SecurityConfig {
     public JwtAuthenticationConfigurer jwtAuthenticationConfigurer(
             @Value("${jwt.access-token-key}") String accessTokenKey,
             @Value("${jwt.refresh-token-key}") String refreshTokenKey,
-            DeactivatedTokenRepository deactivatedTokenRepository) throws ParseException, JOSEException {
+            @Value("${jwt.access-token-cache.max-size:10000}") int accessTokenCacheMaxSize,
+            @Value("${jwt.access-token-cache.sweep-interval:PT10S}") Duration accessTokenCacheSweepInterval,
+            DeactivatedTokenCache deactivatedTokenCache,
+            RateLimitProperties rateLimitProperties,
+            MeterRegistry meterRegistry) throws ParseException, JOSEException {
 
         return JwtAuthenticationConfigurer.builder()
                 .accessTokenStringSerializer(new AccessTokenJwsStringSerializer(
@@ -46,13 +55,14 @@ public class SecurityConfig {
                 .refreshTokenStringSerializer(new RefreshTokenJweStringSerializer(
                         new DirectEncrypter(OctetSequenceKey.parse(refreshTokenKey))
                 ))
-                .accessTokenStringDeserializer(new AccessTokenJwsStringDeserializer(
+                .accessTokenStringDeserializer(new CachingTokenDeserializer(new AccessTokenJwsStringDeserializer(
                         new MACVerifier(OctetSequenceKey.parse(accessTokenKey))
-                ))
+                ), accessTokenCacheMaxSize, accessTokenCacheSweepInterval))
                 .refreshTokenStringDeserializer(new RefreshTokenJweStringDeserializer(
                         new DirectDecrypter(OctetSequenceKey.parse(refreshTokenKey))
                 ))
-                .deactivatedTokenRepository(deactivatedTokenRepository)
+                .deactivatedTokenCache(deactivatedTokenCache)
+                .rateLimitFilter(new RateLimitFilter(rateLimitProperties, meterRegistry))
                 .build();
     }
 
@@ -72,6 +82,8 @@ public class SecurityConfig {
                         .requestMatchers("/users/{userId}", HttpMethod.DELETE.name()).hasAnyRole(ADMIN.name(), USER.name())
                         .requestMatchers("/users/{userId}", HttpMethod.GET.name()).hasAnyRole(ADMIN.name(), USER.name())
                         .requestMatchers("/users/{userId}/friends", HttpMethod.GET.name()).hasAnyRole(ADMIN.name(), USER.name())
+                        .requestMatchers("/users/{userId}/followers", HttpMethod.GET.name()).hasAnyRole(ADMIN.name(), USER.name())
+                        .requestMatchers("/users/{userId}/following", HttpMethod.GET.name()).hasAnyRole(ADMIN.name(), USER.name())
                         .requestMatchers("/users/{userId}/avatar", HttpMethod.DELETE.name()).hasAnyRole(ADMIN.name(), USER.name())
                         .requestMatchers("/users/**").hasRole(USER.name())
                         .requestMatchers("/posts/{postId}", HttpMethod.DELETE.name()).hasAnyRole(ADMIN.name(), USER.name())
@@ -82,6 +94,7 @@ public class SecurityConfig {
                         .requestMatchers("/events/**").hasRole(USER.name())
                         .requestMatchers("/events/{participationId}", HttpMethod.DELETE.name()).hasAnyRole(ADMIN.name(), USER.name())
                         .requestMatchers("/participations/**").hasRole(USER.name())
+                        .requestMatchers("/files/**", HttpMethod.GET.name()).hasAnyRole(ADMIN.name(), USER.name())
                         .requestMatchers("/admin/**").hasRole(ADMIN.name())
                         .requestMatchers("/actuator/**").hasRole(ADMIN.name())
                         .anyRequest().authenticated())
@@ -92,7 +105,9 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password-encoder.threads:4}") int threads,
+                                           @Value("${security.password-encoder.queue-capacity:200}") int queueCapacity,
+                                           @Value("${security.password-encoder.timeout:PT10S}") Duration timeout) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, timeout);
     }
 }
@@ -12,9 +12,10 @@ import org.springframework.security.web.authentication.AuthenticationFilter;
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationProvider;
 import org.springframework.security.web.csrf.CsrfFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
-import ru.yandex.kardomoblieapp.security.jwt.repository.DeactivatedTokenRepository;
 import ru.yandex.kardomoblieapp.security.jwt.serialization.TokenDeserializer;
 import ru.yandex.kardomoblieapp.security.jwt.serialization.TokenSerializer;
+import ru.yandex.kardomoblieapp.security.jwt.service.DeactivatedTokenCache;
+import ru.yandex.kardomoblieapp.security.ratelimit.RateLimitFilter;
 import ru.yandex.kardomoblieapp.security.userservice.TokenAuthenticationUserDetailsService;
 
 import static ru.yandex.kardomoblieapp.security.SecurityUtils.LOGIN_PATH;
@@ -30,7 +31,9 @@ public class JwtAuthenticationConfigurer extends AbstractHttpConfigurer<JwtAuthe
 
     private TokenDeserializer<String> accessTokenStringDeserializer;
 
-    private DeactivatedTokenRepository deactivatedTokenRepository;
+    private DeactivatedTokenCache deactivatedTokenCache;
+
+    private RateLimitFilter rateLimitFilter;
 
     @Override
     public void init(HttpSecurity builder) throws Exception {
@@ -55,17 +58,22 @@ public class JwtAuthenticationConfigurer extends AbstractHttpConfigurer<JwtAuthe
 
         var authenticationProvider = new PreAuthenticatedAuthenticationProvider();
         authenticationProvider.setPreAuthenticatedUserDetailsService(
-                new TokenAuthenticationUserDetailsService(this.deactivatedTokenRepository));
+                new TokenAuthenticationUserDetailsService(this.deactivatedTokenCache));
 
         var refreshTokenFilter = new RefreshTokenFilter();
         refreshTokenFilter.setAccessTokenStringSerializer(this.accessTokenStringSerializer);
 
-        var jwtLogoutFilter = new JwtLogoutFilter(this.deactivatedTokenRepository);
+        var jwtLogoutFilter = new JwtLogoutFilter(this.deactivatedTokenCache);
 
         builder.addFilterAfter(requestJwtTokenFilter, ExceptionTranslationFilter.class);
         builder.addFilterAfter(refreshTokenFilter, ExceptionTranslationFilter.class);
         builder.addFilterAfter(jwtLogoutFilter, ExceptionTranslationFilter.class);
         builder.addFilterBefore(jwtAuthenticationFilter, CsrfFilter.class);
+        if (this.rateLimitFilter != null) {
+            // Сразу после JWT-аутентификации: пользователь из токена уже известен, а проверка пароля при входе
+            // через httpBasic еще не выполнялась.
+            builder.addFilterBefore(this.rateLimitFilter, CsrfFilter.class);
+        }
         builder.authenticationProvider(authenticationProvider);
     }
 }
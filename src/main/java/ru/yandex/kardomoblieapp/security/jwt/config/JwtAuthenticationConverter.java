@@ -1,13 +1,20 @@
 package ru.yandex.kardomoblieapp.security.jwt.config;
 
+import com.nimbusds.jose.Header;
+import com.nimbusds.jose.JOSEObject;
+import com.nimbusds.jose.JWEHeader;
+import com.nimbusds.jose.JWSHeader;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.AuthenticationConverter;
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import ru.yandex.kardomoblieapp.security.jwt.model.Token;
 import ru.yandex.kardomoblieapp.security.jwt.serialization.TokenDeserializer;
 
+import java.text.ParseException;
+
 import static ru.yandex.kardomoblieapp.security.SecurityUtils.BEARER_AUTH;
 
 @RequiredArgsConstructor
@@ -22,17 +29,30 @@ public class JwtAuthenticationConverter implements AuthenticationConverter {
         var authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
         if (authorization != null && authorization.startsWith(BEARER_AUTH)) {
             var token = authorization.substring(BEARER_AUTH.length());
-            var accessToken = this.accessTokenJwsStringDeserializer.convert(token);
-            if (accessToken != null) {
-                return new PreAuthenticatedAuthenticationToken(accessToken, token);
+            var header = parseHeader(token);
+            Token principal = null;
+            if (header instanceof JWSHeader) {
+                principal = this.accessTokenJwsStringDeserializer.convert(token);
+            } else if (header instanceof JWEHeader) {
+                principal = this.refreshTokenStringDeserializer.convert(token);
             }
-
-            var refreshToken = this.refreshTokenStringDeserializer.convert(token);
-            if (refreshToken != null) {
-                return new PreAuthenticatedAuthenticationToken(refreshToken, token);
+            if (principal != null) {
+                return new PreAuthenticatedAuthenticationToken(principal, token);
             }
         }
 
         return null;
     }
+
+    /**
+     * Разбор заголовка JOSE без проверки подписи. Access token подписан (JWS), refresh token зашифрован (JWE), поэтому
+     * по типу заголовка сразу выбирается нужный десериализатор.
+     */
+    private static Header parseHeader(String token) {
+        try {
+            return Header.parse(JOSEObject.split(token)[0]);
+        } catch (ParseException e) {
+            return null;
+        }
+    }
 }
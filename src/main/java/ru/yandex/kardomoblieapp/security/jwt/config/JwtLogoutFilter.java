@@ -12,8 +12,7 @@ import org.springframework.security.web.authentication.preauth.PreAuthenticatedA
 import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 import org.springframework.security.web.context.SecurityContextRepository;
 import org.springframework.web.filter.OncePerRequestFilter;
-import ru.yandex.kardomoblieapp.security.jwt.model.DeactivatedToken;
-import ru.yandex.kardomoblieapp.security.jwt.repository.DeactivatedTokenRepository;
+import ru.yandex.kardomoblieapp.security.jwt.service.DeactivatedTokenCache;
 import ru.yandex.kardomoblieapp.security.userservice.TokenUser;
 
 import java.io.IOException;
@@ -22,7 +21,7 @@ import java.io.IOException;
 @Setter
 public class JwtLogoutFilter extends OncePerRequestFilter {
 
-    private final DeactivatedTokenRepository deactivatedTokenRepository;
+    private final DeactivatedTokenCache deactivatedTokenCache;
 
     private SecurityContextRepository securityContextRepository = new RequestAttributeSecurityContextRepository();
 
@@ -33,8 +32,7 @@ public class JwtLogoutFilter extends OncePerRequestFilter {
             if (context != null && context.getAuthentication() instanceof PreAuthenticatedAuthenticationToken &&
                     context.getAuthentication().getPrincipal() instanceof TokenUser user &&
                     context.getAuthentication().getAuthorities().contains(new SimpleGrantedAuthority("JWT_LOGOUT"))) {
-                DeactivatedToken deactivatedToken = new DeactivatedToken(user.getToken().getId(), user.getToken().getExpiresAt());
-                this.deactivatedTokenRepository.save(deactivatedToken);
+                this.deactivatedTokenCache.deactivate(user.getToken());
 
                 response.setStatus(HttpServletResponse.SC_NO_CONTENT);
                 return;
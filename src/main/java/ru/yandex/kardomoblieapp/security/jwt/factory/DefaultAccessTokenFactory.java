@@ -20,7 +20,7 @@ public class DefaultAccessTokenFactory implements TokenFactory<RefreshToken, Acc
                 .map(authority -> authority.substring("GRANT_".length()))
                 .toList();
 
-        return new AccessToken(refreshToken.getId(), refreshToken.getSubject(),
-                authorities, now, now.plus(this.tokenTtl));
+        return new AccessToken(refreshToken.getId(), refreshToken.getSubject(), refreshToken.getUserId(),
+                refreshToken.getRole(), authorities, now, now.plus(this.tokenTtl));
     }
 }
@@ -4,6 +4,7 @@ import lombok.Setter;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import ru.yandex.kardomoblieapp.security.jwt.model.RefreshToken;
+import ru.yandex.kardomoblieapp.security.userservice.CustomUserDetails;
 
 import java.time.Duration;
 import java.time.Instant;
@@ -26,6 +27,14 @@ public class DefaultRefreshTokenFactory implements TokenFactory<Authentication,
                 .map(authority -> "GRANT_" + authority)
                 .forEach(authorities::add);
 
-        return new RefreshToken(UUID.randomUUID(), authentication.getName(), authorities, now, now.plus(this.tokenTtl));
+        Long userId = null;
+        String role = null;
+        if (authentication.getPrincipal() instanceof CustomUserDetails userDetails) {
+            userId = userDetails.getUserId();
+            role = userDetails.getRole().name();
+        }
+
+        return new RefreshToken(UUID.randomUUID(), authentication.getName(), userId, role, authorities, now,
+                now.plus(this.tokenTtl));
     }
 }
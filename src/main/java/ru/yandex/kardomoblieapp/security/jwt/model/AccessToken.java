@@ -5,7 +5,8 @@ import java.util.List;
 import java.util.UUID;
 
 public class AccessToken extends Token {
-    public AccessToken(UUID id, String subject, List<String> authorities, Instant createdAt, Instant expiresAt) {
-        super(id, subject, authorities, createdAt, expiresAt);
+    public AccessToken(UUID id, String subject, Long userId, String role, List<String> authorities, Instant createdAt,
+                       Instant expiresAt) {
+        super(id, subject, userId, role, authorities, createdAt, expiresAt);
     }
 }
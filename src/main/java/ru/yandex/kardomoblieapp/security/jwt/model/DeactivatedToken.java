@@ -23,4 +23,11 @@ public class DeactivatedToken {
 
     @Column(name = "keep_until")
     private Instant keepUntil;
+
+    @Column(name = "deactivated_at", insertable = false, updatable = false)
+    private Instant deactivatedAt;
+
+    public DeactivatedToken(UUID id, Instant keepUntil) {
+        this(id, keepUntil, null);
+    }
 }
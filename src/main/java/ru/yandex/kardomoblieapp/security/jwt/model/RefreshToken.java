@@ -5,7 +5,8 @@ import java.util.List;
 import java.util.UUID;
 
 public class RefreshToken extends Token {
-    public RefreshToken(UUID id, String subject, List<String> authorities, Instant createdAt, Instant expiresAt) {
-        super(id, subject, authorities, createdAt, expiresAt);
+    public RefreshToken(UUID id, String subject, Long userId, String role, List<String> authorities, Instant createdAt,
+                        Instant expiresAt) {
+        super(id, subject, userId, role, authorities, createdAt, expiresAt);
     }
 }
@@ -15,6 +15,10 @@ public abstract class Token {
 
     private String subject;
 
+    private Long userId;
+
+    private String role;
+
     private List<String> authorities;
 
     private Instant createdAt;
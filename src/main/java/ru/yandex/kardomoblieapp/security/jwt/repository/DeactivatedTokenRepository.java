@@ -1,9 +1,22 @@
 package ru.yandex.kardomoblieapp.security.jwt.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.yandex.kardomoblieapp.security.jwt.model.DeactivatedToken;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.UUID;
 
 public interface DeactivatedTokenRepository extends JpaRepository<DeactivatedToken, UUID> {
+
+    @Query("SELECT t FROM DeactivatedToken t WHERE t.keepUntil > ?1")
+    List<DeactivatedToken> findActive(Instant now);
+
+    @Query("SELECT t FROM DeactivatedToken t WHERE t.deactivatedAt > ?1 AND t.keepUntil > ?2")
+    List<DeactivatedToken> findActiveDeactivatedAfter(Instant deactivatedAt, Instant now);
+
+    @Query("SELECT t.id FROM DeactivatedToken t WHERE t.keepUntil <= ?1 ORDER BY t.keepUntil")
+    List<UUID> findExpiredIds(Instant now, Pageable pageable);
 }
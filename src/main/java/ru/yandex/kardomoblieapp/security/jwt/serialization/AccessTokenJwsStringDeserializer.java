@@ -23,6 +23,7 @@ public class AccessTokenJwsStringDeserializer implements TokenDeserializer<Strin
             if (signedJWT.verify(jwsVerifier)) {
                 var jwtClaimsSet = signedJWT.getJWTClaimsSet();
                 return new AccessToken(UUID.fromString(jwtClaimsSet.getJWTID()), jwtClaimsSet.getSubject(),
+                        jwtClaimsSet.getLongClaim("user_id"), jwtClaimsSet.getStringClaim("role"),
                         jwtClaimsSet.getStringListClaim("authorities"),
                         jwtClaimsSet.getIssueTime().toInstant(),
                         jwtClaimsSet.getExpirationTime().toInstant());
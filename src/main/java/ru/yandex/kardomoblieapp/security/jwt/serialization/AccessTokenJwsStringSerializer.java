@@ -32,6 +32,8 @@ public class AccessTokenJwsStringSerializer implements TokenSerializer<String> {
         var claimsSet = new JWTClaimsSet.Builder()
                 .jwtID(token.getId().toString())
                 .subject(token.getSubject())
+                .claim("user_id", token.getUserId())
+                .claim("role", token.getRole())
                 .issueTime(Date.from(token.getCreatedAt()))
                 .expirationTime(Date.from(token.getExpiresAt()))
                 .claim("authorities", token.getAuthorities())
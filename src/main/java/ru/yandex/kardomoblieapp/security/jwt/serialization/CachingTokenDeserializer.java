@@ -0,0 +1,67 @@
+package ru.yandex.kardomoblieapp.security.jwt.serialization;
+
+import lombok.RequiredArgsConstructor;
+import ru.yandex.kardomoblieapp.security.jwt.model.Token;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш проверенных токенов поверх другого десериализатора. Клиент отправляет один и тот же токен много раз за время
+ * его жизни, поэтому разбор и проверка подписи выполняются один раз, а результат хранится до истечения срока
+ * действия токена. Проверка отзыва токена выполняется отдельно и кэшем не затрагивается. Размер кэша ограничен
+ * maxSize: при заполнении из него удаляются истекшие токены, но не чаще одного раза за sweepInterval, а если места
+ * нет, новый токен не кэшируется.
+ */
+@RequiredArgsConstructor
+public class CachingTokenDeserializer implements TokenDeserializer<String> {
+
+    private final TokenDeserializer<String> delegate;
+
+    private final int maxSize;
+
+    private final Duration sweepInterval;
+
+    private final Map<String, Token> tokens = new ConcurrentHashMap<>();
+
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    @Override
+    public Token convert(String string) {
+        final Instant now = Instant.now();
+        final Token cached = tokens.get(string);
+        if (cached != null) {
+            if (cached.getExpiresAt().isAfter(now)) {
+                return cached;
+            }
+            tokens.remove(string, cached);
+        }
+
+        final Token token = delegate.convert(string);
+        if (token != null && token.getExpiresAt().isAfter(now)) {
+            if (tokens.size() >= maxSize) {
+                sweep(now);
+            }
+            if (tokens.size() < maxSize) {
+                tokens.put(string, token);
+            }
+        }
+        return token;
+    }
+
+    /**
+     * Удаление истекших токенов. Обход всех токенов выполняется не чаще одного раза за интервал: право на обход
+     * получает поток, успешно сдвинувший время следующего обхода.
+     */
+    private void sweep(Instant now) {
+        final long sweepAt = nextSweepAt.get();
+        final long nowMillis = now.toEpochMilli();
+        if (nowMillis < sweepAt || !nextSweepAt.compareAndSet(sweepAt, nowMillis + sweepInterval.toMillis())) {
+            return;
+        }
+        tokens.values().removeIf(value -> !value.getExpiresAt().isAfter(now));
+    }
+}
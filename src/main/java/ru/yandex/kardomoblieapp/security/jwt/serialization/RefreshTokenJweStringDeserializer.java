@@ -23,6 +23,7 @@ public class RefreshTokenJweStringDeserializer implements TokenDeserializer<Stri
             encryptedJWT.decrypt(this.jweDecrypter);
             var jwtClaimsSet = encryptedJWT.getJWTClaimsSet();
             return new RefreshToken(UUID.fromString(jwtClaimsSet.getJWTID()), jwtClaimsSet.getSubject(),
+                    jwtClaimsSet.getLongClaim("user_id"), jwtClaimsSet.getStringClaim("role"),
                     jwtClaimsSet.getStringListClaim("authorities"),
                     jwtClaimsSet.getIssueTime().toInstant(),
                     jwtClaimsSet.getExpirationTime().toInstant());
@@ -35,6 +35,8 @@ public class RefreshTokenJweStringSerializer implements TokenSerializer<String>
         var claimsSet = new JWTClaimsSet.Builder()
                 .jwtID(token.getId().toString())
                 .subject(token.getSubject())
+                .claim("user_id", token.getUserId())
+                .claim("role", token.getRole())
                 .issueTime(Date.from(token.getCreatedAt()))
                 .expirationTime(Date.from(token.getExpiresAt()))
                 .claim("authorities", token.getAuthorities())
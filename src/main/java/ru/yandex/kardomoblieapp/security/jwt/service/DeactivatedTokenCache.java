@@ -0,0 +1,87 @@
+package ru.yandex.kardomoblieapp.security.jwt.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.kardomoblieapp.security.jwt.model.DeactivatedToken;
+import ru.yandex.kardomoblieapp.security.jwt.model.Token;
+import ru.yandex.kardomoblieapp.security.jwt.repository.DeactivatedTokenRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Локальная копия списка отозванных токенов. Проверка токена при каждом запросе выполняется по памяти, без обращения
+ * к БД. Список загружается при старте, пополняется при выходе пользователя через этот экземпляр приложения и
+ * периодически догружается из БД, чтобы учесть токены, отозванные другими экземплярами. Токены, срок хранения которых
+ * истек, удаляются из памяти.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DeactivatedTokenCache {
+
+    /**
+     * Запас при догрузке: строка с более ранним deactivated_at может быть зафиксирована позже уже прочитанных.
+     */
+    private static final Duration REFRESH_OVERLAP = Duration.ofMinutes(1);
+
+    private final DeactivatedTokenRepository deactivatedTokenRepository;
+
+    private final Map<UUID, Instant> deactivatedTokens = new ConcurrentHashMap<>();
+
+    private volatile Instant lastDeactivatedAt = Instant.EPOCH;
+
+    @PostConstruct
+    void load() {
+        deactivatedTokenRepository.findActive(Instant.now()).forEach(this::remember);
+        log.info("Загружено отозванных токенов: '{}'.", deactivatedTokens.size());
+    }
+
+    /**
+     * Проверка, отозван ли токен.
+     *
+     * @param tokenId идентификатор токена
+     * @return true, если токен отозван
+     */
+    public boolean isDeactivated(UUID tokenId) {
+        return deactivatedTokens.containsKey(tokenId);
+    }
+
+    /**
+     * Отзыв токена. Токен хранится до окончания срока его действия.
+     *
+     * @param token токен
+     */
+    public void deactivate(Token token) {
+        deactivatedTokenRepository.save(new DeactivatedToken(token.getId(), token.getExpiresAt()));
+        deactivatedTokens.put(token.getId(), token.getExpiresAt());
+        log.debug("Токен с id '{}' отозван.", token.getId());
+    }
+
+    /**
+     * Догрузка токенов, отозванных с момента предыдущей загрузки, и удаление истекших токенов из памяти.
+     */
+    @Scheduled(fixedDelayString = "${jwt.deactivated-tokens.refresh-interval:10000}")
+    public void refresh() {
+        final Instant now = Instant.now();
+        deactivatedTokens.values().removeIf(keepUntil -> !keepUntil.isAfter(now));
+        final List<DeactivatedToken> tokens =
+                deactivatedTokenRepository.findActiveDeactivatedAfter(lastDeactivatedAt.minus(REFRESH_OVERLAP), now);
+        tokens.forEach(this::remember);
+        log.trace("Догружено отозванных токенов: '{}'.", tokens.size());
+    }
+
+    private void remember(DeactivatedToken token) {
+        deactivatedTokens.put(token.getId(), token.getKeepUntil());
+        if (token.getDeactivatedAt() != null && token.getDeactivatedAt().isAfter(lastDeactivatedAt)) {
+            lastDeactivatedAt = token.getDeactivatedAt();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package ru.yandex.kardomoblieapp.security.jwt.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.yandex.kardomoblieapp.security.jwt.repository.DeactivatedTokenRepository;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Удаление отозванных токенов, срок действия которых истек. Такие токены уже не пройдут проверку подписи, поэтому
+ * хранить их незачем. Удаление выполняется пачками по batch-size строк, каждая пачка в отдельной транзакции, чтобы
+ * не держать долгих блокировок; за один запуск удаляется не более max-batches пачек. Количество удаленных строк и
+ * размер таблицы публикуются в метриках jwt.deactivated-tokens.*.
+ */
+@Component
+@Slf4j
+public class DeactivatedTokenPurger {
+
+    private final DeactivatedTokenRepository deactivatedTokenRepository;
+
+    private final int batchSize;
+
+    private final int maxBatches;
+
+    private final AtomicLong tableSize = new AtomicLong();
+
+    private final Counter purged;
+
+    private final Timer duration;
+
+    public DeactivatedTokenPurger(DeactivatedTokenRepository deactivatedTokenRepository,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${jwt.deactivated-tokens.purge.batch-size:1000}") int batchSize,
+                                  @Value("${jwt.deactivated-tokens.purge.max-batches:100}") int maxBatches) {
+        this.deactivatedTokenRepository = deactivatedTokenRepository;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        purged = meterRegistry.counter("jwt.deactivated-tokens.purged");
+        duration = meterRegistry.timer("jwt.deactivated-tokens.purge.duration");
+        Gauge.builder("jwt.deactivated-tokens.size", tableSize, AtomicLong::get)
+                .description("Количество строк в deactivated_tokens после последней очистки")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Удаление истекших токенов.
+     *
+     * @return количество удаленных строк
+     */
+    @Scheduled(cron = "${jwt.deactivated-tokens.purge.cron:0 */15 * * * *}")
+    public long purge() {
+        final long startedAt = System.nanoTime();
+        final Instant now = Instant.now();
+        long deleted = 0;
+        try {
+            for (int i = 0; i < maxBatches; i++) {
+                final List<UUID> ids = deactivatedTokenRepository.findExpiredIds(now, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                deactivatedTokenRepository.deleteAllByIdInBatch(ids);
+                deleted += ids.size();
+                purged.increment(ids.size());
+                if (ids.size() < batchSize) {
+                    break;
+                }
+            }
+            tableSize.set(deactivatedTokenRepository.count());
+            if (deleted > 0) {
+                log.info("Удалено истекших отозванных токенов: '{}', осталось: '{}'.", deleted, tableSize.get());
+            }
+            return deleted;
+        } finally {
+            duration.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package ru.yandex.kardomoblieapp.security.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Ограничение частоты запросов одного клиента. Клиентом считается пользователь из токена доступа, а для
+ * неаутентифицированных запросов - IP-адрес. Для каждой пары маршрут-клиент заводится своя корзина токенов в памяти.
+ * При исчерпании корзины запрос отклоняется с кодом 429 и заголовком Retry-After, а в метрике
+ * http.server.requests.throttled увеличивается счетчик маршрута.
+ * <p>
+ * Количество корзин ограничено max-buckets. Полные корзины удаляются не чаще одного раза за sweep-interval и только
+ * одним потоком. Если места нет и после очистки, новые клиенты маршрута делят одну общую корзину, пока место не
+ * освободится.
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String DEFAULT_ROUTE = "default";
+
+    private final List<RouteLimit> routes = new ArrayList<>();
+
+    private final RouteLimit defaultRoute;
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    private final boolean enabled;
+
+    private final int maxBuckets;
+
+    private final long sweepIntervalNanos;
+
+    private final AtomicLong nextSweepAt;
+
+    private final MeterRegistry meterRegistry;
+
+    private final LongSupplier nanoClock;
+
+    public RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    RateLimitFilter(RateLimitProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.enabled = properties.isEnabled();
+        this.maxBuckets = properties.getMaxBuckets();
+        this.meterRegistry = meterRegistry;
+        this.nanoClock = nanoClock;
+        this.sweepIntervalNanos = properties.getSweepInterval().toNanos();
+        final long now = nanoClock.getAsLong();
+        this.nextSweepAt = new AtomicLong(now);
+        for (RateLimitProperties.Route route : properties.getRoutes()) {
+            final String name = route.getMethod() == null ? route.getPattern()
+                    : route.getMethod() + " " + route.getPattern();
+            routes.add(new RouteLimit(name, new AntPathRequestMatcher(route.getPattern(), route.getMethod()), route,
+                    overflowBucket(route, now)));
+        }
+        defaultRoute = new RouteLimit(DEFAULT_ROUTE, null, properties.getDefaultLimit(),
+                overflowBucket(properties.getDefaultLimit(), now));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        final RouteLimit route = findRoute(request);
+        if (route.limit().getCapacity() <= 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        final long now = nanoClock.getAsLong();
+        final String key = route.name() + "|" + clientKey(request);
+        final long waitNanos = findBucket(key, route, now).tryConsume(now);
+        if (waitNanos == 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        meterRegistry.counter("http.server.requests.throttled", "route", route.name()).increment();
+        log.debug("Превышена частота запросов клиентом '{}' для маршрута '{}'.", clientKey(request), route.name());
+        final long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.sendError(HttpStatus.TOO_MANY_REQUESTS.value());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled;
+    }
+
+    /**
+     * Корзина клиента. Новая корзина заводится, только если в памяти есть место; иначе клиент получает общую
+     * корзину маршрута, чтобы поток запросов с новых адресов не увеличивал расход памяти.
+     */
+    private TokenBucket findBucket(String key, RouteLimit route, long now) {
+        final TokenBucket bucket = buckets.get(key);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (buckets.size() >= maxBuckets) {
+            sweep(now);
+            if (buckets.size() >= maxBuckets) {
+                return route.overflowBucket();
+            }
+        }
+        return buckets.computeIfAbsent(key,
+                k -> new TokenBucket(route.limit().getCapacity(), route.limit().getPeriod(), now));
+    }
+
+    /**
+     * Удаление полных корзин. Обход всех корзин выполняется не чаще одного раза за интервал: право на обход
+     * получает поток, успешно сдвинувший время следующего обхода.
+     */
+    private void sweep(long now) {
+        final long sweepAt = nextSweepAt.get();
+        if (now - sweepAt < 0 || !nextSweepAt.compareAndSet(sweepAt, now + sweepIntervalNanos)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        log.debug("Очистка корзин ограничения частоты запросов, осталось корзин: {}.", buckets.size());
+    }
+
+    private static TokenBucket overflowBucket(RateLimitProperties.Limit limit, long now) {
+        return limit.getCapacity() <= 0 ? null : new TokenBucket(limit.getCapacity(), limit.getPeriod(), now);
+    }
+
+    private RouteLimit findRoute(HttpServletRequest request) {
+        for (RouteLimit route : routes) {
+            if (route.matcher().matches(request)) {
+                return route;
+            }
+        }
+        return defaultRoute;
+    }
+
+    private String clientKey(HttpServletRequest request) {
+        final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            return "user:" + authentication.getName();
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private record RouteLimit(String name, AntPathRequestMatcher matcher, RateLimitProperties.Limit limit,
+                              TokenBucket overflowBucket) {
+    }
+}
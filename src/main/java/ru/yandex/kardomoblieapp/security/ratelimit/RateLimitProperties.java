@@ -0,0 +1,63 @@
+package ru.yandex.kardomoblieapp.security.ratelimit;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Настройки ограничения частоты запросов. Для каждого маршрута задается емкость корзины и время ее полного
+ * пополнения. Маршруты проверяются по порядку, используется первый подходящий; для остальных запросов действует
+ * default-limit. Емкость 0 отключает ограничение.
+ */
+@Component
+@ConfigurationProperties(prefix = "security.rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Максимальное количество корзин в памяти. При достижении удаляются полные корзины, а если места все равно нет,
+     * новые клиенты маршрута делят одну общую корзину.
+     */
+    private int maxBuckets = 100_000;
+
+    /**
+     * Минимальный интервал между обходами корзин для удаления полных.
+     */
+    private Duration sweepInterval = Duration.ofSeconds(10);
+
+    private Limit defaultLimit = new Limit();
+
+    private List<Route> routes = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Limit {
+
+        private int capacity;
+
+        private Duration period = Duration.ofMinutes(1);
+    }
+
+    @Getter
+    @Setter
+    public static class Route extends Limit {
+
+        /**
+         * Шаблон пути в формате Ant, например /posts/**.
+         */
+        private String pattern;
+
+        /**
+         * HTTP-метод. Если не указан, ограничение действует для всех методов.
+         */
+        private String method;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.yandex.kardomoblieapp.security.ratelimit;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Корзина токенов без блокировок. Вместо количества оставшихся токенов хранится теоретическое время прихода
+ * следующего запроса (алгоритм GCRA): каждый запрос сдвигает его на интервал пополнения одного токена, а запрос
+ * отклоняется, если это время ушло вперед больше, чем на емкость корзины. Состояние - одно число, которое
+ * обновляется через compareAndSet.
+ */
+class TokenBucket {
+
+    private final long emissionInterval;
+
+    private final long burstTolerance;
+
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * @param capacity емкость корзины
+     * @param period   время полного пополнения корзины
+     * @param now      текущее время в наносекундах
+     */
+    TokenBucket(int capacity, Duration period, long now) {
+        this.emissionInterval = Math.max(1, period.toNanos() / capacity);
+        this.burstTolerance = emissionInterval * capacity;
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Попытка взять токен из корзины.
+     *
+     * @param now текущее время в наносекундах
+     * @return 0, если токен получен, иначе время в наносекундах до появления свободного токена
+     */
+    long tryConsume(long now) {
+        while (true) {
+            final long current = theoreticalArrival.get();
+            final long next = Math.max(current, now) + emissionInterval;
+            final long allowedAt = next - burstTolerance;
+            if (allowedAt > now) {
+                return allowedAt - now;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Корзина полна, если с последнего запроса прошло достаточно времени для полного пополнения. Такую корзину
+     * можно удалить без изменения поведения: новая корзина будет в том же состоянии.
+     */
+    boolean isFull(long now) {
+        return theoreticalArrival.get() <= now;
+    }
+}
@@ -4,7 +4,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
-import ru.yandex.kardomoblieapp.user.model.User;
+import ru.yandex.kardomoblieapp.user.model.UserCredentials;
+import ru.yandex.kardomoblieapp.user.model.UserRole;
 
 import java.util.Collection;
 import java.util.List;
@@ -14,21 +15,29 @@ public class CustomUserDetails implements UserDetails {
 
     private static final String ROLE_PREFIX = "ROLE_";
 
-    private final User user;
+    private final UserCredentials credentials;
+
+    public Long getUserId() {
+        return credentials.id();
+    }
+
+    public UserRole getRole() {
+        return credentials.role();
+    }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return credentials.password();
     }
 
     @Override
     public String getUsername() {
-        return user.getUsername();
+        return credentials.username();
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of(new SimpleGrantedAuthority(ROLE_PREFIX + user.getRole()));
+        return List.of(new SimpleGrantedAuthority(ROLE_PREFIX + credentials.role()));
     }
 
     @Override
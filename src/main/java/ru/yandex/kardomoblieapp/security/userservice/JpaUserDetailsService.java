@@ -5,7 +5,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import ru.yandex.kardomoblieapp.user.model.User;
+import ru.yandex.kardomoblieapp.user.model.UserCredentials;
 import ru.yandex.kardomoblieapp.user.repository.UserRepository;
 
 @Service
@@ -14,10 +14,12 @@ public class JpaUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
 
+    private final UserCredentialsCache userCredentialsCache;
+
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        User user = userRepository.findByUsername(username)
+        UserCredentials credentials = userCredentialsCache.get(username, userRepository::findCredentialsByUsername)
                 .orElseThrow(() -> new UsernameNotFoundException("Пользователь с именем " + username + " не найден."));
-        return new CustomUserDetails(user);
+        return new CustomUserDetails(credentials);
     }
 }
@@ -7,7 +7,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
 import ru.yandex.kardomoblieapp.security.jwt.model.Token;
-import ru.yandex.kardomoblieapp.security.jwt.repository.DeactivatedTokenRepository;
+import ru.yandex.kardomoblieapp.security.jwt.service.DeactivatedTokenCache;
 
 import java.time.Instant;
 
@@ -15,13 +15,14 @@ import java.time.Instant;
 public class TokenAuthenticationUserDetailsService
         implements AuthenticationUserDetailsService<PreAuthenticatedAuthenticationToken> {
 
-    private final DeactivatedTokenRepository deactivatedTokenRepository;
+    private final DeactivatedTokenCache deactivatedTokenCache;
 
     @Override
     public UserDetails loadUserDetails(PreAuthenticatedAuthenticationToken authenticationToken) throws UsernameNotFoundException {
         if (authenticationToken.getPrincipal() instanceof Token token) {
             return new TokenUser(token.getSubject(), "nopassword", true, true,
-                    !this.deactivatedTokenRepository.existsById(token.getId()) && token.getExpiresAt().isAfter(Instant.now()),
+                    token.getUserId() != null && !this.deactivatedTokenCache.isDeactivated(token.getId())
+                            && token.getExpiresAt().isAfter(Instant.now()),
                     true, token.getAuthorities().stream()
                             .map(SimpleGrantedAuthority::new)
                             .toList(), token);
@@ -4,6 +4,7 @@ import lombok.Getter;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import ru.yandex.kardomoblieapp.security.jwt.model.Token;
+import ru.yandex.kardomoblieapp.user.model.UserRole;
 
 import java.util.Collection;
 
@@ -23,4 +24,18 @@ public class TokenUser extends User {
         super(username, password, enabled, accountNonExpired, credentialsNonExpired, accountNonLocked, authorities);
         this.token = token;
     }
+
+    /**
+     * Идентификатор пользователя из токена.
+     */
+    public Long getUserId() {
+        return token.getUserId();
+    }
+
+    /**
+     * Роль пользователя из токена.
+     */
+    public UserRole getRole() {
+        return token.getRole() == null ? null : UserRole.valueOf(token.getRole());
+    }
 }
@@ -0,0 +1,114 @@
+package ru.yandex.kardomoblieapp.security.userservice;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.yandex.kardomoblieapp.user.model.UserCredentials;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш данных для аутентификации по никнейму пользователя. Снимает повторные запросы к БД при частых входах одного
+ * пользователя. Запись хранится не дольше ttl и удаляется из кэша при изменении никнейма, пароля или роли
+ * пользователя и при удалении пользователя, а если изменение выполняется в транзакции, то еще раз после ее
+ * фиксации. Размер кэша ограничен max-size: при заполнении из него удаляются устаревшие записи, но не чаще одного
+ * раза за sweep-interval, а если места нет, новая запись не кэшируется.
+ */
+@Component
+@Slf4j
+public class UserCredentialsCache {
+
+    private final Map<String, CachedCredentials> credentials = new ConcurrentHashMap<>();
+
+    @Value("${security.credentials-cache.ttl:PT1M}")
+    private Duration ttl;
+
+    @Value("${security.credentials-cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${security.credentials-cache.sweep-interval:PT10S}")
+    private Duration sweepInterval;
+
+    private final AtomicLong nextSweepAt = new AtomicLong();
+
+    /**
+     * Получение данных для аутентификации. Если данных нет в кэше или они устарели, они загружаются и сохраняются
+     * в кэш. Отсутствие пользователя не кэшируется.
+     *
+     * @param username никнейм пользователя
+     * @param loader   загрузка данных из БД
+     * @return данные для аутентификации
+     */
+    public Optional<UserCredentials> get(String username, Function<String, Optional<UserCredentials>> loader) {
+        final Instant now = Instant.now();
+        final CachedCredentials cached = credentials.get(username);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return Optional.of(cached.credentials());
+        }
+
+        final Optional<UserCredentials> loaded = loader.apply(username);
+        loaded.ifPresentOrElse(value -> put(username, value, now), () -> credentials.remove(username));
+        return loaded;
+    }
+
+    /**
+     * Удаление данных пользователя из кэша. Если удаление выполняется в транзакции, то данные удаляются еще раз после
+     * ее фиксации: вход, выполненный до фиксации, мог снова загрузить в кэш старый пароль или роль.
+     *
+     * @param username никнейм пользователя
+     */
+    public void evict(String username) {
+        if (username == null) {
+            return;
+        }
+        remove(username);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(username);
+                }
+            });
+        }
+    }
+
+    private void remove(String username) {
+        if (credentials.remove(username) != null) {
+            log.debug("Данные для аутентификации пользователя '{}' удалены из кэша.", username);
+        }
+    }
+
+    private void put(String username, UserCredentials value, Instant now) {
+        if (credentials.size() >= maxSize) {
+            sweep(now);
+        }
+        if (credentials.size() < maxSize) {
+            credentials.put(username, new CachedCredentials(value, now.plus(ttl)));
+        }
+    }
+
+    /**
+     * Удаление устаревших записей. Обход всех записей выполняется не чаще одного раза за интервал: право на обход
+     * получает поток, успешно сдвинувший время следующего обхода.
+     */
+    private void sweep(Instant now) {
+        final long sweepAt = nextSweepAt.get();
+        final long nowMillis = now.toEpochMilli();
+        if (nowMillis < sweepAt || !nextSweepAt.compareAndSet(sweepAt, nowMillis + sweepInterval.toMillis())) {
+            return;
+        }
+        credentials.values().removeIf(entry -> !entry.expiresAt().isAfter(now));
+        log.debug("Очистка кэша данных для аутентификации, осталось записей: {}.", credentials.size());
+    }
+
+    private record CachedCredentials(UserCredentials credentials, Instant expiresAt) {
+    }
+}
@@ -0,0 +1,7 @@
+package ru.yandex.kardomoblieapp.shared.exception;
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
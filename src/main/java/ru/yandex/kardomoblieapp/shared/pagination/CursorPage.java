@@ -0,0 +1,44 @@
+package ru.yandex.kardomoblieapp.shared.pagination;
+
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Страница данных, полученная по курсору.
+ *
+ * @param content    элементы страницы
+ * @param nextCursor курсор следующей страницы, null если страница последняя
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+
+    /**
+     * Создание страницы. Курсор следующей страницы формируется по последнему элементу, если страница заполнена.
+     *
+     * @param content   элементы страницы
+     * @param size      запрошенный размер страницы
+     * @param cursorKey функция получения курсора по элементу
+     * @return страница данных
+     */
+    public static <T> CursorPage<T> of(List<T> content, int size, Function<T, String> cursorKey) {
+        if (content.isEmpty() || content.size() < size) {
+            return new CursorPage<>(content, null);
+        }
+        return new CursorPage<>(content, cursorKey.apply(content.get(content.size() - 1)));
+    }
+
+    /**
+     * Формирование ответа. Курсор следующей страницы передается в заголовке ответа.
+     *
+     * @param body тело ответа
+     * @return ответ с курсором следующей страницы
+     */
+    public <D> ResponseEntity<List<D>> toResponseEntity(List<D> body) {
+        final ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (nextCursor != null) {
+            response.header(PageCursor.NEXT_CURSOR_HEADER, nextCursor);
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,34 @@
+package ru.yandex.kardomoblieapp.shared.pagination;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+
+import java.util.List;
+
+@UtilityClass
+public class KeysetPagination {
+
+    /**
+     * Получение страницы элементов. Если задано условие keyset, то выбираются первые size элементов, следующие за
+     * курсором, без подсчета общего количества и пропуска строк по смещению. Иначе страница выбирается по номеру.
+     *
+     * @param repository    репозиторий
+     * @param specification условия поиска
+     * @param keyset        условие выборки элементов после курсора, null если курсор не задан
+     * @param page          номер страницы
+     * @param size          количество элементов на странице
+     * @param sort          сортировка
+     * @return элементы страницы
+     */
+    public static <T> List<T> findContent(JpaSpecificationExecutor<T> repository, Specification<T> specification,
+                                          Specification<T> keyset, Integer page, Integer size, Sort sort) {
+        if (keyset == null) {
+            return repository.findAll(specification, PageRequest.of(page, size, sort)).getContent();
+        }
+        return repository.findBy(Specification.where(specification).and(keyset),
+                query -> query.sortBy(sort).limit(size).all());
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.kardomoblieapp.shared.pagination;
+
+import jakarta.persistence.criteria.Path;
+import lombok.experimental.UtilityClass;
+import org.hibernate.query.sqm.NodeBuilder;
+import org.hibernate.query.sqm.tree.expression.SqmExpression;
+import org.hibernate.query.sqm.tree.expression.SqmTuple;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Условия выборки элементов, следующих за последним элементом предыдущей страницы. Идентификатор используется как
+ * дополнительный ключ сортировки, поэтому сортировка запроса должна заканчиваться полем id в том же направлении.
+ */
+@UtilityClass
+public class KeysetSpecification {
+
+    private static final String ID = "id";
+
+    public static <T> Specification<T> afterId(long id, Sort.Direction direction) {
+        return (root, query, criteriaBuilder) -> {
+            final Path<Long> idPath = root.get(ID);
+            return direction.isDescending()
+                    ? criteriaBuilder.lessThan(idPath, id)
+                    : criteriaBuilder.greaterThan(idPath, id);
+        };
+    }
+
+    /**
+     * Условие выборки элементов, следующих за курсором при сортировке по полю и идентификатору. Условие строится как
+     * сравнение строк (field, id) > (value, id), что позволяет начать чтение индекса (field, id) с позиции курсора.
+     *
+     * @param field     поле сортировки
+     * @param value     значение поля сортировки последнего элемента предыдущей страницы
+     * @param id        идентификатор последнего элемента предыдущей страницы
+     * @param direction направление сортировки
+     * @return условие выборки
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <T, V extends Comparable<? super V>> Specification<T> after(String field, V value, long id,
+                                                                              Sort.Direction direction) {
+        return (root, query, criteriaBuilder) -> {
+            final NodeBuilder nodeBuilder = (NodeBuilder) criteriaBuilder;
+            final SqmTuple columns = new SqmTuple<>(nodeBuilder,
+                    (SqmExpression<?>) root.get(field), (SqmExpression<?>) root.get(ID));
+            final SqmTuple cursor = new SqmTuple<>(nodeBuilder,
+                    (SqmExpression<?>) nodeBuilder.value(value), (SqmExpression<?>) nodeBuilder.value(id));
+            return direction.isDescending()
+                    ? nodeBuilder.lessThan(columns, cursor)
+                    : nodeBuilder.greaterThan(columns, cursor);
+        };
+    }
+}
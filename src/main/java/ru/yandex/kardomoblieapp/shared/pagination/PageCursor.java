@@ -0,0 +1,92 @@
+package ru.yandex.kardomoblieapp.shared.pagination;
+
+import ru.yandex.kardomoblieapp.shared.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * Курсор для постраничного получения данных по ключам сортировки (keyset pagination). Клиенту курсор передается в
+ * виде непрозрачной строки, содержащей значения ключей сортировки последнего элемента страницы.
+ */
+public final class PageCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String DELIMITER = "|";
+
+    private final String[] keys;
+
+    private PageCursor(String[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Кодирование значений ключей сортировки в курсор.
+     *
+     * @param keys значения ключей сортировки
+     * @return курсор
+     */
+    public static String encode(Object... keys) {
+        final String value = Arrays.stream(keys)
+                .map(String::valueOf)
+                .collect(Collectors.joining(DELIMITER));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирование курсора.
+     *
+     * @param cursor       курсор
+     * @param numberOfKeys ожидаемое количество ключей сортировки
+     * @return декодированный курсор
+     */
+    public static PageCursor decode(String cursor, int numberOfKeys) {
+        try {
+            final String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            final String[] keys = value.split("\\" + DELIMITER, -1);
+            if (keys.length != numberOfKeys) {
+                throw new InvalidCursorException("Некорректный курсор '" + cursor + "'.");
+            }
+            return new PageCursor(keys);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Некорректный курсор '" + cursor + "'.");
+        }
+    }
+
+    public long getLong(int index) {
+        try {
+            return Long.parseLong(keys[index]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Некорректное значение курсора '" + keys[index] + "'.");
+        }
+    }
+
+    public int getInt(int index) {
+        try {
+            return Integer.parseInt(keys[index]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Некорректное значение курсора '" + keys[index] + "'.");
+        }
+    }
+
+    public float getFloat(int index) {
+        try {
+            return Float.parseFloat(keys[index]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Некорректное значение курсора '" + keys[index] + "'.");
+        }
+    }
+
+    public LocalDateTime getDateTime(int index) {
+        try {
+            return LocalDateTime.parse(keys[index]);
+        } catch (DateTimeParseException e) {
+            throw new InvalidCursorException("Некорректное значение курсора '" + keys[index] + "'.");
+        }
+    }
+}
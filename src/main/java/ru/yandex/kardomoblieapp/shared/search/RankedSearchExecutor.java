@@ -0,0 +1,27 @@
+package ru.yandex.kardomoblieapp.shared.search;
+
+import org.springframework.data.jpa.domain.Specification;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+
+/**
+ * Поиск с сортировкой по релевантности полнотекстового поиска. Подключается к репозиторию как фрагмент.
+ */
+public interface RankedSearchExecutor<T> {
+
+    /**
+     * Получение страницы элементов, отсортированных по убыванию релевантности, при равной релевантности по убыванию
+     * идентификатора. Курсор содержит релевантность и идентификатор последнего элемента страницы, поэтому следующая
+     * страница не зависит от того, изменился или удален ли этот элемент.
+     *
+     * @param domainClass   класс сущности
+     * @param specification условия поиска
+     * @param cursor        курсор следующей страницы
+     * @param page          номер страницы, используется если курсор не указан
+     * @param size          количество элементов на странице
+     * @param text          искомый текст
+     * @param fields        поля сущности, по которым вычисляется релевантность
+     * @return элементы страницы и курсор следующей страницы
+     */
+    CursorPage<T> findAllRanked(Class<T> domainClass, Specification<T> specification, String cursor, Integer page,
+                                Integer size, String text, String... fields);
+}
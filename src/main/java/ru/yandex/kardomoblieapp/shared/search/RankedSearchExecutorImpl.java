@@ -0,0 +1,62 @@
+package ru.yandex.kardomoblieapp.shared.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.shared.pagination.PageCursor;
+
+import java.util.List;
+
+/**
+ * Релевантность вычисляется в том же запросе, что и элементы страницы, и сохраняется в курсор.
+ */
+public class RankedSearchExecutorImpl<T> implements RankedSearchExecutor<T> {
+
+    private static final String ID = "id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public CursorPage<T> findAllRanked(Class<T> domainClass, Specification<T> specification, String cursor,
+                                       Integer page, Integer size, String text, String... fields) {
+        final PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor, 2);
+        final Specification<T> keyset = pageCursor == null ? null
+                : TextSearchSpecification.afterRank(text, pageCursor.getFloat(0), pageCursor.getLong(1), fields);
+
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Object[]> query = criteriaBuilder.createQuery(Object[].class);
+        final Root<T> root = query.from(domainClass);
+        final Expression<Float> rank = TextSearchSpecification.rank(root, criteriaBuilder, text, fields);
+        final Predicate predicate = Specification.where(specification).and(keyset)
+                .toPredicate(root, query, criteriaBuilder);
+        query.multiselect(root, rank)
+                .orderBy(criteriaBuilder.desc(rank), criteriaBuilder.desc(root.get(ID)));
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        final TypedQuery<Object[]> typedQuery = entityManager.createQuery(query).setMaxResults(size);
+        if (pageCursor == null) {
+            typedQuery.setFirstResult(page * size);
+        }
+
+        final List<Ranked<T>> ranked = typedQuery.getResultList().stream()
+                .map(row -> new Ranked<>((T) row[0], (Float) row[1]))
+                .toList();
+        final String nextCursor = CursorPage.of(ranked, size, element -> PageCursor.encode(element.rank(),
+                entityManager.getEntityManagerFactory().getPersistenceUnitUtil().getIdentifier(element.entity())))
+                .nextCursor();
+        return new CursorPage<>(ranked.stream().map(Ranked::entity).toList(), nextCursor);
+    }
+
+    private record Ranked<T>(T entity, float rank) {
+    }
+}
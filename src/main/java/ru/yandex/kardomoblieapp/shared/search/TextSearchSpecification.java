@@ -0,0 +1,84 @@
+package ru.yandex.kardomoblieapp.shared.search;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Predicate;
+import lombok.experimental.UtilityClass;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Условия полнотекстового поиска. Полнотекстовый поиск выполняется функциями базы данных fts_match и fts_rank,
+ * использующими русскую морфологию (см. changeset add-full-text-search-functions). Поиск подстроки через LIKE
+ * выполняется всегда и используется как единственный способ поиска, если полнотекстовый поиск отключен. Сортировка
+ * по релевантности выполняется фрагментом репозитория {@link RankedSearchExecutor}.
+ */
+@UtilityClass
+public class TextSearchSpecification {
+
+    private static final String MATCH_FUNCTION = "fts_match";
+
+    private static final String RANK_FUNCTION = "fts_rank";
+
+    private static final String ID = "id";
+
+    /**
+     * Условие совпадения текста хотя бы с одним из полей.
+     *
+     * @param root            корень запроса
+     * @param criteriaBuilder criteria builder
+     * @param text            искомый текст
+     * @param fullText        использовать ли полнотекстовый поиск
+     * @param fields          поля сущности, по которым выполняется поиск
+     * @return условие поиска
+     */
+    public static Predicate matches(From<?, ?> root, CriteriaBuilder criteriaBuilder, String text, boolean fullText,
+                                    String... fields) {
+        final Predicate[] predicates = new Predicate[fullText ? fields.length * 2 : fields.length];
+        int i = 0;
+        for (String field : fields) {
+            final Expression<String> fieldPath = root.get(field);
+            predicates[i++] = criteriaBuilder.like(criteriaBuilder.lower(fieldPath), "%" + text.toLowerCase() + "%");
+            if (fullText) {
+                predicates[i++] = criteriaBuilder.isTrue(criteriaBuilder.function(MATCH_FUNCTION, Boolean.class,
+                        fieldPath, criteriaBuilder.literal(text)));
+            }
+        }
+        return criteriaBuilder.or(predicates);
+    }
+
+    /**
+     * Условие выборки элементов, следующих за последним элементом предыдущей страницы при сортировке по
+     * релевантности. Релевантность последнего элемента берется из курсора, а не вычисляется заново, поэтому
+     * изменение или удаление этого элемента не сдвигает следующую страницу.
+     *
+     * @param text     искомый текст
+     * @param lastRank релевантность последнего элемента предыдущей страницы
+     * @param lastId   идентификатор последнего элемента предыдущей страницы
+     * @param fields   поля сущности, по которым вычисляется релевантность
+     * @return условие выборки
+     */
+    public static <T> Specification<T> afterRank(String text, float lastRank, long lastId, String... fields) {
+        return (root, query, criteriaBuilder) -> {
+            final Expression<Float> rank = rank(root, criteriaBuilder, text, fields);
+            return criteriaBuilder.or(
+                    criteriaBuilder.lessThan(rank, lastRank),
+                    criteriaBuilder.and(criteriaBuilder.equal(rank, lastRank),
+                            criteriaBuilder.lessThan(root.get(ID), lastId)));
+        };
+    }
+
+    /**
+     * Релевантность элемента: сумма релевантности по всем полям.
+     */
+    static Expression<Float> rank(From<?, ?> root, CriteriaBuilder criteriaBuilder, String text,
+                                  String... fields) {
+        Expression<Float> rank = null;
+        for (String field : fields) {
+            final Expression<Float> fieldRank = criteriaBuilder.function(RANK_FUNCTION, Float.class,
+                    root.get(field), criteriaBuilder.literal(text));
+            rank = rank == null ? fieldRank : criteriaBuilder.sum(rank, fieldRank);
+        }
+        return rank;
+    }
+}
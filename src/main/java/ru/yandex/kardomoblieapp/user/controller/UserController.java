@@ -2,6 +2,7 @@ package ru.yandex.kardomoblieapp.user.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.headers.Header;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -14,6 +15,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -31,6 +33,8 @@ import ru.yandex.kardomoblieapp.datafiles.mapper.DataFileMapper;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
 import ru.yandex.kardomoblieapp.security.jwt.model.TokensResponse;
 import ru.yandex.kardomoblieapp.shared.exception.ErrorResponse;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.shared.pagination.PageCursor;
 import ru.yandex.kardomoblieapp.user.dto.FriendshipDto;
 import ru.yandex.kardomoblieapp.user.dto.NewUserRequest;
 import ru.yandex.kardomoblieapp.user.dto.NewUserResponse;
@@ -277,7 +281,8 @@ public class UserController {
 
     @GetMapping("/{userId}/friends")
     @SecurityRequirement(name = "JWT")
-    @Operation(summary = "Получение списка друзей пользователя")
+    @Operation(summary = "Получение списка друзей пользователя", description = "Список не разбит на страницы, " +
+            "используйте /users/{userId}/following", deprecated = true)
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Получен список друзей пользователя", content = {
                     @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ShortUserDto.class)))}),
@@ -294,6 +299,58 @@ public class UserController {
         return userMapper.toShortDtoList(friends);
     }
 
+    @GetMapping("/{userId}/followers")
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Получение подписчиков пользователя")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Получен список подписчиков пользователя", headers = {
+                    @Header(name = PageCursor.NEXT_CURSOR_HEADER, description = "Курсор следующей страницы")}, content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ShortUserDto.class)))}),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован"),
+            @ApiResponse(responseCode = "403", description = "Срок действия токена доступа истек"),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Произошла неизвестная ошибка", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
+    })
+    public ResponseEntity<List<ShortUserDto>> getFollowers(@PathVariable @Parameter(description = "Идентификатор пользователя") long userId,
+                                                           @RequestParam(required = false)
+                                                           @Parameter(description = "Курсор следующей страницы") String cursor,
+                                                           @RequestParam(defaultValue = "10")
+                                                           @Parameter(description = "Количество элементов на странице") Integer size) {
+        log.debug("Получение подписчиков пользователя с id '{}'. cursor: '{}', size: '{}'.", userId, cursor, size);
+        CursorPage<User> followers = userService.getFollowers(userId, cursor, size);
+        return followers.toResponseEntity(userMapper.toShortDtoList(followers.content()));
+    }
+
+    @GetMapping("/{userId}/following")
+    @SecurityRequirement(name = "JWT")
+    @Operation(summary = "Получение подписок пользователя")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Получен список подписок пользователя", headers = {
+                    @Header(name = PageCursor.NEXT_CURSOR_HEADER, description = "Курсор следующей страницы")}, content = {
+                    @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = ShortUserDto.class)))}),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
+            @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован"),
+            @ApiResponse(responseCode = "403", description = "Срок действия токена доступа истек"),
+            @ApiResponse(responseCode = "404", description = "Пользователь не найден", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
+            @ApiResponse(responseCode = "500", description = "Произошла неизвестная ошибка", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
+    })
+    public ResponseEntity<List<ShortUserDto>> getFollowing(@PathVariable @Parameter(description = "Идентификатор пользователя") long userId,
+                                                           @RequestParam(required = false)
+                                                           @Parameter(description = "Курсор следующей страницы") String cursor,
+                                                           @RequestParam(defaultValue = "10")
+                                                           @Parameter(description = "Количество элементов на странице") Integer size) {
+        log.debug("Получение подписок пользователя с id '{}'. cursor: '{}', size: '{}'.", userId, cursor, size);
+        CursorPage<User> following = userService.getFollowing(userId, cursor, size);
+        return following.toResponseEntity(userMapper.toShortDtoList(following.content()));
+    }
+
     @DeleteMapping("/{userId}/friends/{friendId}")
     @SecurityRequirement(name = "JWT")
     @Operation(summary = "Удаление пользователя из друзей")
@@ -316,21 +373,26 @@ public class UserController {
     @SecurityRequirement(name = "JWT")
     @Operation(summary = "Поиск пользователей")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Получен список пользователей", content = {
+            @ApiResponse(responseCode = "200", description = "Получен список пользователей", headers = {
+                    @Header(name = PageCursor.NEXT_CURSOR_HEADER, description = "Курсор следующей страницы")}, content = {
                     @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = UserDto.class)))}),
+            @ApiResponse(responseCode = "400", description = "Некорректный курсор", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))}),
             @ApiResponse(responseCode = "401", description = "Пользователь не аутентифицирован"),
             @ApiResponse(responseCode = "403", description = "Срок действия токена доступа истек"),
             @ApiResponse(responseCode = "500", description = "Произошла неизвестная ошибка", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))})
     })
-    public List<UserDto> findAllUsers(@Parameter(description = "Фильтр поиска") UserSearchFilter filter,
-                                      @RequestParam(defaultValue = "0")
-                                      @Parameter(description = "Номер страницы") Integer page,
-                                      @RequestParam(defaultValue = "10")
-                                      @Parameter(description = "Количество элементов на странице") Integer size) {
-        log.debug("Получение списка всех пользователей. page: '{}', size: '{}'.", page, size);
-        List<User> users = userService.findAllUsers(filter, page, size);
-        return userMapper.toDtoList(users);
+    public ResponseEntity<List<UserDto>> findAllUsers(@Parameter(description = "Фильтр поиска") UserSearchFilter filter,
+                                                      @RequestParam(required = false)
+                                                      @Parameter(description = "Курсор следующей страницы") String cursor,
+                                                      @RequestParam(defaultValue = "0")
+                                                      @Parameter(description = "Номер страницы") Integer page,
+                                                      @RequestParam(defaultValue = "10")
+                                                      @Parameter(description = "Количество элементов на странице") Integer size) {
+        log.debug("Получение списка всех пользователей. cursor: '{}', page: '{}', size: '{}'.", cursor, page, size);
+        CursorPage<User> users = userService.findAllUsers(filter, cursor, page, size);
+        return users.toResponseEntity(userMapper.toDtoList(users.content()));
     }
 
     @GetMapping("/info")
@@ -2,7 +2,7 @@ package ru.yandex.kardomoblieapp.user.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
-import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.dto.DataFileDto;
 import ru.yandex.kardomoblieapp.user.model.Gender;
 
 import java.time.LocalDate;
@@ -32,12 +32,18 @@ public record UserDto(@Schema(description = "Идентификатор поль
                       @Schema(description = "Пол")
                       Gender gender,
                       @Schema(description = "Фотография профиля")
-                      DataFile profilePicture,
+                      DataFileDto profilePicture,
                       @Schema(description = "Номер телефона")
                       String phoneNumber,
                       @Schema(description = "О себе")
                       String overview,
                       @Schema(description = "Ссылка на соцсети")
-                      String website) {
+                      String website,
+                      @Schema(description = "Количество подписчиков")
+                      long followersCount,
+                      @Schema(description = "Количество подписок")
+                      long followingCount,
+                      @Schema(description = "Количество друзей")
+                      long friendsCount) {
 
 }
@@ -90,4 +90,13 @@ public class User {
 
     @Enumerated(EnumType.STRING)
     private UserRole role;
+
+    @Column(name = "followers_count", updatable = false)
+    private long followersCount;
+
+    @Column(name = "following_count", updatable = false)
+    private long followingCount;
+
+    @Column(name = "friends_count", updatable = false)
+    private long friendsCount;
 }
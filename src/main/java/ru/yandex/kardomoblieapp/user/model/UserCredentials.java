@@ -0,0 +1,8 @@
+package ru.yandex.kardomoblieapp.user.model;
+
+/**
+ * Данные пользователя, необходимые для аутентификации.
+ */
+public record UserCredentials(Long id, String username, String password, UserRole role) {
+
+}
@@ -1,14 +1,84 @@
 package ru.yandex.kardomoblieapp.user.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.yandex.kardomoblieapp.user.model.Friendship;
 import ru.yandex.kardomoblieapp.user.model.FriendshipId;
+import ru.yandex.kardomoblieapp.user.model.FriendshipStatus;
+import ru.yandex.kardomoblieapp.user.model.User;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface FriendshipRepository extends JpaRepository<Friendship, FriendshipId> {
 
     @Query("SELECT f.id.friend.id FROM Friendship f WHERE f.id.user.id = ?1")
     List<Long> findUsersFriendsIds(long userId);
+
+    @Query("SELECT f.status FROM Friendship f WHERE f.id.user.id = ?1 AND f.id.friend.id = ?2")
+    FriendshipStatus findStatus(long userId, long friendId);
+
+    @Query("SELECT u FROM Friendship f JOIN f.id.user u LEFT JOIN FETCH u.profilePicture pp " +
+            "WHERE f.id.friend.id = ?1 AND u.id > ?2 ORDER BY u.id")
+    List<User> findFollowersAfter(long userId, long lastFollowerId, Pageable pageable);
+
+    @Query("SELECT u FROM Friendship f JOIN f.id.friend u LEFT JOIN FETCH u.profilePicture pp " +
+            "WHERE f.id.user.id = ?1 AND u.id > ?2 ORDER BY u.id")
+    List<User> findFollowingAfter(long userId, long lastFollowingId, Pageable pageable);
+
+    /**
+     * Транзакционная блокировка пары пользователей. Порядок идентификаторов не важен, поэтому встречные запросы
+     * дружбы ждут друг друга, а запросы для разных пар выполняются параллельно. Блокировка снимается при завершении
+     * транзакции.
+     *
+     * @param userId   идентификатор первого пользователя
+     * @param friendId идентификатор второго пользователя
+     * @return всегда 1
+     */
+    @Query(value = "SELECT 1 FROM pg_advisory_xact_lock(" +
+            "hashint8(LEAST(?1, ?2)), hashint8(GREATEST(?1, ?2)))", nativeQuery = true)
+    int lockPair(long userId, long friendId);
+
+    /**
+     * Добавление пользователя в друзья одним запросом. Если встречная подписка существует, то обе записи получают
+     * статус FRIEND, иначе запись добавляется со статусом SUBSCRIBER. Если запись уже существует, то не изменяется ни
+     * она, ни встречная запись.
+     *
+     * @param userId   идентификатор пользователя, добавляющего друга
+     * @param friendId идентификатор пользователя, которого добавляют в друзья
+     * @return статус добавленной записи, пустой результат если запись уже существовала
+     */
+    @Query(value = "WITH inserted AS (" +
+            "INSERT INTO friendship (user_id, friend_id, status) " +
+            "SELECT ?1, ?2, CASE WHEN EXISTS (" +
+            "SELECT 1 FROM friendship WHERE user_id = ?2 AND friend_id = ?1) THEN 'FRIEND' ELSE 'SUBSCRIBER' END " +
+            "ON CONFLICT (user_id, friend_id) DO NOTHING " +
+            "RETURNING status), " +
+            "mutual AS (" +
+            "UPDATE friendship SET status = 'FRIEND' WHERE user_id = ?2 AND friend_id = ?1 " +
+            "AND EXISTS (SELECT 1 FROM inserted) RETURNING user_id) " +
+            "SELECT status FROM inserted", nativeQuery = true)
+    Optional<String> insertFriendship(long userId, long friendId);
+
+    /**
+     * Удаление пользователя из друзей одним запросом. Если дружба была взаимной, то встречная запись получает статус
+     * SUBSCRIBER.
+     *
+     * @param userId   идентификатор пользователя, удаляющего друга
+     * @param friendId идентификатор пользователя, которого удаляют из друзей
+     * @return статус удаленной записи, пустой результат если записи не было
+     */
+    @Query(value = "WITH deleted AS (" +
+            "DELETE FROM friendship WHERE user_id = ?1 AND friend_id = ?2 RETURNING status), " +
+            "reverse AS (" +
+            "UPDATE friendship SET status = 'SUBSCRIBER' WHERE user_id = ?2 AND friend_id = ?1 " +
+            "AND EXISTS (SELECT 1 FROM deleted) RETURNING user_id) " +
+            "SELECT status FROM deleted", nativeQuery = true)
+    Optional<String> deleteFriendship(long userId, long friendId);
+
+    @Modifying
+    @Query(value = "DELETE FROM friendship WHERE user_id = ?1 OR friend_id = ?1", nativeQuery = true)
+    int deleteAllByUserId(long userId);
 }
@@ -2,9 +2,12 @@ package ru.yandex.kardomoblieapp.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import ru.yandex.kardomoblieapp.user.model.User;
+import ru.yandex.kardomoblieapp.user.model.UserCredentials;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +18,13 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
 
     Optional<User> findByUsername(String username);
 
+    @Query("SELECT u.id FROM User u WHERE u.id IN ?1")
+    List<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("SELECT new ru.yandex.kardomoblieapp.user.model.UserCredentials(u.id, u.username, u.password, u.role) " +
+            "FROM User u WHERE u.username = ?1")
+    Optional<UserCredentials> findCredentialsByUsername(String username);
+
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.profilePicture p LEFT JOIN FETCH u.country c " +
             "LEFT JOIN FETCH u.region r LEFT JOIN FETCH u.city ct WHERE u.username = ?1")
     Optional<User> findFullUserByUsername(String username);
@@ -22,4 +32,41 @@ public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificat
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.profilePicture p LEFT JOIN FETCH u.country c " +
             "LEFT JOIN FETCH u.region r LEFT JOIN FETCH u.city ct WHERE u.id = ?1")
     Optional<User> findFullUserById(long id);
+
+    /**
+     * Изменение счетчиков подписок пары пользователей. Первому пользователю изменяется количество подписок, второму -
+     * количество подписчиков, обоим - количество друзей.
+     *
+     * @param userId       идентификатор подписчика
+     * @param friendId     идентификатор пользователя, на которого подписаны
+     * @param followDelta  изменение количества подписок и подписчиков
+     * @param friendsDelta изменение количества друзей
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET " +
+            "following_count = following_count + CASE WHEN user_id = ?1 THEN ?3 ELSE 0 END, " +
+            "followers_count = followers_count + CASE WHEN user_id = ?2 THEN ?3 ELSE 0 END, " +
+            "friends_count = friends_count + ?4 " +
+            "WHERE user_id IN (?1, ?2)", nativeQuery = true)
+    void updateFollowCounters(long userId, long friendId, int followDelta, int friendsDelta);
+
+    /**
+     * Уменьшение счетчиков пользователей, связанных подпиской с удаляемым пользователем. Подписчикам удаляемого
+     * пользователя уменьшается количество подписок, пользователям, на которых он подписан, - количество подписчиков,
+     * его друзьям - количество друзей.
+     *
+     * @param userId идентификатор удаляемого пользователя
+     */
+    @Modifying
+    @Query(value = "UPDATE users u SET " +
+            "followers_count = u.followers_count - c.followers, " +
+            "following_count = u.following_count - c.following, " +
+            "friends_count = u.friends_count - c.friends " +
+            "FROM (SELECT CASE WHEN f.user_id = ?1 THEN f.friend_id ELSE f.user_id END AS other_id, " +
+            "COUNT(*) FILTER (WHERE f.user_id = ?1) AS followers, " +
+            "COUNT(*) FILTER (WHERE f.friend_id = ?1) AS following, " +
+            "COUNT(*) FILTER (WHERE f.user_id = ?1 AND f.status = 'FRIEND') AS friends " +
+            "FROM friendship f WHERE f.user_id = ?1 OR f.friend_id = ?1 GROUP BY other_id) c " +
+            "WHERE u.user_id = c.other_id", nativeQuery = true)
+    void decrementRelatedFollowCounters(long userId);
 }
@@ -2,6 +2,7 @@ package ru.yandex.kardomoblieapp.user.repository;
 
 import lombok.experimental.UtilityClass;
 import org.springframework.data.jpa.domain.Specification;
+import ru.yandex.kardomoblieapp.shared.search.TextSearchSpecification;
 import ru.yandex.kardomoblieapp.user.model.User;
 
 @UtilityClass
@@ -12,11 +13,6 @@ public class UserSpecification {
             return null;
         }
         return (root, query, criteriaBuilder) ->
-                criteriaBuilder.or(
-                        criteriaBuilder.like(criteriaBuilder.lower(root.get("username")),
-                                "%" + text.toLowerCase() + "%"),
-                        criteriaBuilder.like(criteriaBuilder.lower(root.get("email")),
-                                "%" + text.toLowerCase() + "%")
-                );
+                TextSearchSpecification.matches(root, criteriaBuilder, text, false, "username", "email");
     }
 }
@@ -2,6 +2,7 @@ package ru.yandex.kardomoblieapp.user.service;
 
 import org.springframework.web.multipart.MultipartFile;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
 import ru.yandex.kardomoblieapp.user.dto.UserSearchFilter;
 import ru.yandex.kardomoblieapp.user.dto.UserUpdateRequest;
 import ru.yandex.kardomoblieapp.user.model.Friendship;
@@ -30,12 +31,20 @@ public interface UserService {
 
     List<User> getFriendsList(long userId);
 
+    CursorPage<User> getFollowers(long userId, String cursor, Integer size);
+
+    CursorPage<User> getFollowing(long userId, String cursor, Integer size);
+
     void deleteFriend(long userId, long friendId);
 
     User findByUsername(String username);
 
+    User getUserReference(long userId);
+
     List<User> findAllUsers(UserSearchFilter filter, Integer page, Integer size);
 
+    CursorPage<User> findAllUsers(UserSearchFilter filter, String cursor, Integer page, Integer size);
+
     User findFullUserByUsername(String username);
 
     User changeUserRole(long userId, UserRole newRole);
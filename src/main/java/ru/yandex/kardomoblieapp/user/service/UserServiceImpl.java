@@ -3,7 +3,7 @@ package ru.yandex.kardomoblieapp.user.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -13,8 +13,13 @@ import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
 import ru.yandex.kardomoblieapp.datafiles.service.DataFileService;
 import ru.yandex.kardomoblieapp.location.dto.Location;
 import ru.yandex.kardomoblieapp.location.service.LocationService;
+import ru.yandex.kardomoblieapp.security.userservice.UserCredentialsCache;
 import ru.yandex.kardomoblieapp.shared.exception.InvalidDateOfBirthException;
 import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.shared.pagination.KeysetPagination;
+import ru.yandex.kardomoblieapp.shared.pagination.KeysetSpecification;
+import ru.yandex.kardomoblieapp.shared.pagination.PageCursor;
 import ru.yandex.kardomoblieapp.user.dto.UserSearchFilter;
 import ru.yandex.kardomoblieapp.user.dto.UserUpdateRequest;
 import ru.yandex.kardomoblieapp.user.mapper.UserMapper;
@@ -31,6 +36,7 @@ import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -40,6 +46,8 @@ public class UserServiceImpl implements UserService {
 
     private static final int OLDEST_AGE = 100;
 
+    private static final Sort USERS_SORT = Sort.by("id").ascending();
+
     private static final int YOUNGEST_AGE = 6;
 
     private final UserRepository userRepository;
@@ -54,6 +62,8 @@ public class UserServiceImpl implements UserService {
 
     private final LocationService locationService;
 
+    private final UserCredentialsCache userCredentialsCache;
+
     /**
      * Регистрация нового пользователя в приложении. Пользователь создается с ролью USER. При сохранении
      * в БД пароль пользователя кодируется.
@@ -71,7 +81,8 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Обновление данных пользователя.
+     * Обновление данных пользователя. Данные для аутентификации пользователя удаляются из кэша, так как могли
+     * измениться никнейм или пароль.
      *
      * @param userId            идентификатор пользователя, который обновляет данные
      * @param userUpdateRequest обновленные данные
@@ -82,24 +93,31 @@ public class UserServiceImpl implements UserService {
     public User updateUser(long userId, UserUpdateRequest userUpdateRequest) {
         final User user = getUser(userId);
         validateDateOfBirth(userUpdateRequest.getDateOfBirth());
+        final String oldUsername = user.getUsername();
         userMapper.updateUser(userUpdateRequest, user);
         setLocationToUser(user, userUpdateRequest.getCountryId(), userUpdateRequest.getRegionId(),
                 userUpdateRequest.getCity());
         userRepository.save(user);
+        userCredentialsCache.evict(oldUsername);
+        userCredentialsCache.evict(user.getUsername());
         log.info("Профиль пользователя с id '{}' был обновлен.", userId);
         return user;
     }
 
     /**
-     * Удаление пользователя по идентификатору.
+     * Удаление пользователя по идентификатору. Перед удалением у связанных с ним пользователей уменьшаются счетчики
+     * подписчиков, подписок и друзей, а записи о подписках удаляются.
      *
      * @param userId идентификатор пользователя
      */
     @Override
     @Transactional
     public void deleteUser(long userId) {
-        getUser(userId);
+        final User user = getUser(userId);
+        userRepository.decrementRelatedFollowCounters(userId);
+        friendshipRepository.deleteAllByUserId(userId);
         userRepository.deleteById(userId);
+        userCredentialsCache.evict(user.getUsername());
     }
 
     /**
@@ -162,7 +180,9 @@ public class UserServiceImpl implements UserService {
 
     /**
      * Добавление пользователя в список друзей. По умолчанию пользователь, добавленный в список друзей, получает статус
-     * ПОДПИСЧИК. Если оба пользователя добавляют друг друга в список друзей, то статус изменятся на ДРУГ.
+     * ПОДПИСЧИК. Если оба пользователя добавляют друг друга в список друзей, то статус изменятся на ДРУГ. Пара
+     * пользователей блокируется на время транзакции, поэтому одновременные встречные запросы не оставят обе записи
+     * со статусом ПОДПИСЧИК. Счетчики подписчиков, подписок и друзей пользователей изменяются в той же транзакции.
      *
      * @param userId   идентификатор пользователя, добавляющий друга
      * @param friendId идентификатор пользователя, которого добавляют в список друзей
@@ -171,23 +191,26 @@ public class UserServiceImpl implements UserService {
     @Override
     @Transactional
     public Friendship addFriend(long userId, long friendId) {
-        final User user = getUser(userId);
-        final User friend = getUser(friendId);
-        final List<Long> secondUserFriendsIds = friendshipRepository.findUsersFriendsIds(friendId);
-        final Friendship friendship = new Friendship();
-        friendship.setId(FriendshipId.of(user, friend));
-        if (secondUserFriendsIds.stream().anyMatch(id -> id == userId)) {
-            friendship.setStatus(FriendshipStatus.FRIEND);
-            Friendship mutualFriendship = Friendship.builder()
-                    .id(FriendshipId.of(friend, user))
-                    .status(FriendshipStatus.FRIEND)
-                    .build();
-            friendshipRepository.save(mutualFriendship);
+        checkUsersExist(userId, friendId);
+        friendshipRepository.lockPair(userId, friendId);
+        final Optional<String> inserted = friendshipRepository.insertFriendship(userId, friendId);
+        final FriendshipStatus status;
+        if (inserted.isPresent()) {
+            status = FriendshipStatus.valueOf(inserted.get());
+            userRepository.updateFollowCounters(userId, friendId, 1, status == FriendshipStatus.FRIEND ? 1 : 0);
+            if (status == FriendshipStatus.FRIEND) {
+                log.info("Пользователи с id '{}' и '{}' стали друзьями.", userId, friendId);
+            } else {
+                log.info("Пользователь с id '{}' подписался на пользователя с id '{}'.", userId, friendId);
+            }
         } else {
-            friendship.setStatus(FriendshipStatus.SUBSCRIBER);
+            status = friendshipRepository.findStatus(userId, friendId);
+            log.info("Пользователь с id '{}' уже добавил в друзья пользователя с id '{}'.", userId, friendId);
         }
-        friendshipRepository.save(friendship);
-        log.info("Пользователи с id '{}' и '{}' стали друзьями.", userId, friendId);
+        final Friendship friendship = Friendship.builder()
+                .id(FriendshipId.of(userRepository.getReferenceById(userId), userRepository.getReferenceById(friendId)))
+                .status(status)
+                .build();
         return friendship;
     }
 
@@ -208,17 +231,60 @@ public class UserServiceImpl implements UserService {
     }
 
     /**
-     * Удаление пользователя из списка друзей.
+     * Получение подписчиков пользователя. Подписчики отсортированы по идентификатору и возвращаются начиная с
+     * пользователя, следующего за последним подписчиком предыдущей страницы.
+     *
+     * @param userId идентификатор пользователя
+     * @param cursor курсор следующей страницы
+     * @param size   количество элементов на странице
+     * @return список подписчиков и курсор следующей страницы
+     */
+    @Override
+    public CursorPage<User> getFollowers(long userId, String cursor, Integer size) {
+        checkUserExists(userId);
+        final long lastFollowerId = cursor == null ? 0 : PageCursor.decode(cursor, 1).getLong(0);
+        final List<User> followers =
+                friendshipRepository.findFollowersAfter(userId, lastFollowerId, PageRequest.of(0, size));
+        log.debug("Получены подписчики пользователя с id '{}'. Количество: '{}'.", userId, followers.size());
+        return CursorPage.of(followers, size, user -> PageCursor.encode(user.getId()));
+    }
+
+    /**
+     * Получение пользователей, на которых подписан пользователь. Пользователи отсортированы по идентификатору и
+     * возвращаются начиная с пользователя, следующего за последним пользователем предыдущей страницы.
+     *
+     * @param userId идентификатор пользователя
+     * @param cursor курсор следующей страницы
+     * @param size   количество элементов на странице
+     * @return список подписок и курсор следующей страницы
+     */
+    @Override
+    public CursorPage<User> getFollowing(long userId, String cursor, Integer size) {
+        checkUserExists(userId);
+        final long lastFollowingId = cursor == null ? 0 : PageCursor.decode(cursor, 1).getLong(0);
+        final List<User> following =
+                friendshipRepository.findFollowingAfter(userId, lastFollowingId, PageRequest.of(0, size));
+        log.debug("Получены подписки пользователя с id '{}'. Количество: '{}'.", userId, following.size());
+        return CursorPage.of(following, size, user -> PageCursor.encode(user.getId()));
+    }
+
+    /**
+     * Удаление пользователя из списка друзей. Если дружба была взаимной, то второй пользователь остается подписчиком.
+     * Счетчики подписчиков, подписок и друзей пользователей изменяются в той же транзакции.
      *
      * @param userId   идентификатор пользователя, делающий запрос
      * @param friendId идентификатор пользователя из списка друзей
      */
     @Override
+    @Transactional
     public void deleteFriend(long userId, long friendId) {
-        final User user = getUser(userId);
-        final User friend = getUser(friendId);
-        friendshipRepository.deleteById(FriendshipId.of(user, friend));
-        log.info("Пользователь с id '{}' удалил из друзей пользователя с id '{}'.", userId, friendId);
+        checkUsersExist(userId, friendId);
+        friendshipRepository.lockPair(userId, friendId);
+        friendshipRepository.deleteFriendship(userId, friendId).ifPresent(status -> {
+            final boolean mutual = FriendshipStatus.valueOf(status) == FriendshipStatus.FRIEND;
+            userRepository.updateFollowCounters(userId, friendId, -1, mutual ? -1 : 0);
+            log.info("Пользователь с id '{}' удалил из друзей пользователя с id '{}'.", userId, friendId);
+        });
     }
 
     /**
@@ -233,6 +299,18 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new NotFoundException("Пользователь с именем '" + username + "' не найден."));
     }
 
+    /**
+     * Получение ссылки на пользователя без запроса к базе данных. Используется, когда пользователь нужен только для
+     * связи с другой сущностью, а его идентификатор получен из токена доступа.
+     *
+     * @param userId идентификатор пользователя
+     * @return ссылка на пользователя
+     */
+    @Override
+    public User getUserReference(long userId) {
+        return userRepository.getReferenceById(userId);
+    }
+
     /**
      * Поиск пользователей по фильтру. Список пользователей возвращается постранично, согласно заданным параметрам.
      *
@@ -243,10 +321,29 @@ public class UserServiceImpl implements UserService {
      */
     @Override
     public List<User> findAllUsers(UserSearchFilter filter, Integer page, Integer size) {
-        final Pageable pageable = PageRequest.of(page, size);
+        return findAllUsers(filter, null, page, size).content();
+    }
+
+    /**
+     * Поиск пользователей по фильтру. Пользователи сортируются по идентификатору. Если указан курсор, то пользователи
+     * возвращаются начиная с пользователя, следующего за последним пользователем предыдущей страницы. Иначе
+     * пользователи возвращаются постранично.
+     *
+     * @param filter фильтр поиска
+     * @param cursor курсор следующей страницы
+     * @param page   номер страницы, используется если курсор не указан
+     * @param size   количество элементов на странице
+     * @return найденный список пользователей и курсор следующей страницы
+     */
+    @Override
+    public CursorPage<User> findAllUsers(UserSearchFilter filter, String cursor, Integer page, Integer size) {
         final List<Specification<User>> specifications = userSearchFilterToSpecifications(filter);
         final Specification<User> resultSpec = specifications.stream().reduce(Specification::and).orElse(null);
-        return userRepository.findAll(resultSpec, pageable).getContent();
+        final Specification<User> keyset = cursor == null ? null
+                : KeysetSpecification.afterId(PageCursor.decode(cursor, 1).getLong(0), Sort.Direction.ASC);
+        final List<User> users = KeysetPagination.findContent(userRepository, resultSpec, keyset, page, size,
+                USERS_SORT);
+        return CursorPage.of(users, size, user -> PageCursor.encode(user.getId()));
     }
 
     /**
@@ -275,6 +372,7 @@ public class UserServiceImpl implements UserService {
         User user = getUser(userId);
         user.setRole(newRole);
         User savedUser = userRepository.save(user);
+        userCredentialsCache.evict(user.getUsername());
         log.info("У пользователя с id '{}' новая роль '{}'.", userId, newRole.name());
         return savedUser;
     }
@@ -294,6 +392,21 @@ public class UserServiceImpl implements UserService {
         }
     }
 
+    private void checkUserExists(long userId) {
+        if (!userRepository.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id '" + userId + "' не найден.");
+        }
+    }
+
+    private void checkUsersExist(long userId, long friendId) {
+        final List<Long> existingIds = userRepository.findExistingIds(List.of(userId, friendId));
+        for (long id : List.of(userId, friendId)) {
+            if (!existingIds.contains(id)) {
+                throw new NotFoundException("Пользователь с id '" + id + "' не найден.");
+            }
+        }
+    }
+
     private User getUser(long userId) {
         return userRepository.findFullUserById(userId)
                 .orElseThrow(() -> new NotFoundException("Пользователь с id '" + userId + "' не найден."));
@@ -5,6 +5,7 @@ import lombok.experimental.UtilityClass;
 @UtilityClass
 public class TestUtils {
     public static final String POSTGRES_VERSION = "postgres:16-alpine";
+    public static final String MINIO_VERSION = "minio/minio:RELEASE.2023-09-04T19-57-37Z";
 }
 
 
@@ -0,0 +1,208 @@
+package ru.yandex.kardomoblieapp.datafiles.controller;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.FileContent;
+import ru.yandex.kardomoblieapp.datafiles.service.DataFileService;
+import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(controllers = DataFileController.class, excludeAutoConfiguration = SecurityAutoConfiguration.class)
+@TestPropertySource(properties = "server.file-storage.directory=${java.io.tmpdir}/kardo-content-test")
+class DataFileControllerTest {
+
+    private static final String CONTENT_HASH = "9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08";
+
+    private static final String CONTENT_KEY = "blobs/9f/86/" + CONTENT_HASH + ".txt";
+
+    private static final String TEXT = "содержимое текстового файла";
+
+    @Value("${server.file-storage.directory}")
+    private String baseFileDirectory;
+
+    @Autowired
+    private MockMvc mvc;
+
+    @MockBean
+    private DataFileService dataFileService;
+
+    private FileContent fileContent;
+
+    private long fileId;
+
+    @BeforeEach
+    void init() {
+        fileId = 1L;
+        DataFile dataFile = DataFile.builder()
+                .id(fileId)
+                .fileName("file.mp4")
+                .fileType("video/mp4")
+                .storageKey("blobs/ab/cd/abcd.mp4")
+                .build();
+        byte[] bytes = "0123456789".getBytes(StandardCharsets.UTF_8);
+        fileContent = FileContent.stream(dataFile, new ByteArrayResource(bytes), bytes.length, 1_700_000_000_000L);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Получение статического файла, ответ кэшируется как неизменяемый, ETag строится из хэша")
+    void getContent_shouldReturnImmutableCacheHeadersAndHashETag() {
+        writeContent(false);
+
+        mvc.perform(get("/content/" + CONTENT_KEY))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("immutable")))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, containsString("max-age=31536000")))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + CONTENT_HASH + "\""))
+                .andExpect(content().bytes(TEXT.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Получение статического файла с совпадающим ETag")
+    void getContent_withMatchingETag_shouldReturnNotModified() {
+        writeContent(false);
+
+        mvc.perform(get("/content/" + CONTENT_KEY)
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"" + CONTENT_HASH + "\""))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Получение статического файла, клиент принимает gzip, отдается сжатая копия")
+    void getContent_whenClientAcceptsGzip_shouldReturnPrecompressedVariant() {
+        writeContent(true);
+
+        mvc.perform(get("/content/" + CONTENT_KEY)
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + CONTENT_HASH + "-gzip\""))
+                .andExpect(header().string(HttpHeaders.VARY, containsString(HttpHeaders.ACCEPT_ENCODING)));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Получение статического файла вне директории с содержимым")
+    void getContent_whenFileIsOutsideBlobs_shouldReturnNotFound() {
+        Path tempFile = Paths.get(baseFileDirectory, "tmp", "upload-1.tmp");
+        Files.createDirectories(tempFile.getParent());
+        Files.writeString(tempFile, TEXT);
+
+        mvc.perform(get("/content/tmp/upload-1.tmp"))
+                .andExpect(status().isNotFound());
+        mvc.perform(get("/content/blobs/../tmp/upload-1.tmp"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Скачивание файла целиком")
+    void downloadFile_shouldReturnWholeFileWithValidators() {
+        when(dataFileService.downloadFileById(fileId))
+                .thenReturn(fileContent);
+
+        mvc.perform(get("/files/{fileId}", fileId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("video/mp4"))
+                .andExpect(content().string("0123456789"))
+                .andExpect(header().string(HttpHeaders.ETAG, fileContent.eTag()))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Скачивание фрагмента файла по заголовку Range")
+    void downloadFile_withRangeHeader_shouldReturnPartialContent() {
+        when(dataFileService.downloadFileById(fileId))
+                .thenReturn(fileContent);
+
+        mvc.perform(get("/files/{fileId}", fileId)
+                        .header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(content().string("2345"));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Повторное скачивание файла с совпадающим ETag")
+    void downloadFile_withMatchingETag_shouldReturnNotModified() {
+        when(dataFileService.downloadFileById(fileId))
+                .thenReturn(fileContent);
+
+        mvc.perform(get("/files/{fileId}", fileId)
+                        .header(HttpHeaders.IF_NONE_MATCH, fileContent.eTag()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Скачивание файла из хранилища с прямыми ссылками")
+    void downloadFile_whenStorageSupportsDirectDownload_shouldRedirect() {
+        URI presignedUri = URI.create("https://storage.example.com/kardo-files/blobs/ab/cd/abcd.mp4?X-Amz-Signature=1");
+        when(dataFileService.downloadFileById(fileId))
+                .thenReturn(FileContent.redirect(fileContent.dataFile(), presignedUri));
+
+        mvc.perform(get("/files/{fileId}", fileId))
+                .andExpect(status().isFound())
+                .andExpect(header().string(HttpHeaders.LOCATION, presignedUri.toString()));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Скачивание несуществующего файла")
+    void downloadFile_whenFileNotFound_shouldReturnNotFound() {
+        when(dataFileService.downloadFileById(anyLong()))
+                .thenThrow(new NotFoundException("Файл не найден"));
+
+        mvc.perform(get("/files/{fileId}", fileId)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound());
+    }
+
+    @SneakyThrows
+    private void writeContent(boolean withCompressedVariant) {
+        Path file = Paths.get(baseFileDirectory, CONTENT_KEY);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, TEXT);
+        Path compressed = Paths.get(baseFileDirectory, CONTENT_KEY + ".gz");
+        Files.deleteIfExists(compressed);
+        if (withCompressedVariant) {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(compressed))) {
+                out.write(TEXT.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+    }
+}
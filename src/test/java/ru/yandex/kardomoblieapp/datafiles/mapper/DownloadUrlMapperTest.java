@@ -0,0 +1,74 @@
+package ru.yandex.kardomoblieapp.datafiles.mapper;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.ImageVariant;
+import ru.yandex.kardomoblieapp.datafiles.storage.BlobStore;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DownloadUrlMapperTest {
+
+    private static final String STORAGE_KEY = "blobs/ab/cd/abcd.jpg";
+
+    private BlobStore blobStore;
+
+    private DownloadUrlMapper downloadUrlMapper;
+
+    @BeforeEach
+    void init() {
+        blobStore = mock(BlobStore.class);
+        when(blobStore.getDirectDownloadUri(anyString())).thenReturn(Optional.empty());
+        downloadUrlMapper = new DownloadUrlMapper(blobStore);
+    }
+
+    @Test
+    @DisplayName("Ссылка на файл в локальном хранилище ведет на статический ресурс")
+    void toDownloadUrl_whenLocalStorage_shouldReturnContentUrl() {
+        DataFile dataFile = DataFile.builder().id(1L).storageKey(STORAGE_KEY).build();
+
+        assertThat(downloadUrlMapper.toDownloadUrl(dataFile), is("/content/" + STORAGE_KEY));
+    }
+
+    @Test
+    @DisplayName("Ссылка на файл со старым ключом ведет на потоковую отдачу файла")
+    void toDownloadUrl_whenKeyIsOutsideBlobs_shouldReturnFilesUrl() {
+        DataFile dataFile = DataFile.builder().id(1L).storageKey("abcd.jpg").build();
+
+        assertThat(downloadUrlMapper.toDownloadUrl(dataFile), is("/files/1"));
+    }
+
+    @Test
+    @DisplayName("Ссылка на файл в хранилище с прямыми ссылками")
+    void toDownloadUrl_whenStorageSupportsDirectDownload_shouldReturnDirectUrl() {
+        URI uri = URI.create("https://storage.example.com/" + STORAGE_KEY);
+        when(blobStore.getDirectDownloadUri(STORAGE_KEY)).thenReturn(Optional.of(uri));
+        DataFile dataFile = DataFile.builder().id(1L).storageKey(STORAGE_KEY).build();
+
+        assertThat(downloadUrlMapper.toDownloadUrl(dataFile), is(uri.toString()));
+    }
+
+    @Test
+    @DisplayName("Ссылки на уменьшенные копии, копии со старыми ключами не возвращаются")
+    void toVariantUrls_shouldReturnContentUrlsForBlobs() {
+        ImageVariant small = ImageVariant.builder().variant("small").storageKey("blobs/ab/cd/abcd-small.jpg").build();
+        ImageVariant legacy = ImageVariant.builder().variant("large").storageKey("abcd-large.jpg").build();
+
+        Map<String, String> urls = downloadUrlMapper.toVariantUrls(List.of(small, legacy));
+
+        assertThat(urls, is(Map.of("small", "/content/blobs/ab/cd/abcd-small.jpg")));
+        assertThat(downloadUrlMapper.toVariantUrls(null), anEmptyMap());
+    }
+}
@@ -0,0 +1,202 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.ImageVariant;
+import ru.yandex.kardomoblieapp.datafiles.repository.FileBlobRepository;
+import ru.yandex.kardomoblieapp.shared.exception.DataFileStorageException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.kardomoblieapp.TestUtils.POSTGRES_VERSION;
+
+/**
+ * Удаление файлов из хранилища выполняется только после фиксации транзакции, поэтому тесты не используют
+ * откатываемую тестовую транзакцию.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "image.thumbnails.enabled=false")
+@ActiveProfiles("test")
+class DataFileDeletionTest {
+
+    @Autowired
+    private DataFileService dataFileService;
+
+    @Autowired
+    private ThumbnailGenerator thumbnailGenerator;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${server.file-storage.directory}")
+    private String baseFileDirectory;
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_VERSION);
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Удаление файла в откаченной транзакции, файл и его сжатая копия остаются в хранилище")
+    void deleteFile_whenTransactionRolledBack_shouldKeepFile() {
+        DataFile savedFile = dataFileService.uploadFile(textFile(), 1L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            dataFileService.deleteFile(savedFile.getId());
+            status.setRollbackOnly();
+        });
+
+        assertThat(dataFileService.findDataFileById(savedFile.getId()).getId(), is(savedFile.getId()));
+        assertThat(fileBlobRepository.findById(savedFile.getContentHash()).orElseThrow().getRefCount(), is(1));
+        assertTrue(Files.exists(storedFile(savedFile.getStorageKey())));
+        assertTrue(Files.exists(storedFile(ContentCompressor.compressedKey(savedFile.getStorageKey()))));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Удаление файла, файл удаляется из хранилища только после фиксации транзакции")
+    void deleteFile_whenCommitted_shouldDeleteFileAfterCommit() {
+        DataFile savedFile = dataFileService.uploadFile(textFile(), 1L);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            dataFileService.deleteFile(savedFile.getId());
+            assertTrue(Files.exists(storedFile(savedFile.getStorageKey())));
+        });
+
+        assertFalse(Files.exists(storedFile(savedFile.getStorageKey())));
+        assertFalse(Files.exists(storedFile(ContentCompressor.compressedKey(savedFile.getStorageKey()))));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Удаление одинаковых файлов, содержимое хранится до удаления последней ссылки")
+    void deleteFile_whenSameContentUploadedTwice_shouldKeepFileUntilLastReferenceDeleted() {
+        byte[] content = ("одинаковое содержимое " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        DataFile savedFile1 = dataFileService.uploadFile(
+                new MockMultipartFile("file", "meme.txt", MediaType.TEXT_PLAIN_VALUE, content), 1L);
+        DataFile savedFile2 = dataFileService.uploadFile(
+                new MockMultipartFile("file", "repost.txt", MediaType.TEXT_PLAIN_VALUE, content), 2L);
+
+        dataFileService.deleteFile(savedFile1.getId());
+
+        assertTrue(Files.exists(storedFile(savedFile2.getStorageKey())));
+
+        dataFileService.deleteFile(savedFile2.getId());
+
+        assertFalse(Files.exists(storedFile(savedFile2.getStorageKey())));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Удаление изображения, уменьшенные копии удаляются вместе с файлом")
+    void deleteFile_whenImageHasThumbnails_shouldDeleteThumbnails() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, UUID.randomUUID().hashCode());
+        ImageIO.write(image, "png", out);
+        DataFile savedFile = dataFileService.uploadFile(
+                new MockMultipartFile("file", "image.png", MediaType.IMAGE_PNG_VALUE, out.toByteArray()), 1L);
+        thumbnailGenerator.generate(savedFile.getId());
+        List<ImageVariant> variants = transactionTemplate.execute(status ->
+                List.copyOf(dataFileService.findDataFileById(savedFile.getId()).getVariants()));
+
+        dataFileService.deleteFile(savedFile.getId());
+
+        assertThat(variants.size(), is(2));
+        for (ImageVariant variant : variants) {
+            assertFalse(Files.exists(storedFile(variant.getStorageKey())));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Загрузка нескольких файлов с ошибкой, временные файлы начатых загрузок удаляются")
+    void uploadMultipleFiles_whenOneFileFails_shouldDeleteAllTempFiles() {
+        MockMultipartFile slowFile = new MockMultipartFile("files", "slow.txt", MediaType.TEXT_PLAIN_VALUE,
+                new byte[0]) {
+            @Override
+            public InputStream getInputStream() {
+                return new ByteArrayInputStream("медленный файл".getBytes(StandardCharsets.UTF_8)) {
+                    @Override
+                    @SneakyThrows
+                    public synchronized int read(byte[] b, int off, int len) {
+                        Thread.sleep(300);
+                        return super.read(b, off, len);
+                    }
+                };
+            }
+        };
+        MockMultipartFile brokenFile = new MockMultipartFile("files", "broken.txt", MediaType.TEXT_PLAIN_VALUE,
+                new byte[0]) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                throw new IOException("Ошибка чтения файла.");
+            }
+        };
+
+        assertThrows(DataFileStorageException.class,
+                () -> dataFileService.uploadMultipleFiles(List.of(slowFile, brokenFile), 1L));
+        Thread.sleep(1500);
+
+        try (Stream<Path> tempFiles = Files.list(Paths.get(baseFileDirectory, "tmp"))) {
+            assertThat(tempFiles.filter(path -> path.getFileName().toString().startsWith("upload-")).count(), is(0L));
+        }
+    }
+
+    private MockMultipartFile textFile() {
+        byte[] content = ("строка текста " + UUID.randomUUID() + "\n").repeat(200).getBytes(StandardCharsets.UTF_8);
+        return new MockMultipartFile("file", "notes.txt", MediaType.TEXT_PLAIN_VALUE, content);
+    }
+
+    private Path storedFile(String storageKey) {
+        return Paths.get(baseFileDirectory, storageKey);
+    }
+}
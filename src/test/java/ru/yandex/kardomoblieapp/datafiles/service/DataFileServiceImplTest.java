@@ -7,6 +7,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
@@ -17,21 +18,33 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import org.testcontainers.containers.PostgreSQLContainer;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.FileContent;
+import ru.yandex.kardomoblieapp.datafiles.model.ImageVariant;
 import ru.yandex.kardomoblieapp.post.service.PostService;
 import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
 import ru.yandex.kardomoblieapp.user.model.User;
 import ru.yandex.kardomoblieapp.user.service.UserService;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
 import java.time.LocalDate;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -46,6 +59,12 @@ class DataFileServiceImplTest {
     @Autowired
     private DataFileService dataFileService;
 
+    @Value("${server.file-storage.directory}")
+    private String baseFileDirectory;
+
+    @Autowired
+    private ThumbnailGenerator thumbnailGenerator;
+
     @Autowired
     private PostService postService;
 
@@ -88,12 +107,12 @@ class DataFileServiceImplTest {
         dataFile = DataFile.builder()
                 .fileName("fileName")
                 .fileType(MediaType.IMAGE_JPEG_VALUE)
-                .filePath("filePath")
+                .storageKey("filePath")
                 .build();
         dataFile1 = DataFile.builder()
                 .fileName("fileName1")
                 .fileType(MediaType.IMAGE_JPEG_VALUE)
-                .filePath("filePath1")
+                .storageKey("filePath1")
                 .build();
 
         userId = 1L;
@@ -113,17 +132,72 @@ class DataFileServiceImplTest {
     }
 
     @Test
-    @DisplayName("Загрузка файла, путь сохранения должен содержать id пользователя")
+    @DisplayName("Загрузка файла, путь сохранения должен содержать хэш содержимого")
     @SneakyThrows
-    void uploadFile_whenSuccessful_filePathShouldContainUserId() {
+    void uploadFile_whenSuccessful_filePathShouldContainContentHash() {
         InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("test.jpg");
         MockMultipartFile file = new MockMultipartFile("file", "fileName", MediaType.IMAGE_JPEG_VALUE, inputStream);
         DataFile savedFile = dataFileService.uploadFile(file, userId);
 
         assertThat(savedFile, notNullValue());
         assertThat(savedFile.getId(), greaterThan(0L));
-        assertThat(savedFile.getFileType(), is(file.getContentType()));
-        assertTrue(savedFile.getFilePath().contains(String.valueOf(userId)));
+        assertThat(savedFile.getFileType(), is(MediaType.IMAGE_JPEG_VALUE));
+        assertTrue(savedFile.getStorageKey().contains(savedFile.getContentHash()));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Загрузка файла, файл сохраняется в директорию по префиксу хэша")
+    void uploadFile_whenSuccessful_shouldStoreFileInHashPrefixDirectory() {
+        byte[] content = "содержимое файла".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "file.txt", MediaType.TEXT_PLAIN_VALUE, content);
+
+        DataFile savedFile = dataFileService.uploadFile(file, userId);
+
+        String hash = savedFile.getContentHash();
+        Path expectedPath = Paths.get("blobs", hash.substring(0, 2), hash.substring(2, 4), hash + ".txt");
+        assertTrue(storedFile(savedFile).endsWith(expectedPath));
+        assertTrue(Files.exists(storedFile(savedFile)));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Загрузка одинаковых файлов, содержимое хранится в одном экземпляре до удаления последней ссылки")
+    void uploadFile_whenSameContentUploadedTwice_shouldShareFileUntilLastReferenceDeleted() {
+        byte[] content = "одинаковое содержимое".getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file1 = new MockMultipartFile("file", "meme.txt", MediaType.TEXT_PLAIN_VALUE, content);
+        MockMultipartFile file2 = new MockMultipartFile("file", "repost.txt", MediaType.TEXT_PLAIN_VALUE, content);
+
+        DataFile savedFile1 = dataFileService.uploadFile(file1, userId);
+        DataFile savedFile2 = dataFileService.uploadFile(file2, userId + 1);
+
+        assertThat(savedFile2.getId(), not(savedFile1.getId()));
+        assertThat(savedFile2.getStorageKey(), is(savedFile1.getStorageKey()));
+        assertThat(savedFile2.getContentHash(), is(savedFile1.getContentHash()));
+
+        dataFileService.deleteFile(savedFile1.getId());
+
+        assertTrue(Files.exists(storedFile(savedFile2)));
+        assertThat(Files.readAllBytes(storedFile(savedFile2)), is(content));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Загрузка файла, тип определяется по содержимому, сохраняются размер и хэш")
+    void uploadFile_whenClientTypeDiffers_shouldStoreSniffedTypeSizeAndHash() {
+        byte[] content = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 13, 'I', 'H', 'D', 'R'};
+        MockMultipartFile file = new MockMultipartFile("file", "image.txt", MediaType.TEXT_PLAIN_VALUE, content);
+
+        DataFile savedFile = dataFileService.uploadFile(file, userId);
+
+        assertThat(savedFile.getFileType(), is(MediaType.IMAGE_PNG_VALUE));
+        assertThat(savedFile.getFileSize(), is((long) content.length));
+        assertThat(savedFile.getContentHash(),
+                is(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content))));
+        assertThat(Files.readAllBytes(storedFile(savedFile)), is(content));
+        try (Stream<Path> tempFiles = Files.list(Paths.get(baseFileDirectory, "tmp"))) {
+            assertFalse(tempFiles.anyMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+        }
     }
 
     @Test
@@ -143,6 +217,26 @@ class DataFileServiceImplTest {
         assertThat(result.size(), is(files.size()));
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Загрузка нескольких файлов, порядок сохраняется, одинаковое содержимое сохраняется один раз")
+    void uploadMultipleFiles_whenBatchContainsDuplicates_shouldKeepOrderAndStoreContentOnce() {
+        byte[] content1 = "первый файл".getBytes(StandardCharsets.UTF_8);
+        byte[] content2 = "второй файл".getBytes(StandardCharsets.UTF_8);
+        List<MultipartFile> files = List.of(
+                new MockMultipartFile("file", "first.txt", MediaType.TEXT_PLAIN_VALUE, content1),
+                new MockMultipartFile("file", "second.txt", MediaType.TEXT_PLAIN_VALUE, content2),
+                new MockMultipartFile("file", "copy.txt", MediaType.TEXT_PLAIN_VALUE, content1));
+
+        List<DataFile> result = dataFileService.uploadMultipleFiles(files, userId);
+
+        assertThat(result.size(), is(3));
+        assertThat(result.get(0).getStorageKey(), is(result.get(2).getStorageKey()));
+        assertThat(result.get(1).getStorageKey(), not(result.get(0).getStorageKey()));
+        assertThat(Files.readAllBytes(storedFile(result.get(0))), is(content1));
+        assertThat(Files.readAllBytes(storedFile(result.get(1))), is(content2));
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("Удаление файла")
@@ -189,6 +283,30 @@ class DataFileServiceImplTest {
         assertThat(ex.getMessage(), is("Файл с id '" + unknownId + "' не найден."));
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Получение файла для потоковой передачи")
+    void downloadFileById_whenFileExists_shouldReturnFileContent() {
+        InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("test.jpg");
+        MockMultipartFile file = new MockMultipartFile("file", "fileName", MediaType.IMAGE_JPEG_VALUE, inputStream);
+        DataFile savedFile = dataFileService.uploadFile(file, userId);
+
+        FileContent result = dataFileService.downloadFileById(savedFile.getId());
+
+        assertThat(result.dataFile().getId(), is(savedFile.getId()));
+        assertThat(result.contentLength(), is(file.getSize()));
+        assertThat(result.resource().contentLength(), is(file.getSize()));
+        assertThat(result.eTag(), is(dataFileService.downloadFileById(savedFile.getId()).eTag()));
+    }
+
+    @Test
+    @DisplayName("Получение файла для потоковой передачи, файл не существует")
+    void downloadFileById_whenFileNotExists_shouldThrowNotFoundException() {
+        NotFoundException ex = assertThrows(NotFoundException.class,
+                () -> dataFileService.downloadFileById(unknownId));
+        assertThat(ex.getMessage(), is("Файл с id '" + unknownId + "' не найден."));
+    }
+
     @Test
     @SneakyThrows
     @DisplayName("Получение файла по идентификатору")
@@ -208,6 +326,48 @@ class DataFileServiceImplTest {
         assertThat(ex.getMessage(), is("Файл с id '" + unknownId + "' не найден."));
     }
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Создание уменьшенных копий изображения")
+    void generateThumbnails_whenImageUploaded_shouldStoreVariantsSmallerThanOriginal() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB), "png", out);
+        MockMultipartFile image = new MockMultipartFile("file", "image.png", MediaType.IMAGE_PNG_VALUE,
+                out.toByteArray());
+        DataFile savedFile = dataFileService.uploadFile(image, userId);
+
+        thumbnailGenerator.generate(savedFile.getId());
+
+        List<ImageVariant> variants = dataFileService.findDataFileById(savedFile.getId()).getVariants();
+        assertThat(variants.size(), is(2));
+        assertThat(variants.get(0).getVariant(), is("medium"));
+        assertThat(variants.get(0).getWidth(), is(320));
+        assertThat(variants.get(0).getHeight(), is(240));
+        assertThat(variants.get(1).getVariant(), is("small"));
+        assertThat(variants.get(1).getWidth(), is(64));
+        assertThat(variants.get(1).getHeight(), is(48));
+        for (ImageVariant variant : variants) {
+            Path variantFile = Paths.get(baseFileDirectory, variant.getStorageKey());
+            assertThat(ImageIO.read(variantFile.toFile()).getWidth(), is(variant.getWidth()));
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Загрузка текстового файла, рядом сохраняется сжатая копия")
+    void uploadFile_whenTextFile_shouldStoreCompressedVariant() {
+        byte[] content = "строка текста\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "notes.txt", MediaType.TEXT_PLAIN_VALUE, content);
+
+        DataFile savedFile = dataFileService.uploadFile(file, userId);
+
+        Path compressed = Paths.get(baseFileDirectory, savedFile.getStorageKey() + ".gz");
+        assertTrue(Files.exists(compressed));
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(compressed))) {
+            assertThat(in.readAllBytes(), is(content));
+        }
+    }
+
     @Test
     @DisplayName("Сохранение нескольких файлов")
     @SneakyThrows
@@ -233,7 +393,11 @@ class DataFileServiceImplTest {
         assertThrows(NotFoundException.class, () -> dataFileService.findDataFileById(savedFile1.getId()));
         assertThrows(NotFoundException.class, () -> dataFileService.findDataFileById(savedFile2.getId()));
 
-        assertFalse(Files.exists(Paths.get(savedFile1.getFilePath())));
-        assertFalse(Files.exists(Paths.get(savedFile2.getFilePath())));
+        assertFalse(Files.exists(storedFile(savedFile1)));
+        assertFalse(Files.exists(storedFile(savedFile2)));
+    }
+
+    private Path storedFile(DataFile dataFile) {
+        return Paths.get(baseFileDirectory, dataFile.getStorageKey());
     }
 }
\ No newline at end of file
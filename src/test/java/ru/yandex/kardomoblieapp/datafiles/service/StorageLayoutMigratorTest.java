@@ -0,0 +1,140 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.model.ImageVariant;
+import ru.yandex.kardomoblieapp.datafiles.model.ThumbnailSize;
+import ru.yandex.kardomoblieapp.datafiles.repository.DataFileRepository;
+import ru.yandex.kardomoblieapp.datafiles.repository.FileBlobRepository;
+import ru.yandex.kardomoblieapp.datafiles.storage.BlobStore;
+import ru.yandex.kardomoblieapp.datafiles.storage.FlatStorageLayout;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.kardomoblieapp.TestUtils.POSTGRES_VERSION;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "image.thumbnails.enabled=false")
+@ActiveProfiles("test")
+class StorageLayoutMigratorTest {
+
+    @Autowired
+    private DataFileService dataFileService;
+
+    @Autowired
+    private ThumbnailGenerator thumbnailGenerator;
+
+    @Autowired
+    private DataFileRepository dataFileRepository;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${server.file-storage.directory}")
+    private String baseFileDirectory;
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_VERSION);
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Перенос файлов в другое расположение, уменьшенные копии переносятся вместе с изображением")
+    void migrateFiles_whenImageHasThumbnails_shouldMoveThumbnailsAndUpdateVariants() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BufferedImage image = new BufferedImage(800, 600, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, UUID.randomUUID().hashCode());
+        ImageIO.write(image, "png", out);
+        DataFile savedFile = dataFileService.uploadFile(
+                new MockMultipartFile("file", "image.png", MediaType.IMAGE_PNG_VALUE, out.toByteArray()), 1L);
+        thumbnailGenerator.generate(savedFile.getId());
+        String oldKey = savedFile.getStorageKey();
+        String newKey = new FlatStorageLayout().resolve(savedFile.getContentHash(), "png");
+
+        migrator().migrateFiles();
+
+        List<ImageVariant> variants = transactionTemplate.execute(status ->
+                List.copyOf(dataFileService.findDataFileById(savedFile.getId()).getVariants()));
+        assertThat(dataFileService.findDataFileById(savedFile.getId()).getStorageKey(), is(newKey));
+        assertTrue(Files.exists(storedFile(newKey)));
+        assertFalse(Files.exists(storedFile(oldKey)));
+        assertThat(variants.size(), is(2));
+        for (ImageVariant variant : variants) {
+            ThumbnailSize size = ThumbnailSize.valueOf(variant.getVariant().toUpperCase());
+            assertThat(variant.getStorageKey(), is(ThumbnailGenerator.variantKey(newKey, size)));
+            assertTrue(Files.exists(storedFile(variant.getStorageKey())));
+            assertFalse(Files.exists(storedFile(ThumbnailGenerator.variantKey(oldKey, size))));
+        }
+    }
+
+    @Test
+    @DisplayName("Перенос файлов в другое расположение, сжатая копия переносится вместе с файлом")
+    void migrateFiles_whenFileHasCompressedCopy_shouldMoveCompressedCopy() {
+        byte[] content = ("строка текста " + UUID.randomUUID() + "\n").repeat(200).getBytes(StandardCharsets.UTF_8);
+        DataFile savedFile = dataFileService.uploadFile(
+                new MockMultipartFile("file", "notes.txt", MediaType.TEXT_PLAIN_VALUE, content), 1L);
+        String oldKey = savedFile.getStorageKey();
+        String newKey = new FlatStorageLayout().resolve(savedFile.getContentHash(), "txt");
+
+        migrator().migrateFiles();
+
+        assertThat(dataFileService.findDataFileById(savedFile.getId()).getStorageKey(), is(newKey));
+        assertTrue(Files.exists(storedFile(ContentCompressor.compressedKey(newKey))));
+        assertFalse(Files.exists(storedFile(ContentCompressor.compressedKey(oldKey))));
+    }
+
+    private StorageLayoutMigrator migrator() {
+        return new StorageLayoutMigrator(fileBlobRepository, dataFileRepository, new FlatStorageLayout(), blobStore,
+                transactionTemplate);
+    }
+
+    private Path storedFile(String storageKey) {
+        return Paths.get(baseFileDirectory, storageKey);
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.kardomoblieapp.datafiles.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.datafiles.repository.DataFileRepository;
+import ru.yandex.kardomoblieapp.datafiles.repository.FileBlobRepository;
+import ru.yandex.kardomoblieapp.datafiles.service.StorageReconciler.ReconciliationResult;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.kardomoblieapp.TestUtils.POSTGRES_VERSION;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "server.file-storage.reconciliation.enabled=true",
+        "server.file-storage.reconciliation.delete-orphans=true",
+        "server.file-storage.reconciliation.grace-period=PT1H",
+        "server.file-storage.reconciliation.max-files-per-second=0"
+})
+@ActiveProfiles("test")
+@Transactional
+class StorageReconcilerTest {
+
+    @Autowired
+    private StorageReconciler storageReconciler;
+
+    @Autowired
+    private DataFileService dataFileService;
+
+    @Autowired
+    private DataFileRepository dataFileRepository;
+
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @Value("${server.file-storage.directory}")
+    private String baseFileDirectory;
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_VERSION);
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Сверка хранилища, старый файл без записи в БД удаляется, новый остается")
+    void reconcile_whenOrphanFilesExist_shouldDeleteOnlyFilesOlderThanGracePeriod() {
+        Path oldOrphan = writeFile("blobs/orphan-" + UUID.randomUUID() + ".txt");
+        Files.setLastModifiedTime(oldOrphan, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        Path freshOrphan = writeFile("blobs/orphan-" + UUID.randomUUID() + ".txt");
+
+        try {
+            ReconciliationResult result = storageReconciler.reconcile();
+
+            assertThat(result.orphanFiles(), greaterThanOrEqualTo(1L));
+            assertFalse(Files.exists(oldOrphan));
+            assertTrue(Files.exists(freshOrphan));
+        } finally {
+            Files.deleteIfExists(freshOrphan);
+        }
+    }
+
+    @Test
+    @DisplayName("Сверка хранилища, запись о файле без файла в хранилище попадает в отчет")
+    void reconcile_whenDataFileHasNoContent_shouldReportMissingFile() {
+        dataFileRepository.save(DataFile.builder()
+                .fileName("missing.txt")
+                .fileType(MediaType.TEXT_PLAIN_VALUE)
+                .storageKey("blobs/missing-" + UUID.randomUUID() + ".txt")
+                .build());
+
+        ReconciliationResult result = storageReconciler.reconcile();
+
+        assertThat(result.missingFiles(), greaterThanOrEqualTo(1L));
+    }
+
+    @Test
+    @DisplayName("Сверка хранилища, неверный счетчик ссылок исправляется по количеству записей о файлах")
+    void reconcile_whenRefCountIsStale_shouldFixRefCount() {
+        byte[] content = ("содержимое " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "file.txt", MediaType.TEXT_PLAIN_VALUE, content);
+        DataFile savedFile = dataFileService.uploadFile(file, 1L);
+        fileBlobRepository.acquire(savedFile.getContentHash());
+
+        ReconciliationResult result = storageReconciler.reconcile();
+
+        assertThat(result.staleRefCounts(), greaterThanOrEqualTo(1L));
+        assertThat(fileBlobRepository.findById(savedFile.getContentHash()).orElseThrow().getRefCount(), is(1));
+        assertTrue(Files.exists(Paths.get(baseFileDirectory, savedFile.getStorageKey())));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("Сверка хранилища, содержимое без ссылок удаляется из хранилища после фиксации")
+    void reconcile_whenBlobHasNoReferences_shouldDeleteBlobAfterCommit() {
+        byte[] content = ("содержимое " + UUID.randomUUID()).getBytes(StandardCharsets.UTF_8);
+        MockMultipartFile file = new MockMultipartFile("file", "file.txt", MediaType.TEXT_PLAIN_VALUE, content);
+        DataFile savedFile = dataFileService.uploadFile(file, 1L);
+        dataFileRepository.deleteById(savedFile.getId());
+
+        ReconciliationResult result = storageReconciler.reconcile();
+
+        assertThat(result.staleRefCounts(), greaterThanOrEqualTo(1L));
+        assertTrue(fileBlobRepository.findById(savedFile.getContentHash()).isEmpty());
+        assertFalse(Files.exists(Paths.get(baseFileDirectory, savedFile.getStorageKey())));
+    }
+
+    @SneakyThrows
+    private Path writeFile(String key) {
+        Path path = Paths.get(baseFileDirectory, key);
+        Files.createDirectories(path.getParent());
+        return Files.writeString(path, "потерянный файл");
+    }
+}
@@ -0,0 +1,172 @@
+package ru.yandex.kardomoblieapp.datafiles.storage;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import org.testcontainers.containers.MinIOContainer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.kardomoblieapp.TestUtils.MINIO_VERSION;
+
+class S3BlobStoreTest {
+
+    private static final String BUCKET = "kardo-files";
+
+    private static final long PART_SIZE = 5 * 1024 * 1024;
+
+    private static final MinIOContainer minio = new MinIOContainer(MINIO_VERSION);
+
+    private S3BlobStore blobStore;
+
+    @TempDir
+    private Path tempDir;
+
+    @BeforeAll
+    static void beforeAll() {
+        minio.start();
+        try (S3Client s3Client = S3Client.builder()
+                .endpointOverride(URI.create(minio.getS3URL()))
+                .region(Region.US_EAST_1)
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(minio.getUserName(), minio.getPassword())))
+                .forcePathStyle(true)
+                .build()) {
+            s3Client.createBucket(request -> request.bucket(BUCKET));
+        }
+    }
+
+    @AfterAll
+    static void afterAll() {
+        minio.stop();
+    }
+
+    @BeforeEach
+    void init() {
+        blobStore = new S3BlobStore();
+        ReflectionTestUtils.setField(blobStore, "endpoint", minio.getS3URL());
+        ReflectionTestUtils.setField(blobStore, "region", "us-east-1");
+        ReflectionTestUtils.setField(blobStore, "bucket", BUCKET);
+        ReflectionTestUtils.setField(blobStore, "accessKey", minio.getUserName());
+        ReflectionTestUtils.setField(blobStore, "secretKey", minio.getPassword());
+        ReflectionTestUtils.setField(blobStore, "partSize", PART_SIZE);
+        ReflectionTestUtils.setField(blobStore, "maxObjectSize", DataSize.ofMegabytes(10));
+        ReflectionTestUtils.setField(blobStore, "uploadThreads", 4);
+        ReflectionTestUtils.setField(blobStore, "presignedUrlTtl", Duration.ofMinutes(5));
+        blobStore.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        blobStore.close();
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Сохранение и чтение небольшого файла")
+    void put_whenFileSmallerThanPart_shouldStoreContent() {
+        byte[] content = "содержимое файла".getBytes(StandardCharsets.UTF_8);
+        Path source = Files.write(tempDir.resolve("small.txt"), content);
+
+        blobStore.put("blobs/ab/cd/small.txt", source, "text/plain");
+
+        assertThat(blobStore.getResource("blobs/ab/cd/small.txt").getContentAsByteArray(), is(content));
+        assertThat(blobStore.getResource("blobs/ab/cd/small.txt").contentLength(), is((long) content.length));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Сохранение файла частями")
+    void put_whenFileLargerThanPart_shouldUploadInPartsAndStoreContent() {
+        byte[] content = new byte[(int) (PART_SIZE * 2 + 1024)];
+        new Random(42).nextBytes(content);
+        Path source = Files.write(tempDir.resolve("large.bin"), content);
+
+        blobStore.put("blobs/ef/01/large.bin", source, "application/octet-stream");
+
+        assertThat(blobStore.getResource("blobs/ef/01/large.bin").getContentAsByteArray(), is(content));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Скачивание файла по подписанной ссылке")
+    void getDirectDownloadUri_shouldReturnWorkingPresignedUri() {
+        byte[] content = "файл по ссылке".getBytes(StandardCharsets.UTF_8);
+        blobStore.put("blobs/12/34/link.txt", Files.write(tempDir.resolve("link.txt"), content), "text/plain");
+
+        URI uri = blobStore.getDirectDownloadUri("blobs/12/34/link.txt").orElseThrow();
+        HttpResponse<byte[]> response = HttpClient.newHttpClient()
+                .send(HttpRequest.newBuilder(uri).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertThat(response.statusCode(), is(200));
+        assertThat(response.body(), is(content));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Перемещение и удаление файла")
+    void moveAndDelete_shouldChangeKeyAndRemoveFile() {
+        byte[] content = "перемещаемый файл".getBytes(StandardCharsets.UTF_8);
+        blobStore.put("blobs/old.txt", Files.write(tempDir.resolve("old.txt"), content), "text/plain");
+
+        blobStore.move("blobs/old.txt", "blobs/56/78/new.txt");
+
+        assertFalse(blobStore.getResource("blobs/old.txt").exists());
+        assertThat(blobStore.getResource("blobs/56/78/new.txt").getContentAsByteArray(), is(content));
+
+        blobStore.delete("blobs/56/78/new.txt");
+
+        assertFalse(blobStore.getResource("blobs/56/78/new.txt").exists());
+        assertTrue(blobStore.getDirectDownloadUri("blobs/56/78/new.txt").isPresent());
+    }
+
+    @Test
+    @DisplayName("Запуск с размером части меньше 5 МБ")
+    void init_whenPartSizeTooSmall_shouldThrowIllegalStateException() {
+        S3BlobStore store = new S3BlobStore();
+        ReflectionTestUtils.setField(store, "partSize", DataSize.ofMegabytes(1).toBytes());
+        ReflectionTestUtils.setField(store, "maxObjectSize", DataSize.ofMegabytes(10));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, store::init);
+
+        assertThat(ex.getMessage(), is("Размер части multipart загрузки должен быть от 5242880 до 5368709120 байт, "
+                + "указано: 1048576."));
+    }
+
+    @Test
+    @DisplayName("Запуск с размером части, при котором файл максимального размера не укладывается в 10 000 частей")
+    void init_whenTooManyPartsRequired_shouldThrowIllegalStateException() {
+        S3BlobStore store = new S3BlobStore();
+        ReflectionTestUtils.setField(store, "partSize", PART_SIZE);
+        ReflectionTestUtils.setField(store, "maxObjectSize", DataSize.ofGigabytes(100));
+
+        IllegalStateException ex = assertThrows(IllegalStateException.class, store::init);
+
+        assertThat(ex.getMessage(), is("Файл размером 107374182400 байт при размере части 5242880 байт требует "
+                + "20480 частей, допустимо не больше 10000."));
+    }
+}
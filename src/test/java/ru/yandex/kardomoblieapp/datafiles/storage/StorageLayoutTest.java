@@ -0,0 +1,36 @@
+package ru.yandex.kardomoblieapp.datafiles.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class StorageLayoutTest {
+
+    private static final String HASH = "abcdef0123456789";
+
+    @Test
+    @DisplayName("Путь файла с расширением в расположении по префиксу хэша")
+    void resolve_whenHashPrefixLayoutAndExtensionPresent_shouldAppendExtension() {
+        assertThat(new HashPrefixStorageLayout().resolve(HASH, "jpg"), is("blobs/ab/cd/abcdef0123456789.jpg"));
+    }
+
+    @Test
+    @DisplayName("Путь файла без расширения в расположении по префиксу хэша не заканчивается точкой")
+    void resolve_whenHashPrefixLayoutAndExtensionEmpty_shouldNotAppendDot() {
+        assertThat(new HashPrefixStorageLayout().resolve(HASH, ""), is("blobs/ab/cd/abcdef0123456789"));
+    }
+
+    @Test
+    @DisplayName("Путь файла с расширением в плоском расположении")
+    void resolve_whenFlatLayoutAndExtensionPresent_shouldAppendExtension() {
+        assertThat(new FlatStorageLayout().resolve(HASH, "jpg"), is("blobs/abcdef0123456789.jpg"));
+    }
+
+    @Test
+    @DisplayName("Путь файла без расширения в плоском расположении не заканчивается точкой")
+    void resolve_whenFlatLayoutAndExtensionEmpty_shouldNotAppendDot() {
+        assertThat(new FlatStorageLayout().resolve(HASH, ""), is("blobs/abcdef0123456789"));
+    }
+}
@@ -19,14 +19,19 @@ import ru.yandex.kardomoblieapp.event.dto.NewSubEventRequest;
 import ru.yandex.kardomoblieapp.event.model.Event;
 import ru.yandex.kardomoblieapp.event.model.EventType;
 import ru.yandex.kardomoblieapp.shared.exception.IncorrectEventDatesException;
+import ru.yandex.kardomoblieapp.shared.exception.InvalidCursorException;
 import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.shared.pagination.PageCursor;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -344,6 +349,80 @@ class EventServiceImplTest {
         assertThat(events.get(0).getId(), is(secondEvent.getId()));
     }
 
+    @Test
+    @DisplayName("Поиск мероприятий по курсору, сортировка по умолчанию")
+    void searchEvents_whenPagingByCursorWithDefaultSort_shouldReturnAllEventsOnce() {
+        createEventsForPaging();
+
+        assertCursorPagesMatchSinglePage(EventSearchFilter.builder()
+                .types(List.of(EventType.VIDEO_CONTEST))
+                .build());
+    }
+
+    @Test
+    @DisplayName("Поиск мероприятий по курсору, сортировка по дате старта")
+    void searchEvents_whenPagingByCursorOrderByEventStart_shouldReturnAllEventsOnce() {
+        createEventsForPaging();
+
+        assertCursorPagesMatchSinglePage(EventSearchFilter.builder()
+                .types(List.of(EventType.VIDEO_CONTEST))
+                .sort(EventSort.EVENT_START)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Поиск мероприятий по курсору, сортировка по призу")
+    void searchEvents_whenPagingByCursorOrderByPrize_shouldReturnAllEventsOnce() {
+        createEventsForPaging();
+
+        assertCursorPagesMatchSinglePage(EventSearchFilter.builder()
+                .types(List.of(EventType.VIDEO_CONTEST))
+                .sort(EventSort.PRIZE)
+                .build());
+    }
+
+    @Test
+    @DisplayName("Поиск мероприятий по некорректному курсору")
+    void searchEvents_whenCursorIsInvalid_shouldThrowInvalidCursorException() {
+        EventSearchFilter filter = EventSearchFilter.builder()
+                .sort(EventSort.EVENT_START)
+                .build();
+        String cursor = PageCursor.encode("not a date", 1);
+
+        InvalidCursorException ex = assertThrows(InvalidCursorException.class,
+                () -> eventService.searchEvents(filter, cursor, 0, 2));
+
+        assertThat(ex.getMessage(), is("Некорректное значение курсора 'not a date'."));
+    }
+
+    /**
+     * Мероприятия с совпадающими датой старта и призом, чтобы на границе страниц порядок определялся
+     * идентификатором.
+     */
+    private void createEventsForPaging() {
+        for (int i = 0; i < 5; i++) {
+            NewEventRequest request = createNewEventRequest(i);
+            request.setEventStart(request.getEventStart().plusDays(i / 2));
+            request.setPrize(1000 * (i % 2));
+            eventService.createEvent(request);
+        }
+    }
+
+    private void assertCursorPagesMatchSinglePage(EventSearchFilter filter) {
+        List<Long> expectedIds = eventService.searchEvents(filter, 0, 100).stream()
+                .map(Event::getId)
+                .toList();
+        List<Long> pagedIds = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<Event> page = eventService.searchEvents(filter, cursor, 0, 2);
+            page.content().forEach(event -> pagedIds.add(event.getId()));
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(expectedIds.size(), greaterThanOrEqualTo(5));
+        assertThat(pagedIds, is(expectedIds));
+    }
 
     private NewEventRequest createNewEventRequest(int id) {
         return NewEventRequest.builder()
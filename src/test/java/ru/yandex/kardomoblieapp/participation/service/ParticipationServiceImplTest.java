@@ -311,7 +311,7 @@ class ParticipationServiceImplTest {
                 .linkToContestFile("new link to doc")
                 .build();
 
-        Participation result = participationService.updateParticipation(participation.getId(), updateRequest, user.getUsername());
+        Participation result = participationService.updateParticipation(participation.getId(), updateRequest, user.getId(), user.getRole());
 
         assertThat(result, notNullValue());
         assertThat(result.getId(), is(participation.getId()));
@@ -327,32 +327,11 @@ class ParticipationServiceImplTest {
                 .build();
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> participationService.updateParticipation(unknownId, updateRequest, user.getUsername()));
+                () -> participationService.updateParticipation(unknownId, updateRequest, user.getId(), user.getRole()));
 
         assertThat(ex.getLocalizedMessage(), is("Заявка на участие с id '" + unknownId + "' не найдена."));
     }
 
-    @Test
-    @DisplayName("Обновление заявки, пользователь не найден")
-    void updateParticipation_whenUserNotFound_shouldThrowNotFoundException() {
-        ParticipationRequest participationRequest = ParticipationRequest.builder()
-                .overview("overview")
-                .name("new username")
-                .type(ParticipantType.PARTICIPANT)
-                .linkToContestFile("link to doc")
-                .build();
-        Participation participation = participationService.addParticipation(participationRequest, event1.getId(), user.getId());
-        ParticipationUpdateRequest updateRequest = ParticipationUpdateRequest.builder()
-                .linkToContestFile("new link to doc")
-                .build();
-        String unknownUsername = "unknownUsername";
-
-        NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> participationService.updateParticipation(participation.getId(), updateRequest, unknownUsername));
-
-        assertThat(ex.getLocalizedMessage(), is("Пользователь с именем '" + unknownUsername + "' не найден."));
-    }
-
     @Test
     @DisplayName("Обновление заявки, пользователь не имеет прав на редактирование")
     void updateParticipation_whenUserIsNotParticipationAuthor_shouldThrowNotAuthorizedException() {
@@ -368,7 +347,7 @@ class ParticipationServiceImplTest {
                 .build();
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
-                () -> participationService.updateParticipation(participation.getId(), updateRequest, judge.getUsername()));
+                () -> participationService.updateParticipation(participation.getId(), updateRequest, judge.getId(), judge.getRole()));
 
         assertThat(ex.getLocalizedMessage(), is("Пользователь не имеет прав на редактирование заявки!"));
     }
@@ -384,7 +363,7 @@ class ParticipationServiceImplTest {
                 .build();
         Participation participation = participationService.addParticipation(participationRequest, event1.getId(), user.getId());
 
-        participationService.deleteParticipation(participation.getId(), user.getUsername());
+        participationService.deleteParticipation(participation.getId(), user.getId(), user.getRole());
 
         NotFoundException ex = assertThrows(NotFoundException.class,
                 () -> participationService.findParticipationById(participation.getId()));
@@ -396,29 +375,11 @@ class ParticipationServiceImplTest {
     @DisplayName("Удаление заявки, заявка не найдена")
     void deleteParticipation_whenParticipationNotFound_shouldThrowNotFoundException() {
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> participationService.deleteParticipation(unknownId, user.getUsername()));
+                () -> participationService.deleteParticipation(unknownId, user.getId(), user.getRole()));
 
         assertThat(ex.getLocalizedMessage(), is("Заявка на участие с id '" + unknownId + "' не найдена."));
     }
 
-    @Test
-    @DisplayName("Удаление заявки, пользователь не найден")
-    void deleteParticipation_whenUserNotFound_shouldThrowNotFoundException() {
-        ParticipationRequest participationRequest = ParticipationRequest.builder()
-                .overview("overview")
-                .name("new username")
-                .type(ParticipantType.PARTICIPANT)
-                .linkToContestFile("link to doc")
-                .build();
-        Participation participation = participationService.addParticipation(participationRequest, event1.getId(), user.getId());
-        String unknownUsername = "unknownUsername";
-
-        NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> participationService.deleteParticipation(participation.getId(), unknownUsername));
-
-        assertThat(ex.getLocalizedMessage(), is("Пользователь с именем '" + unknownUsername + "' не найден."));
-    }
-
     @Test
     @DisplayName("Удаление заявки, пользователь не имеет прав на удаление заявки")
     void deleteParticipation_whenUserNotAuthorizedToDelete_shouldThrowNotAuthorizedException() {
@@ -431,7 +392,7 @@ class ParticipationServiceImplTest {
         Participation participation = participationService.addParticipation(participationRequest, event1.getId(), user.getId());
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
-                () -> participationService.deleteParticipation(participation.getId(), judge.getUsername()));
+                () -> participationService.deleteParticipation(participation.getId(), judge.getId(), judge.getRole()));
 
         assertThat(ex.getLocalizedMessage(), is("Пользователь не имеет прав на редактирование заявки!"));
     }
@@ -581,7 +542,7 @@ class ParticipationServiceImplTest {
                 .scoreType3(5)
                 .build();
         participationService.changeParticipationStatus(participation.getId(), ParticipationStatus.APPROVED);
-        Participation ratedParticipation = participationService.rateParticipation(participation.getId(), score, judge.getUsername());
+        Participation ratedParticipation = participationService.rateParticipation(participation.getId(), score, judge.getId());
 
 
         assertThat(ratedParticipation.getId(), is(participation.getId()));
@@ -612,7 +573,7 @@ class ParticipationServiceImplTest {
                 .scoreType3(5)
                 .build();
         participationService.changeParticipationStatus(participation.getId(), ParticipationStatus.APPROVED);
-        Participation ratedParticipation = participationService.rateParticipation(participation.getId(), score, judge.getUsername());
+        Participation ratedParticipation = participationService.rateParticipation(participation.getId(), score, judge.getId());
 
 
         assertThat(ratedParticipation.getAvgScore(), closeTo(5.33, 0.1));
@@ -643,7 +604,7 @@ class ParticipationServiceImplTest {
                 .build();
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
-                () -> participationService.rateParticipation(participation.getId(), score, judge.getUsername()));
+                () -> participationService.rateParticipation(participation.getId(), score, judge.getId()));
 
         assertThat(ex.getLocalizedMessage(), is("Пользователь с id '" + judge.getId() + "' не может судить " +
                 "мероприятие с id '" + participation.getEvent().getId() + "'."));
@@ -667,7 +628,7 @@ class ParticipationServiceImplTest {
                 .build();
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
-                () -> participationService.rateParticipation(participation.getId(), score, user.getUsername()));
+                () -> participationService.rateParticipation(participation.getId(), score, user.getId()));
 
         assertThat(ex.getLocalizedMessage(), is("Пользователь с id '" + user.getId() + "' не может судить " +
                 "мероприятие с id '" + participation.getEvent().getId() + "'."));
@@ -684,34 +645,11 @@ class ParticipationServiceImplTest {
 
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> participationService.rateParticipation(unknownId, score, user.getUsername()));
+                () -> participationService.rateParticipation(unknownId, score, user.getId()));
 
         assertThat(ex.getLocalizedMessage(), is("Заявка на участие с id '" + unknownId + "' не найдена."));
     }
 
-    @Test
-    @DisplayName("Оценка заявки, пользователь не найден")
-    void rateParticipation_whenUserNotFound_shouldThrowNotFoundException() {
-        ParticipationRequest participationRequest = ParticipationRequest.builder()
-                .overview("overview")
-                .name("new username")
-                .type(ParticipantType.PARTICIPANT)
-                .linkToContestFile("link to doc")
-                .build();
-        Participation participation = participationService.addParticipation(participationRequest, event1.getId(), user.getId());
-        Score score = Score.builder()
-                .scoreType1(2)
-                .scoreType2(9)
-                .scoreType3(5)
-                .build();
-        String unknownUsername = "unknownUsername";
-
-        NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> participationService.rateParticipation(participation.getId(), score, unknownUsername));
-
-        assertThat(ex.getLocalizedMessage(), is("Пользователь с именем '" + unknownUsername + "' не найден."));
-    }
-
     private NewEventRequest createRequest(int id) {
         return NewEventRequest.builder()
                 .activityId(4)
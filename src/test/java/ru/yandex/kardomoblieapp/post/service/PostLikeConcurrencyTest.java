@@ -0,0 +1,119 @@
+package ru.yandex.kardomoblieapp.post.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.yandex.kardomoblieapp.post.model.Post;
+import ru.yandex.kardomoblieapp.post.repository.PostRepository;
+import ru.yandex.kardomoblieapp.user.model.User;
+import ru.yandex.kardomoblieapp.user.service.UserService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static ru.yandex.kardomoblieapp.TestUtils.POSTGRES_VERSION;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class PostLikeConcurrencyTest {
+
+    private static final int USERS = 20;
+
+    private static final int TOGGLES_PER_USER = 3;
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_VERSION);
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Test
+    @DisplayName("Одновременное добавление и удаление лайков поста несколькими пользователями")
+    @SneakyThrows
+    void addLikeToPost_whenUsersToggleLikesConcurrently_shouldKeepLikesCountConsistent() {
+        final List<User> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(userService.createUser(User.builder()
+                    .name("Имя")
+                    .username("concurrent" + i)
+                    .secondName("Отчество")
+                    .surname("Фамилия")
+                    .email("concurrent" + i + "@mail.ru")
+                    .password("password")
+                    .dateOfBirth(LocalDate.of(1990, 12, 12))
+                    .build()));
+        }
+        final Post post = postRepository.save(Post.builder()
+                .author(users.get(0))
+                .title("post content")
+                .build());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(USERS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> results = new ArrayList<>();
+        for (User user : users) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < TOGGLES_PER_USER; i++) {
+                    postService.addLikeToPost(user.getId(), post.getId());
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        Long likes = jdbcTemplate.queryForObject("SELECT likes FROM posts WHERE post_id = ?", Long.class,
+                post.getId());
+        Long storedLikes = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM post_likes WHERE post_id = ?",
+                Long.class, post.getId());
+
+        assertThat(likes, is((long) USERS));
+        assertThat(storedLikes, is((long) USERS));
+    }
+}
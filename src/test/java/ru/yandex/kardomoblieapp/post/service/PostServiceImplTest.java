@@ -1,7 +1,11 @@
 package ru.yandex.kardomoblieapp.post.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import lombok.SneakyThrows;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
@@ -22,8 +27,10 @@ import ru.yandex.kardomoblieapp.post.model.Comment;
 import ru.yandex.kardomoblieapp.post.model.Post;
 import ru.yandex.kardomoblieapp.post.model.PostSort;
 import ru.yandex.kardomoblieapp.post.model.PostWithLike;
+import ru.yandex.kardomoblieapp.post.repository.PostRepository;
 import ru.yandex.kardomoblieapp.shared.exception.NotAuthorizedException;
 import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
 import ru.yandex.kardomoblieapp.user.model.User;
 import ru.yandex.kardomoblieapp.user.service.UserService;
 
@@ -31,13 +38,17 @@ import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -54,6 +65,15 @@ class PostServiceImplTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private PostViewCounter postViewCounter;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_VERSION);
 
     private Post post;
@@ -64,8 +84,6 @@ class PostServiceImplTest {
 
     private String content;
 
-    String unknownUsername;
-
     long unknownId;
 
     private MockMultipartFile file;
@@ -111,7 +129,6 @@ class PostServiceImplTest {
                 .build();
         savedUser2 = userService.createUser(user2);
         content = "post content";
-        unknownUsername = "unknownUsername";
         unknownId = 9999L;
         InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("test.jpg");
         file = new MockMultipartFile("file", "fileName", MediaType.IMAGE_JPEG_VALUE, inputStream);
@@ -120,7 +137,7 @@ class PostServiceImplTest {
     @Test
     @DisplayName("Создание поста с прикрепленными файлами")
     void createPost_whenFilesNotNull_shouldCreatePostWithFiles() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
 
         assertThat(savedPost, notNullValue());
         assertThat(savedPost.getId(), greaterThan(0L));
@@ -137,18 +154,18 @@ class PostServiceImplTest {
     @DisplayName("Создание поста, пользователь не найден")
     void createPost_whenUserNotFound_shouldThrowNotFoundException() {
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.createPost(unknownUsername, file, content));
+                () -> postService.createPost(unknownId, file, content));
 
-        assertThat(ex.getMessage(), is("Пользователь с именем '" + unknownUsername + "' не найден."));
+        assertThat(ex.getMessage(), is("Пользователь с id '" + unknownId + "' не найден."));
     }
 
     @Test
     @DisplayName("Обновление текста поста")
     void updatePost_withoutNewFile_shouldUpdateOnlyContent() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
 
         String updatedContent = "updated content";
-        Post updatePost = postService.updatePost(savedUser.getUsername(), savedPost.getId(), null, updatedContent);
+        Post updatePost = postService.updatePost(savedUser.getId(), savedPost.getId(), null, updatedContent);
 
         assertThat(updatePost, notNullValue());
         assertThat(updatePost.getId(), is(savedPost.getId()));
@@ -163,9 +180,9 @@ class PostServiceImplTest {
     void updatePost_whenFileNotNull_shouldReplaceOldFile() {
         InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("test.jpg");
         MultipartFile newFile = new MockMultipartFile("file", "new fileName", MediaType.IMAGE_JPEG_VALUE, inputStream);
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
 
-        Post updatePost = postService.updatePost(savedUser.getUsername(), savedPost.getId(), newFile, null);
+        Post updatePost = postService.updatePost(savedUser.getId(), savedPost.getId(), newFile, null);
 
         assertThat(updatePost, notNullValue());
         assertThat(updatePost.getId(), is(savedPost.getId()));
@@ -173,21 +190,11 @@ class PostServiceImplTest {
         assertThat(updatePost.getFile(), notNullValue());
     }
 
-    @Test
-    @DisplayName("Обновление поста, пользователь не найден")
-    void updatePost_whenUserNotFound_shouldThrowNotFoundException() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
-        NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.updatePost(unknownUsername, savedPost.getId(), file, content));
-
-        assertThat(ex.getMessage(), is("Пользователь с именем '" + unknownUsername + "' не найден."));
-    }
-
     @Test
     @DisplayName("Обновление поста, пост не найден")
     void updatePost_whenPostNotFound_shouldThrowNotFoundException() {
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.updatePost(savedUser.getUsername(), unknownId, file, content));
+                () -> postService.updatePost(savedUser.getId(), unknownId, file, content));
 
         assertThat(ex.getMessage(), is("Пост с id '" + unknownId + "' не найден."));
     }
@@ -195,12 +202,12 @@ class PostServiceImplTest {
     @Test
     @DisplayName("Удаление поста")
     void deletePost() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
 
-        postService.deletePost(savedPost.getId(), savedUser.getUsername());
+        postService.deletePost(savedPost.getId(), savedUser.getId());
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.findPostById(savedPost.getId(), savedUser.getUsername()));
+                () -> postService.findPostById(savedPost.getId(), savedUser.getId()));
         assertThat(ex.getMessage(), is("Пост с id '" + savedPost.getId() + "' не найден."));
     }
 
@@ -208,26 +215,17 @@ class PostServiceImplTest {
     @DisplayName("Удаление поста, пост не найден")
     void deletePost_whenPostNotFound_shouldThrowNotFoundException() {
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.deletePost(unknownId, savedUser.getUsername()));
+                () -> postService.deletePost(unknownId, savedUser.getId()));
 
         assertThat(ex.getMessage(), is("Пост с id '" + unknownId + "' не найден."));
     }
 
-    @Test
-    @DisplayName("Удаление поста, пользователь не найден")
-    void deletePost_whenUserNotFound_shouldThrowNotFoundException() {
-        NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.deletePost(unknownId, unknownUsername));
-
-        assertThat(ex.getMessage(), is("Пользователь с именем '" + unknownUsername + "' не найден."));
-    }
-
     @Test
     @DisplayName("Получение поста по id")
     void findPostById() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
 
-        PostWithLike result = postService.findPostById(savedPost.getId(), savedUser.getUsername());
+        PostWithLike result = postService.findPostById(savedPost.getId(), savedUser.getId());
 
         assertThat(result, notNullValue());
         assertThat(result.getId(), is(savedPost.getId()));
@@ -239,11 +237,30 @@ class PostServiceImplTest {
         assertFalse(result.isLikedByUser());
     }
 
+    @Test
+    @DisplayName("Получение поста по id, просмотры записываются в базу данных отложенно")
+    void findPostById_whenViewedTwice_shouldCountPendingViewsAndFlushThem() {
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
+
+        postService.findPostById(savedPost.getId(), savedUser.getId());
+        PostWithLike result = postService.findPostById(savedPost.getId(), savedUser2.getId());
+
+        assertThat(result.getViews(), is(2L));
+        assertThat(postViewCounter.getPendingViews(savedPost.getId()), is(2L));
+
+        postViewCounter.flush();
+
+        Long storedViews = jdbcTemplate.queryForObject("SELECT views FROM posts WHERE post_id = ?", Long.class,
+                savedPost.getId());
+        assertThat(storedViews, is(2L));
+        assertThat(postViewCounter.getPendingViews(savedPost.getId()), is(0L));
+    }
+
     @Test
     @DisplayName("Получение поста по id, пост не найден")
     void findPostById_whenPostNotFound_shouldThrowNotFoundException() {
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.findPostById(unknownId, savedUser.getUsername()));
+                () -> postService.findPostById(unknownId, savedUser.getId()));
 
         assertThat(ex.getMessage(), is("Пост с id '" + unknownId + "' не найден."));
     }
@@ -251,7 +268,7 @@ class PostServiceImplTest {
     @Test
     @DisplayName("Получение списка постов пользователя, у пользователя один пост")
     void findPostsFromUser_whenUserHaveOnePost_shouldReturnOnlyOnePost() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
 
         List<Post> postsFromUser = postService.findPostsFromUser(savedUser.getId());
 
@@ -272,10 +289,10 @@ class PostServiceImplTest {
     @Test
     @DisplayName("Получение списка постов пользователя, у пользователя несколько постов")
     void findPostsFromUser_whenUserHaveMultiplePost_shouldReturnList() {
-        postService.createPost(savedUser.getUsername(), file, content);
-        postService.createPost(savedUser.getUsername(), file, content);
-        postService.createPost(savedUser.getUsername(), file, content);
-        postService.createPost(savedUser.getUsername(), file, content);
+        postService.createPost(savedUser.getId(), file, content);
+        postService.createPost(savedUser.getId(), file, content);
+        postService.createPost(savedUser.getId(), file, content);
+        postService.createPost(savedUser.getId(), file, content);
 
         List<Post> postsFromUser = postService.findPostsFromUser(savedUser.getId());
 
@@ -286,9 +303,9 @@ class PostServiceImplTest {
     @Test
     @DisplayName("Добавление лайка посту")
     void addLikeToPost_whenPostHaveNoLikes_shouldHaveOneLike() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
 
-        long numberOfLikes = postService.addLikeToPost(savedUser.getUsername(), savedPost.getId());
+        long numberOfLikes = postService.addLikeToPost(savedUser.getId(), savedPost.getId());
 
         assertThat(numberOfLikes, is(1L));
     }
@@ -296,10 +313,10 @@ class PostServiceImplTest {
     @Test
     @DisplayName("Повторное добавление лайка посту")
     void addLikeToPost_whenUserAlreadyLikedPost_shouldRemoveLikeFromPost() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
 
-        long firstLike = postService.addLikeToPost(savedUser.getUsername(), savedPost.getId());
-        long secondLike = postService.addLikeToPost(savedUser.getUsername(), savedPost.getId());
+        long firstLike = postService.addLikeToPost(savedUser.getId(), savedPost.getId());
+        long secondLike = postService.addLikeToPost(savedUser.getId(), savedPost.getId());
 
         assertThat(firstLike, is(1L));
         assertThat(secondLike, is(0L));
@@ -308,7 +325,7 @@ class PostServiceImplTest {
     @Test
     @DisplayName("Добавление лайка посту двумя пользователями")
     void addLikeToPost_whenTwoUserLikedPost_postShouldHaveTwoLikes() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
         User user2 = User.builder().name("Имя")
                 .username("username2")
                 .secondName("Отчество")
@@ -319,42 +336,51 @@ class PostServiceImplTest {
                 .build();
         User secondUser = userService.createUser(user2);
 
-        long firstLike = postService.addLikeToPost(savedUser.getUsername(), savedPost.getId());
-        long secondLike = postService.addLikeToPost(secondUser.getUsername(), savedPost.getId());
+        long firstLike = postService.addLikeToPost(savedUser.getId(), savedPost.getId());
+        long secondLike = postService.addLikeToPost(secondUser.getId(), savedPost.getId());
 
         assertThat(firstLike, is(1L));
         assertThat(secondLike, is(2L));
 
-        PostWithLike post = postService.findPostById(savedPost.getId(), savedUser.getUsername());
+        PostWithLike post = postService.findPostById(savedPost.getId(), savedUser.getId());
 
         assertTrue(post.isLikedByUser());
 
     }
 
     @Test
-    @DisplayName("Добавление лайка посту, пользователь не найден")
-    void addLikeToPost_whenUserNotFound_shouldThrowNotFoundException() {
+    @DisplayName("Добавление лайка посту, пост не найден")
+    void addLikeToPost_whenPostNotFound_shouldThrowNotFoundException() {
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.addLikeToPost(unknownUsername, unknownId));
+                () -> postService.addLikeToPost(savedUser.getId(), unknownId));
 
-        assertThat(ex.getMessage(), is("Пользователь с именем '" + unknownUsername + "' не найден."));
+        assertThat(ex.getMessage(), is("Пост с id '" + unknownId + "' не найден."));
     }
 
     @Test
-    @DisplayName("Добавление лайка посту, пост не найден")
-    void addLikeToPost_whenPostNotFound_shouldThrowNotFoundException() {
-        NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.addLikeToPost(savedUser.getUsername(), unknownId));
+    @DisplayName("Добавление лайка посту, пользователь не запрашивается из базы данных")
+    void addLikeToPost_shouldNotQueryUser() {
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
 
-        assertThat(ex.getMessage(), is("Пост с id '" + unknownId + "' не найден."));
+        try {
+            postService.addLikeToPost(savedUser2.getId(), savedPost.getId());
+
+            assertThat(statistics.getPrepareStatementCount(), is(2L));
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
     }
 
     @Test
     @DisplayName("Получение ленты постов без просмотров")
     @SneakyThrows
     void getPostsFeed_whenNoPostViews_shouldReturnFromLatestToEarliest() {
-        Post savedPost1 = postService.createPost(savedUser.getUsername(), file, content);
-        Post savedPost2 = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost1 = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost2 = postService.createPost(savedUser.getId(), file, content);
 
         List<Post> feed = postService.getPostsFeed(0, 10);
 
@@ -368,8 +394,8 @@ class PostServiceImplTest {
     @DisplayName("Получение ленты постов без просмотров, список длинной 1")
     @SneakyThrows
     void getPostsFeed_whenSizeIs1_shouldReturnOnePost() {
-        Post savedPost1 = postService.createPost(savedUser.getUsername(), file, content);
-        Post savedPost2 = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost1 = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost2 = postService.createPost(savedUser.getId(), file, content);
 
         List<Post> feed = postService.getPostsFeed(0, 1);
 
@@ -382,10 +408,11 @@ class PostServiceImplTest {
     @DisplayName("Получение ленты постов без просмотров")
     @SneakyThrows
     void getPostsFeed_whenPostHaveViews_shouldPostWithViewsFirst() {
-        Post savedPost1 = postService.createPost(savedUser.getUsername(), file, content);
-        Post savedPost2 = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost1 = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost2 = postService.createPost(savedUser.getId(), file, content);
 
-        postService.findPostById(savedPost1.getId(), savedUser.getUsername());
+        postService.findPostById(savedPost1.getId(), savedUser.getId());
+        postViewCounter.flush();
 
         List<Post> feed = postService.getPostsFeed(0, 10);
 
@@ -399,12 +426,13 @@ class PostServiceImplTest {
     @DisplayName("Получение ленты постов без просмотров")
     @SneakyThrows
     void getPostsFeed_whenAllPostsHaveViews_shouldPostWithMostViewsFirst() {
-        Post savedPost1 = postService.createPost(savedUser.getUsername(), file, content);
-        Post savedPost2 = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost1 = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost2 = postService.createPost(savedUser.getId(), file, content);
 
-        postService.findPostById(savedPost1.getId(), savedUser.getUsername());
-        postService.findPostById(savedPost2.getId(), savedUser.getUsername());
-        postService.findPostById(savedPost2.getId(), savedUser.getUsername());
+        postService.findPostById(savedPost1.getId(), savedUser.getId());
+        postService.findPostById(savedPost2.getId(), savedUser.getId());
+        postService.findPostById(savedPost2.getId(), savedUser.getId());
+        postViewCounter.flush();
 
         List<Post> feed = postService.getPostsFeed(0, 10);
 
@@ -414,15 +442,60 @@ class PostServiceImplTest {
         assertThat(feed.get(1).getId(), is(savedPost1.getId()));
     }
 
+    @Test
+    @DisplayName("Получение ленты постов по курсору")
+    @SneakyThrows
+    void getPostsFeed_whenCursorIsSet_shouldReturnNextPage() {
+        Post savedPost1 = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost2 = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost3 = postService.createPost(savedUser.getId(), file, content);
+
+        postService.findPostById(savedPost1.getId(), savedUser.getId());
+        postViewCounter.flush();
+
+        CursorPage<Post> firstPage = postService.getPostsFeed(null, 0, 2);
+        CursorPage<Post> secondPage = postService.getPostsFeed(firstPage.nextCursor(), 0, 2);
+
+        assertThat(firstPage.content().size(), is(2));
+        assertThat(firstPage.content().get(0).getId(), is(savedPost1.getId()));
+        assertThat(firstPage.content().get(1).getId(), is(savedPost3.getId()));
+        assertThat(firstPage.nextCursor(), notNullValue());
+        assertThat(secondPage.content().size(), is(1));
+        assertThat(secondPage.content().get(0).getId(), is(savedPost2.getId()));
+        assertThat(secondPage.nextCursor(), nullValue());
+    }
+
+    @Test
+    @DisplayName("Получение ленты постов по курсору, позиция курсора ищется по индексу ленты")
+    @SuppressWarnings("unchecked")
+    void getPostsFeed_whenCursorIsSet_shouldSeekFeedIndex() {
+        postService.createPost(savedUser.getId(), file, content);
+        postService.createPost(savedUser.getId(), file, content);
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+
+        List<String> plan = entityManager.createNativeQuery("EXPLAIN " + PostRepository.FEED_AFTER_QUERY)
+                .setParameter(1, 0L)
+                .setParameter(2, LocalDateTime.now())
+                .setParameter(3, Long.MAX_VALUE)
+                .setParameter(4, 10)
+                .getResultList();
+        String joinedPlan = String.join("\n", plan);
+
+        assertThat(joinedPlan, containsString("idx_posts_feed"));
+        assertThat(joinedPlan, containsString("Index Cond: (ROW(views, created_on, post_id) < ROW("));
+        assertThat(joinedPlan, not(containsString("Filter")));
+        assertThat(joinedPlan, not(containsString("Sort")));
+    }
+
     @Test
     @DisplayName("Добавление комментария к посту")
     void addCommentToPost() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
         Comment comment = Comment.builder()
                 .text("comment")
                 .build();
 
-        Comment savedComment = postService.addCommentToPost(savedUser.getUsername(), savedPost.getId(), comment);
+        Comment savedComment = postService.addCommentToPost(savedUser.getId(), savedPost.getId(), comment);
 
         assertThat(savedComment, notNullValue());
         assertThat(savedComment.getId(), greaterThan(0L));
@@ -434,15 +507,15 @@ class PostServiceImplTest {
     @Test
     @DisplayName("Обновление комментария")
     void updatedComment() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
         Comment comment = Comment.builder()
                 .text("comment")
                 .build();
-        Comment savedComment = postService.addCommentToPost(savedUser.getUsername(), savedPost.getId(), comment);
+        Comment savedComment = postService.addCommentToPost(savedUser.getId(), savedPost.getId(), comment);
         CommentRequest commentRequest = new CommentRequest("updated comment");
 
-        Comment updatedComment = postService.updateComment(savedUser.getUsername(), savedComment.getId(), commentRequest);
-        PostWithLike post = postService.findPostById(savedPost.getId(), savedUser.getUsername());
+        Comment updatedComment = postService.updateComment(savedUser.getId(), savedComment.getId(), commentRequest);
+        PostWithLike post = postService.findPostById(savedPost.getId(), savedUser.getId());
 
         assertThat(updatedComment, notNullValue());
         assertThat(updatedComment.getId(), is(savedComment.getId()));
@@ -452,63 +525,107 @@ class PostServiceImplTest {
         assertThat(post.getComments().get(0).getId(), is(savedComment.getId()));
     }
 
+    @Test
+    @DisplayName("Получение комментариев к посту по курсору")
+    void getPostComments_whenCursorIsSet_shouldReturnNextPage() {
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
+        Comment comment1 = postService.addCommentToPost(savedUser.getId(), savedPost.getId(),
+                Comment.builder().text("comment 1").build());
+        Comment comment2 = postService.addCommentToPost(savedUser2.getId(), savedPost.getId(),
+                Comment.builder().text("comment 2").build());
+        Comment comment3 = postService.addCommentToPost(savedUser.getId(), savedPost.getId(),
+                Comment.builder().text("comment 3").build());
+
+        CursorPage<Comment> firstPage = postService.getPostComments(savedPost.getId(), null, 2);
+        CursorPage<Comment> secondPage = postService.getPostComments(savedPost.getId(), firstPage.nextCursor(), 2);
+        Long commentsCount = jdbcTemplate.queryForObject("SELECT comments_count FROM posts WHERE post_id = ?",
+                Long.class, savedPost.getId());
+
+        assertThat(firstPage.content().size(), is(2));
+        assertThat(firstPage.content().get(0).getId(), is(comment1.getId()));
+        assertThat(firstPage.content().get(1).getId(), is(comment2.getId()));
+        assertThat(firstPage.nextCursor(), notNullValue());
+        assertThat(secondPage.content().size(), is(1));
+        assertThat(secondPage.content().get(0).getId(), is(comment3.getId()));
+        assertThat(secondPage.nextCursor(), nullValue());
+        assertThat(commentsCount, is(3L));
+    }
+
     @Test
     @DisplayName("Попытка обновить комментарий не автором")
     void updatedComment_whenNotAuthorTriesToUpdate_shouldThrowNotAuthorizedException() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
         Comment comment = Comment.builder()
                 .text("comment")
                 .build();
-        Comment savedComment = postService.addCommentToPost(savedUser.getUsername(), savedPost.getId(), comment);
+        Comment savedComment = postService.addCommentToPost(savedUser.getId(), savedPost.getId(), comment);
         CommentRequest commentRequest = new CommentRequest("updated comment");
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
-                () -> postService.updateComment(savedUser2.getUsername(), savedComment.getId(), commentRequest));
+                () -> postService.updateComment(savedUser2.getId(), savedComment.getId(), commentRequest));
 
-        assertThat(ex.getMessage(), is("Пользователь с именем '" + savedUser2.getUsername()
+        assertThat(ex.getMessage(), is("Пользователь с id '" + savedUser2.getId()
                 + "' не имеет прав на редактирование комментария с id '" + comment.getId() + "'."));
     }
 
     @Test
     @DisplayName("Удаление комментария")
     void deleteComment() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
         Comment comment = Comment.builder()
                 .text("comment")
                 .build();
-        Comment savedComment = postService.addCommentToPost(savedUser.getUsername(), savedPost.getId(), comment);
+        Comment savedComment = postService.addCommentToPost(savedUser.getId(), savedPost.getId(), comment);
         CommentRequest commentRequest = new CommentRequest("updated comment");
 
-        postService.deleteComment(savedUser.getUsername(), savedComment.getId());
+        postService.deleteComment(savedUser.getId(), savedComment.getId());
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> postService.updateComment(savedUser.getUsername(), savedComment.getId(), commentRequest));
+                () -> postService.updateComment(savedUser.getId(), savedComment.getId(), commentRequest));
+        Long commentsCount = jdbcTemplate.queryForObject("SELECT comments_count FROM posts WHERE post_id = ?",
+                Long.class, savedPost.getId());
 
         assertThat(ex.getMessage(), is("Комментарий с id '" + savedComment.getId() + "' не найден."));
+        assertThat(commentsCount, is(0L));
     }
 
     @Test
     @DisplayName("Попытка удалить комментарий не автором")
     void deleteComment_whenNotAuthorTriesToDelete_shouldThrowNotAuthorizedException() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
         Comment comment = Comment.builder()
                 .text("comment")
                 .build();
-        Comment savedComment = postService.addCommentToPost(savedUser.getUsername(), savedPost.getId(), comment);
+        Comment savedComment = postService.addCommentToPost(savedUser.getId(), savedPost.getId(), comment);
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
-                () -> postService.deleteComment(savedUser2.getUsername(), savedComment.getId()));
+                () -> postService.deleteComment(savedUser2.getId(), savedComment.getId()));
 
-        assertThat(ex.getMessage(), is("Пользователь с именем '" + savedUser2.getUsername()
+        assertThat(ex.getMessage(), is("Пользователь с id '" + savedUser2.getId()
                 + "' не имеет прав на редактирование комментария с id '" + comment.getId() + "'."));
     }
 
+    @Test
+    @DisplayName("Получение идентификаторов постов, которым пользователь поставил лайк")
+    void findLikedPostIds_whenUserLikedOnePost_shouldReturnOnlyLikedPostId() {
+        Post savedPost1 = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost2 = postService.createPost(savedUser.getId(), file, content);
+
+        postService.addLikeToPost(savedUser2.getId(), savedPost2.getId());
+
+        Set<Long> likedPostIds = postService.findLikedPostIds(savedUser2.getId(),
+                List.of(savedPost1, savedPost2));
+
+        assertThat(likedPostIds.size(), is(1));
+        assertTrue(likedPostIds.contains(savedPost2.getId()));
+    }
+
     @Test
     @DisplayName("Получение рекомендаций, у пользователя нет друзей.")
     void getRecommendations_whenUserHaveNoFriends_shouldDisplayAllPosts() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
 
-        List<Post> recommendations = postService.getRecommendations(savedUser2.getUsername(), 0, 10, PostSort.LIKES);
+        List<Post> recommendations = postService.getRecommendations(savedUser2.getId(), 0, 10, PostSort.LIKES);
 
         assertThat(recommendations, notNullValue());
         assertThat(recommendations.size(), is(1));
@@ -518,12 +635,12 @@ class PostServiceImplTest {
     @Test
     @DisplayName("Получение рекомендаций, сортировка по количеству лайков.")
     void getRecommendations_whenPostsHaveLikes_shouldBeOrderedByNumberOfLikes() {
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
-        Post savedPost2 = postService.createPost(savedUser.getUsername(), file, content);
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost2 = postService.createPost(savedUser.getId(), file, content);
 
-        postService.addLikeToPost(savedUser2.getUsername(), savedPost2.getId());
+        postService.addLikeToPost(savedUser2.getId(), savedPost2.getId());
 
-        List<Post> recommendations = postService.getRecommendations(savedUser2.getUsername(), 0, 10, PostSort.LIKES);
+        List<Post> recommendations = postService.getRecommendations(savedUser2.getId(), 0, 10, PostSort.LIKES);
 
         assertThat(recommendations, notNullValue());
         assertThat(recommendations.size(), is(2));
@@ -531,12 +648,47 @@ class PostServiceImplTest {
         assertThat(recommendations.get(1).getId(), is(savedPost.getId()));
     }
 
+    @Test
+    @DisplayName("Получение рекомендаций по курсору, сортировка по количеству лайков.")
+    void getRecommendations_whenCursorIsSet_shouldReturnNextPage() {
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost2 = postService.createPost(savedUser.getId(), file, content);
+        Post savedPost3 = postService.createPost(savedUser.getId(), file, content);
+
+        postService.addLikeToPost(savedUser2.getId(), savedPost.getId());
+
+        CursorPage<Post> firstPage = postService.getRecommendations(savedUser2.getId(), null, 0, 2,
+                PostSort.LIKES);
+        CursorPage<Post> secondPage = postService.getRecommendations(savedUser2.getId(),
+                firstPage.nextCursor(), 0, 2, PostSort.LIKES);
+
+        assertThat(firstPage.content().size(), is(2));
+        assertThat(firstPage.content().get(0).getId(), is(savedPost.getId()));
+        assertThat(firstPage.content().get(1).getId(), is(savedPost3.getId()));
+        assertThat(firstPage.nextCursor(), notNullValue());
+        assertThat(secondPage.content().size(), is(1));
+        assertThat(secondPage.content().get(0).getId(), is(savedPost2.getId()));
+        assertThat(secondPage.nextCursor(), nullValue());
+    }
+
+    @Test
+    @DisplayName("Получение рекомендаций, пользователь не должен получать посты друзей в рекомендации.")
+    void getRecommendations_whenUserHasFriend_shouldNotShowFriendPostsInRecommendations() {
+        postService.createPost(savedUser.getId(), file, content);
+        userService.addFriend(savedUser2.getId(), savedUser.getId());
+
+        List<Post> recommendations = postService.getRecommendations(savedUser2.getId(), 0, 10, PostSort.LIKES);
+
+        assertThat(recommendations, notNullValue());
+        assertThat(recommendations, emptyIterable());
+    }
+
     @Test
     @DisplayName("Получение рекомендаций, пользователь не должен получать свои посты в рекомендации.")
     void getRecommendations_whenUserHavePosts_shouldNotShowHisPostsInRecommendations() {
-        postService.createPost(savedUser.getUsername(), file, content);
+        postService.createPost(savedUser.getId(), file, content);
 
-        List<Post> recommendations = postService.getRecommendations(savedUser.getUsername(), 0, 10, PostSort.LIKES);
+        List<Post> recommendations = postService.getRecommendations(savedUser.getId(), 0, 10, PostSort.LIKES);
 
         assertThat(recommendations, notNullValue());
         assertThat(recommendations, emptyIterable());
@@ -546,8 +698,8 @@ class PostServiceImplTest {
     @DisplayName("Поиск постов, title null")
     void searchPosts_whenTitleIsNull_shouldReturnAllPosts() {
         PostSearchFilter searchFilter = new PostSearchFilter(null);
-        postService.createPost(savedUser.getUsername(), file, content);
-        postService.createPost(savedUser.getUsername(), file, content);
+        postService.createPost(savedUser.getId(), file, content);
+        postService.createPost(savedUser.getId(), file, content);
 
         List<Post> posts = postService.searchPosts(searchFilter, 0, 10);
 
@@ -559,8 +711,22 @@ class PostServiceImplTest {
     @DisplayName("Поиск постов")
     void searchPosts_whenTitleIsNotNull_shouldReturnPost() {
         PostSearchFilter searchFilter = new PostSearchFilter("PosT");
-        Post savedPost = postService.createPost(savedUser.getUsername(), file, content);
-        postService.createPost(savedUser.getUsername(), file, "new content");
+        Post savedPost = postService.createPost(savedUser.getId(), file, content);
+        postService.createPost(savedUser.getId(), file, "new content");
+
+        List<Post> posts = postService.searchPosts(searchFilter, 0, 10);
+
+        assertThat(posts, notNullValue());
+        assertThat(posts.size(), is(1));
+        assertThat(posts.get(0).getId(), is(savedPost.getId()));
+    }
+
+    @Test
+    @DisplayName("Поиск постов с учетом морфологии русского языка")
+    void searchPosts_whenTitleInOtherWordForm_shouldReturnPost() {
+        PostSearchFilter searchFilter = new PostSearchFilter("красивый закат");
+        Post savedPost = postService.createPost(savedUser.getId(), file, "Красивые закаты над морем");
+        postService.createPost(savedUser.getId(), file, "new content");
 
         List<Post> posts = postService.searchPosts(searchFilter, 0, 10);
 
@@ -568,4 +734,25 @@ class PostServiceImplTest {
         assertThat(posts.size(), is(1));
         assertThat(posts.get(0).getId(), is(savedPost.getId()));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Поиск постов по курсору, последний пост страницы удален до запроса следующей страницы")
+    void searchPosts_whenCursorPostDeleted_shouldReturnNextPage() {
+        PostSearchFilter searchFilter = new PostSearchFilter("красивый закат");
+        Post savedPost1 = postService.createPost(savedUser.getId(), file, "Красивые закаты над морем");
+        Post savedPost2 = postService.createPost(savedUser.getId(), file, "Красивые закаты над морем");
+        Post savedPost3 = postService.createPost(savedUser.getId(), file, "Красивые закаты над морем");
+
+        CursorPage<Post> firstPage = postService.searchPosts(searchFilter, null, 0, 2);
+        postService.deletePost(savedPost2.getId(), savedUser.getId());
+        CursorPage<Post> secondPage = postService.searchPosts(searchFilter, firstPage.nextCursor(), 0, 2);
+
+        assertThat(firstPage.content().size(), is(2));
+        assertThat(firstPage.content().get(0).getId(), is(savedPost3.getId()));
+        assertThat(firstPage.content().get(1).getId(), is(savedPost2.getId()));
+        assertThat(firstPage.nextCursor(), notNullValue());
+        assertThat(secondPage.content().size(), is(1));
+        assertThat(secondPage.content().get(0).getId(), is(savedPost1.getId()));
+        assertThat(secondPage.nextCursor(), nullValue());
+    }
+}
@@ -0,0 +1,128 @@
+package ru.yandex.kardomoblieapp.post.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PostViewCounterTest {
+
+    private static final int THREADS = 4;
+
+    private static final int VIEWS_PER_THREAD = 50_000;
+
+    private static final long POSTS = 3;
+
+    private static final long FLUSH_THRESHOLD = 1000;
+
+    @Test
+    @DisplayName("Параллельное добавление и запись просмотров, все просмотры записываются без потерь")
+    void flush_whenViewsAddedConcurrently_shouldConserveTotal() throws Exception {
+        AtomicLong flushedViews = new AtomicLong();
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doAnswer(invocation -> {
+            List<Object[]> batch = invocation.getArgument(1);
+            batch.forEach(views -> flushedViews.addAndGet((Long) views[0]));
+            return new int[batch.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        TaskScheduler taskScheduler = mock(TaskScheduler.class);
+        PostViewCounter counter = new PostViewCounter(jdbcTemplate, taskScheduler, FLUSH_THRESHOLD);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean adding = new AtomicBoolean(true);
+
+        try {
+            Future<?> flusher = executor.submit(() -> {
+                start.await();
+                while (adding.get()) {
+                    counter.flush();
+                }
+                return null;
+            });
+            List<Future<?>> writers = IntStream.range(0, THREADS)
+                    .<Future<?>>mapToObj(thread -> executor.submit(() -> {
+                        start.await();
+                        for (int i = 0; i < VIEWS_PER_THREAD; i++) {
+                            counter.addView(i % POSTS);
+                        }
+                        return null;
+                    }))
+                    .toList();
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get(1, TimeUnit.MINUTES);
+            }
+            adding.set(false);
+            flusher.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+        counter.flush();
+
+        assertThat(flushedViews.get(), is((long) THREADS * VIEWS_PER_THREAD));
+        for (long postId = 0; postId < POSTS; postId++) {
+            assertThat(counter.getPendingViews(postId), is(0L));
+        }
+        assertThat(counter.getPendingPostsCount(), is(0));
+        clearInvocations(taskScheduler);
+        for (int i = 1; i < FLUSH_THRESHOLD; i++) {
+            counter.addView(0);
+        }
+        verify(taskScheduler, never()).schedule(any(Runnable.class), any(Instant.class));
+    }
+
+    @Test
+    @DisplayName("Запись просмотров, записанные посты удаляются из счетчика")
+    void flush_whenViewsFlushed_shouldRemovePostsFromCounter() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        PostViewCounter counter = new PostViewCounter(jdbcTemplate, mock(TaskScheduler.class), FLUSH_THRESHOLD);
+        for (long postId = 0; postId < POSTS; postId++) {
+            counter.addView(postId);
+        }
+
+        counter.flush();
+
+        assertThat(counter.getPendingPostsCount(), is(0));
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    @DisplayName("Ошибка при записи просмотров, просмотры возвращаются в счетчик")
+    void flush_whenBatchUpdateFails_shouldKeepViews() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        doThrow(new DataAccessResourceFailureException("db is down"))
+                .when(jdbcTemplate).batchUpdate(anyString(), anyList());
+        PostViewCounter counter = new PostViewCounter(jdbcTemplate, mock(TaskScheduler.class), FLUSH_THRESHOLD);
+        counter.addView(1);
+        counter.addView(1);
+
+        counter.flush();
+
+        assertThat(counter.getPendingViews(1), is(2L));
+        assertThat(counter.getPendingPostsCount(), is(1));
+    }
+}
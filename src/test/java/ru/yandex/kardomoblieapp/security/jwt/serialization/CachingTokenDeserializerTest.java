@@ -0,0 +1,99 @@
+package ru.yandex.kardomoblieapp.security.jwt.serialization;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.kardomoblieapp.security.jwt.model.AccessToken;
+import ru.yandex.kardomoblieapp.security.jwt.model.Token;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+
+class CachingTokenDeserializerTest {
+
+    private static final Duration SWEEP_INTERVAL = Duration.ofSeconds(10);
+
+    @Test
+    @DisplayName("Разбор токена, повторный разбор действующего токена берется из кэша")
+    void convert_whenTokenIsValid_shouldDeserializeOnce() {
+        AtomicInteger calls = new AtomicInteger();
+        Token token = token(Instant.now().plusSeconds(300));
+        CachingTokenDeserializer deserializer = new CachingTokenDeserializer(string -> {
+            calls.incrementAndGet();
+            return token;
+        }, 10, SWEEP_INTERVAL);
+
+        Token first = deserializer.convert("token");
+        Token second = deserializer.convert("token");
+
+        assertThat(first, sameInstance(token));
+        assertThat(second, sameInstance(token));
+        assertThat(calls.get(), is(1));
+    }
+
+    @Test
+    @DisplayName("Разбор токена, истекший токен не кэшируется")
+    void convert_whenTokenExpired_shouldNotCache() {
+        AtomicInteger calls = new AtomicInteger();
+        Token token = token(Instant.now().minusSeconds(1));
+        CachingTokenDeserializer deserializer = new CachingTokenDeserializer(string -> {
+            calls.incrementAndGet();
+            return token;
+        }, 10, SWEEP_INTERVAL);
+
+        deserializer.convert("token");
+        deserializer.convert("token");
+
+        assertThat(calls.get(), is(2));
+    }
+
+    @Test
+    @DisplayName("Разбор токена, при заполненном кэше новые токены не кэшируются")
+    void convert_whenCacheIsFull_shouldNotCacheNewTokens() {
+        AtomicInteger calls = new AtomicInteger();
+        CachingTokenDeserializer deserializer = new CachingTokenDeserializer(string -> {
+            calls.incrementAndGet();
+            return token(Instant.now().plusSeconds(300));
+        }, 1, SWEEP_INTERVAL);
+
+        deserializer.convert("first");
+        deserializer.convert("second");
+        deserializer.convert("second");
+        deserializer.convert("first");
+
+        assertThat(calls.get(), is(3));
+    }
+
+    @Test
+    @DisplayName("Разбор токена, при заполненном кэше истекшие токены удаляются не чаще одного раза за интервал")
+    void convert_whenCacheIsFull_shouldSweepOncePerInterval() throws InterruptedException {
+        AtomicInteger calls = new AtomicInteger();
+        Map<String, Instant> expiresAt = Map.of(
+                "first", Instant.now().plusMillis(100),
+                "second", Instant.now().plusSeconds(300),
+                "third", Instant.now().plusSeconds(300));
+        CachingTokenDeserializer deserializer = new CachingTokenDeserializer(string -> {
+            calls.incrementAndGet();
+            return token(expiresAt.get(string));
+        }, 1, Duration.ofHours(1));
+
+        deserializer.convert("first");
+        deserializer.convert("second");
+        Thread.sleep(200);
+        deserializer.convert("third");
+        deserializer.convert("third");
+
+        assertThat(calls.get(), is(4));
+    }
+
+    private Token token(Instant expiresAt) {
+        return new AccessToken(UUID.randomUUID(), "user", 1L, "USER", List.of("ROLE_USER"), Instant.now(), expiresAt);
+    }
+}
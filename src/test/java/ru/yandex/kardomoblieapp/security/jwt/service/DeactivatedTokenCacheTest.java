@@ -0,0 +1,92 @@
+package ru.yandex.kardomoblieapp.security.jwt.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.yandex.kardomoblieapp.security.jwt.model.AccessToken;
+import ru.yandex.kardomoblieapp.security.jwt.model.DeactivatedToken;
+import ru.yandex.kardomoblieapp.security.jwt.repository.DeactivatedTokenRepository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.kardomoblieapp.TestUtils.POSTGRES_VERSION;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Transactional
+class DeactivatedTokenCacheTest {
+
+    @Autowired
+    private DeactivatedTokenCache deactivatedTokenCache;
+
+    @Autowired
+    private DeactivatedTokenRepository deactivatedTokenRepository;
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_VERSION);
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Test
+    @DisplayName("Отзыв токена, токен сразу считается отозванным и сохраняется в БД")
+    void deactivate_shouldMarkTokenAsDeactivated() {
+        Instant now = Instant.now();
+        AccessToken token = new AccessToken(UUID.randomUUID(), "user", 1L, "USER", List.of(), now,
+                now.plus(Duration.ofMinutes(5)));
+
+        deactivatedTokenCache.deactivate(token);
+
+        assertTrue(deactivatedTokenCache.isDeactivated(token.getId()));
+        assertTrue(deactivatedTokenRepository.existsById(token.getId()));
+    }
+
+    @Test
+    @DisplayName("Догрузка отозванных токенов, токен, отозванный другим экземпляром, считается отозванным")
+    void refresh_whenTokenDeactivatedElsewhere_shouldLoadToken() {
+        UUID tokenId = UUID.randomUUID();
+        deactivatedTokenRepository.saveAndFlush(new DeactivatedToken(tokenId, Instant.now().plusSeconds(300)));
+        assertFalse(deactivatedTokenCache.isDeactivated(tokenId));
+
+        deactivatedTokenCache.refresh();
+
+        assertTrue(deactivatedTokenCache.isDeactivated(tokenId));
+    }
+
+    @Test
+    @DisplayName("Догрузка отозванных токенов, токен с истекшим сроком хранения не загружается")
+    void refresh_whenTokenExpired_shouldNotLoadToken() {
+        UUID tokenId = UUID.randomUUID();
+        deactivatedTokenRepository.saveAndFlush(new DeactivatedToken(tokenId, Instant.now().minusSeconds(1)));
+
+        deactivatedTokenCache.refresh();
+
+        assertFalse(deactivatedTokenCache.isDeactivated(tokenId));
+    }
+}
@@ -0,0 +1,70 @@
+package ru.yandex.kardomoblieapp.security.jwt.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.yandex.kardomoblieapp.security.jwt.model.DeactivatedToken;
+import ru.yandex.kardomoblieapp.security.jwt.repository.DeactivatedTokenRepository;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static ru.yandex.kardomoblieapp.TestUtils.POSTGRES_VERSION;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+@Transactional
+class DeactivatedTokenPurgerTest {
+
+    @Autowired
+    private DeactivatedTokenPurger deactivatedTokenPurger;
+
+    @Autowired
+    private DeactivatedTokenRepository deactivatedTokenRepository;
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_VERSION);
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Test
+    @DisplayName("Очистка отозванных токенов, удаляются только токены с истекшим сроком хранения")
+    void purge_shouldDeleteOnlyExpiredTokens() {
+        UUID expiredId = UUID.randomUUID();
+        UUID activeId = UUID.randomUUID();
+        deactivatedTokenRepository.save(new DeactivatedToken(expiredId, Instant.now().minusSeconds(60)));
+        deactivatedTokenRepository.saveAndFlush(new DeactivatedToken(activeId, Instant.now().plusSeconds(300)));
+
+        long deleted = deactivatedTokenPurger.purge();
+
+        assertThat(deleted, greaterThanOrEqualTo(1L));
+        assertFalse(deactivatedTokenRepository.existsById(expiredId));
+        assertTrue(deactivatedTokenRepository.existsById(activeId));
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.kardomoblieapp.security.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+class RateLimitFilterTest {
+
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RateLimitFilter filter;
+
+    @BeforeEach
+    void init() {
+        filter = createFilter(100);
+    }
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Превышение лимита по IP-адресу, запрос отклоняется с кодом 429 и заголовком Retry-After")
+    void doFilter_whenLimitExceeded_shouldReturnTooManyRequests() throws Exception {
+        assertThat(perform("/users/login", "10.0.0.1").getStatus(), is(200));
+        assertThat(perform("/users/login", "10.0.0.1").getStatus(), is(200));
+
+        MockHttpServletResponse response = perform("/users/login", "10.0.0.1");
+
+        assertThat(response.getStatus(), is(429));
+        assertThat(response.getHeader(HttpHeaders.RETRY_AFTER), is("30"));
+        assertThat(meterRegistry.counter("http.server.requests.throttled", "route", "/users/login").count(),
+                is(1.0));
+    }
+
+    @Test
+    @DisplayName("Лимит считается отдельно для каждого IP-адреса")
+    void doFilter_whenDifferentAddresses_shouldUseSeparateBuckets() throws Exception {
+        perform("/users/login", "10.0.0.1");
+        perform("/users/login", "10.0.0.1");
+
+        assertThat(perform("/users/login", "10.0.0.2").getStatus(), is(200));
+    }
+
+    @Test
+    @DisplayName("Лимит аутентифицированного пользователя считается по имени пользователя, а не по IP-адресу")
+    void doFilter_whenAuthenticated_shouldUseSubject() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("user", null, "ROLE_USER"));
+        perform("/users/login", "10.0.0.1");
+        perform("/users/login", "10.0.0.2");
+
+        assertThat(perform("/users/login", "10.0.0.3").getStatus(), is(429));
+    }
+
+    @Test
+    @DisplayName("Корзина пополняется со временем")
+    void doFilter_afterRefill_shouldPassRequest() throws Exception {
+        perform("/users/login", "10.0.0.1");
+        perform("/users/login", "10.0.0.1");
+        assertThat(perform("/users/login", "10.0.0.1").getStatus(), is(429));
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertThat(perform("/users/login", "10.0.0.1").getStatus(), is(200));
+    }
+
+    @Test
+    @DisplayName("Маршрут без лимита не ограничивается")
+    void doFilter_whenRouteWithoutLimit_shouldPassRequest() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            MockHttpServletResponse response = perform("/posts/feed", "10.0.0.1");
+            assertThat(response.getStatus(), is(200));
+            assertThat(response.getHeader(HttpHeaders.RETRY_AFTER), nullValue());
+        }
+    }
+
+    @Test
+    @DisplayName("Места для новых корзин нет, новые клиенты делят общую корзину маршрута")
+    void doFilter_whenMaxBucketsReached_shouldShareOverflowBucket() throws Exception {
+        filter = createFilter(1);
+        assertThat(perform("/users/login", "10.0.0.1").getStatus(), is(200));
+
+        assertThat(perform("/users/login", "10.0.0.2").getStatus(), is(200));
+        assertThat(perform("/users/login", "10.0.0.3").getStatus(), is(200));
+        assertThat(perform("/users/login", "10.0.0.4").getStatus(), is(429));
+        assertThat(perform("/users/login", "10.0.0.1").getStatus(), is(200));
+    }
+
+    @Test
+    @DisplayName("Полные корзины удаляются не чаще интервала очистки")
+    void doFilter_whenSweepIntervalNotPassed_shouldNotSweepBuckets() throws Exception {
+        filter = createFilter(1);
+        perform("/users/login", "10.0.0.1");
+        perform("/users/login", "10.0.0.2");
+        perform("/users/login", "10.0.0.2");
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertThat(perform("/users/login", "10.0.0.3").getStatus(), is(200));
+        assertThat(perform("/users/login", "10.0.0.3").getStatus(), is(429));
+
+        clock.addAndGet(Duration.ofSeconds(30).toNanos());
+
+        assertThat(perform("/users/login", "10.0.0.4").getStatus(), is(200));
+        assertThat(perform("/users/login", "10.0.0.4").getStatus(), is(200));
+    }
+
+    private RateLimitFilter createFilter(int maxBuckets) {
+        RateLimitProperties.Route login = new RateLimitProperties.Route();
+        login.setPattern("/users/login");
+        login.setCapacity(2);
+        login.setPeriod(Duration.ofMinutes(1));
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRoutes(List.of(login));
+        properties.getDefaultLimit().setCapacity(0);
+        properties.setMaxBuckets(maxBuckets);
+        properties.setSweepInterval(Duration.ofMinutes(1));
+        meterRegistry = new SimpleMeterRegistry();
+        return new RateLimitFilter(properties, meterRegistry, clock::get);
+    }
+
+    private MockHttpServletResponse perform(String uri, String remoteAddr) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        request.setServletPath(uri);
+        request.setRemoteAddr(remoteAddr);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        if (response.getStatus() == 200) {
+            assertThat(chain.getRequest(), notNullValue());
+        }
+        return response;
+    }
+}
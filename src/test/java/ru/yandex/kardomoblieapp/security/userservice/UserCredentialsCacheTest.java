@@ -0,0 +1,78 @@
+package ru.yandex.kardomoblieapp.security.userservice;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.yandex.kardomoblieapp.user.model.UserCredentials;
+import ru.yandex.kardomoblieapp.user.model.UserRole;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+class UserCredentialsCacheTest {
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Удаление из кэша в транзакции, данные, загруженные до фиксации, удаляются после фиксации")
+    void evict_whenInTransaction_shouldEvictAgainAfterCommit() {
+        UserCredentialsCache cache = createCache(Duration.ofHours(1), 10, Duration.ofSeconds(10));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get("user", username -> load(username, loads));
+        TransactionSynchronizationManager.initSynchronization();
+
+        cache.evict("user");
+        cache.get("user", username -> load(username, loads));
+        TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+        cache.get("user", username -> load(username, loads));
+
+        assertThat(loads.get(), is(3));
+    }
+
+    @Test
+    @DisplayName("Кэш заполнен, устаревшие записи удаляются не чаще одного раза за интервал")
+    void get_whenCacheIsFull_shouldSweepOncePerInterval() {
+        UserCredentialsCache cache = createCache(Duration.ZERO, 1, Duration.ofHours(1));
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get("first", username -> load(username, loads));
+        cache.get("second", username -> load(username, loads));
+        cache.get("third", username -> load(username, loads));
+
+        Map<String, ?> credentials = getCredentials(cache);
+        assertThat(loads.get(), is(3));
+        assertThat(credentials.size(), is(1));
+        assertThat(credentials.containsKey("second"), is(true));
+    }
+
+    private UserCredentialsCache createCache(Duration ttl, int maxSize, Duration sweepInterval) {
+        UserCredentialsCache cache = new UserCredentialsCache();
+        ReflectionTestUtils.setField(cache, "ttl", ttl);
+        ReflectionTestUtils.setField(cache, "maxSize", maxSize);
+        ReflectionTestUtils.setField(cache, "sweepInterval", sweepInterval);
+        return cache;
+    }
+
+    private Optional<UserCredentials> load(String username, AtomicInteger loads) {
+        loads.incrementAndGet();
+        return Optional.of(new UserCredentials(1L, username, "password", UserRole.USER));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, ?> getCredentials(UserCredentialsCache cache) {
+        return (Map<String, ?>) ReflectionTestUtils.getField(cache, "credentials");
+    }
+}
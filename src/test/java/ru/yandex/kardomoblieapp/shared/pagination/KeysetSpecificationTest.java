@@ -0,0 +1,149 @@
+package ru.yandex.kardomoblieapp.shared.pagination;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.JDBCException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Проверка SQL, который Hibernate формирует для условий keyset. Запрос не выполняется: SQL перехватывается перед
+ * получением соединения, поэтому база данных для теста не нужна.
+ */
+class KeysetSpecificationTest {
+
+    private static final List<String> statements = new ArrayList<>();
+
+    private static StandardServiceRegistry registry;
+
+    private static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void beforeAll() {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting("hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect")
+                .applySetting("hibernate.boot.allow_jdbc_metadata_access", "false")
+                .applySetting("hibernate.connection.provider_class", NoConnectionProvider.class.getName())
+                .applySetting("hibernate.session_factory.statement_inspector", (StatementInspector) sql -> {
+                    statements.add(sql);
+                    return sql;
+                })
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClass(Item.class)
+                .buildMetadata()
+                .buildSessionFactory();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @BeforeEach
+    void init() {
+        statements.clear();
+    }
+
+    @Test
+    @DisplayName("Условие keyset по возрастанию строится как сравнение строк")
+    void after_whenDirectionIsAsc_shouldCompareRowValues() {
+        String sql = toSql(KeysetSpecification.after("start", LocalDateTime.now(), 1L, Sort.Direction.ASC));
+
+        assertThat(sql, containsString("(i1_0.start_date,i1_0.item_id)>(?,?)"));
+        assertThat(sql, not(containsString(" or ")));
+    }
+
+    @Test
+    @DisplayName("Условие keyset по убыванию строится как сравнение строк")
+    void after_whenDirectionIsDesc_shouldCompareRowValues() {
+        String sql = toSql(KeysetSpecification.after("prize", 10, 1L, Sort.Direction.DESC));
+
+        assertThat(sql, containsString("(i1_0.prize,i1_0.item_id)<(?,?)"));
+        assertThat(sql, not(containsString(" or ")));
+    }
+
+    private String toSql(Specification<Item> specification) {
+        try (Session session = sessionFactory.openSession()) {
+            CriteriaBuilder criteriaBuilder = session.getCriteriaBuilder();
+            CriteriaQuery<Item> query = criteriaBuilder.createQuery(Item.class);
+            Root<Item> root = query.from(Item.class);
+            query.where(specification.toPredicate(root, query, criteriaBuilder));
+
+            assertThrows(JDBCException.class, () -> session.createQuery(query).setMaxResults(10).getResultList());
+        }
+        assertThat(statements, hasSize(1));
+        return statements.get(0);
+    }
+
+    @Entity
+    @Table(name = "items")
+    static class Item {
+
+        @Id
+        @Column(name = "item_id")
+        private Long id;
+
+        @Column(name = "start_date")
+        private LocalDateTime start;
+
+        private Integer prize;
+    }
+
+    public static class NoConnectionProvider implements ConnectionProvider {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            throw new SQLException("Соединение с базой данных не используется в тесте.");
+        }
+
+        @Override
+        public void closeConnection(Connection connection) {
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        @Override
+        public boolean isUnwrappableAs(Class<?> unwrapType) {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> unwrapType) {
+            return null;
+        }
+    }
+}
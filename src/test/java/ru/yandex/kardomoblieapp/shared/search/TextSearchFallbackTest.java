@@ -0,0 +1,158 @@
+package ru.yandex.kardomoblieapp.shared.search;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.yandex.kardomoblieapp.event.dto.EventSearchFilter;
+import ru.yandex.kardomoblieapp.event.dto.NewEventRequest;
+import ru.yandex.kardomoblieapp.event.model.Event;
+import ru.yandex.kardomoblieapp.event.model.EventType;
+import ru.yandex.kardomoblieapp.event.service.EventService;
+import ru.yandex.kardomoblieapp.post.dto.PostSearchFilter;
+import ru.yandex.kardomoblieapp.post.model.Post;
+import ru.yandex.kardomoblieapp.post.service.PostService;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.user.model.User;
+import ru.yandex.kardomoblieapp.user.service.UserService;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.emptyIterable;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static ru.yandex.kardomoblieapp.TestUtils.POSTGRES_VERSION;
+
+/**
+ * Поиск при search.full-text.enabled=false. Функции fts_match и fts_rank удаляются в транзакции теста, как в базе
+ * данных без них, поэтому любое обращение к полнотекстовому поиску завершится ошибкой.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = "search.full-text.enabled=false")
+@ActiveProfiles("test")
+@Transactional
+class TextSearchFallbackTest {
+
+    @Autowired
+    private PostService postService;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User savedUser;
+
+    private MockMultipartFile file;
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_VERSION);
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @BeforeEach
+    @SneakyThrows
+    void init() {
+        jdbcTemplate.execute("DROP FUNCTION fts_match(TEXT, TEXT), fts_rank(TEXT, TEXT) CASCADE");
+        savedUser = userService.createUser(User.builder()
+                .name("Имя")
+                .username("username")
+                .secondName("Отчество")
+                .surname("Фамилия")
+                .email("test@mail.ru")
+                .password("password")
+                .dateOfBirth(LocalDate.of(1990, 12, 12))
+                .build());
+        InputStream inputStream = Thread.currentThread().getContextClassLoader().getResourceAsStream("test.jpg");
+        file = new MockMultipartFile("file", "fileName", MediaType.IMAGE_JPEG_VALUE, inputStream);
+    }
+
+    @Test
+    @DisplayName("Поиск постов без полнотекстового поиска находит подстроку без учета регистра")
+    void searchPosts_whenFullTextDisabled_shouldFindSubstring() {
+        Post savedPost = postService.createPost(savedUser.getId(), file, "post content");
+        postService.createPost(savedUser.getId(), file, "new text");
+
+        CursorPage<Post> posts = postService.searchPosts(new PostSearchFilter("PosT"), null, 0, 10);
+
+        assertThat(posts.content().size(), is(1));
+        assertThat(posts.content().get(0).getId(), is(savedPost.getId()));
+        assertThat(posts.nextCursor(), nullValue());
+    }
+
+    @Test
+    @DisplayName("Поиск постов без полнотекстового поиска не учитывает морфологию")
+    void searchPosts_whenFullTextDisabledAndTitleInOtherWordForm_shouldNotFindPost() {
+        postService.createPost(savedUser.getId(), file, "Красивые закаты над морем");
+
+        List<Post> posts = postService.searchPosts(new PostSearchFilter("красивый закат"), 0, 10);
+
+        assertThat(posts, emptyIterable());
+    }
+
+    @Test
+    @DisplayName("Поиск мероприятий по тексту без полнотекстового поиска")
+    void searchEvents_whenFullTextDisabled_shouldFindSubstringInNameOrDescription() {
+        Event first = eventService.createEvent(createNewEventRequest("Турнир по брейкингу", "описание"));
+        Event second = eventService.createEvent(createNewEventRequest("Фестиваль", "финал турнира"));
+        eventService.createEvent(createNewEventRequest("Выставка", "описание"));
+        EventSearchFilter filter = EventSearchFilter.builder()
+                .text("ТУРНИР")
+                .build();
+
+        CursorPage<Event> firstPage = eventService.searchEvents(filter, null, 0, 1);
+        CursorPage<Event> secondPage = eventService.searchEvents(filter, firstPage.nextCursor(), 0, 1);
+
+        assertThat(firstPage.content().size(), is(1));
+        assertThat(firstPage.content().get(0).getId(), is(first.getId()));
+        assertThat(secondPage.content().size(), is(1));
+        assertThat(secondPage.content().get(0).getId(), is(second.getId()));
+    }
+
+    private NewEventRequest createNewEventRequest(String name, String description) {
+        return NewEventRequest.builder()
+                .activityId(4)
+                .eventName(name)
+                .description(description)
+                .eventType(EventType.VIDEO_CONTEST)
+                .eventStart(LocalDateTime.of(2024, 12, 12, 10, 10, 0))
+                .eventEnd(LocalDateTime.of(2024, 12, 23, 10, 10, 0))
+                .prize(100_000)
+                .countryId(4L)
+                .city("City")
+                .build();
+    }
+}
@@ -18,8 +18,11 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import ru.yandex.kardomoblieapp.datafiles.dto.DataFileDto;
 import ru.yandex.kardomoblieapp.datafiles.mapper.DataFileMapper;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.shared.exception.InvalidCursorException;
 import ru.yandex.kardomoblieapp.shared.exception.NotAuthorizedException;
 import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
+import ru.yandex.kardomoblieapp.shared.pagination.PageCursor;
 import ru.yandex.kardomoblieapp.user.dto.NewUserRequest;
 import ru.yandex.kardomoblieapp.user.dto.NewUserResponse;
 import ru.yandex.kardomoblieapp.user.dto.UserDto;
@@ -31,11 +34,14 @@ import ru.yandex.kardomoblieapp.user.service.UserService;
 
 import java.io.InputStream;
 import java.time.LocalDate;
+import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
@@ -49,6 +55,7 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -527,5 +534,40 @@ class UserControllerTest {
 
         verify(userService, times(1)).deleteProfilePicture(userId);
     }
-}
 
+    @Test
+    @SneakyThrows
+    @DisplayName("Поиск пользователей, курсор следующей страницы передается в заголовке и принимается в параметре")
+    void findAllUsers_whenNextPageExists_shouldReturnCursorHeaderAndAcceptItBack() {
+        String cursor = PageCursor.encode(3L);
+        when(userService.findAllUsers(any(), isNull(), eq(0), eq(1)))
+                .thenReturn(new CursorPage<>(List.of(user), cursor));
+        when(userService.findAllUsers(any(), eq(cursor), eq(0), eq(1)))
+                .thenReturn(new CursorPage<>(List.of(user), null));
+        when(userMapper.toDtoList(List.of(user))).thenReturn(List.of(userDto));
+
+        mvc.perform(get("/users").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER, cursor))
+                .andExpect(jsonPath("$[0].id", is(userDto.id()), Long.class));
+
+        mvc.perform(get("/users").param("cursor", cursor).param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(PageCursor.NEXT_CURSOR_HEADER));
+
+        verify(userService, times(1)).findAllUsers(any(), eq(cursor), eq(0), eq(1));
+    }
+
+    @Test
+    @SneakyThrows
+    @DisplayName("Поиск пользователей по некорректному курсору")
+    void findAllUsers_whenCursorIsInvalid_shouldReturn400Status() {
+        when(userService.findAllUsers(any(), eq("!!!"), eq(0), eq(10)))
+                .thenThrow(new InvalidCursorException("Некорректный курсор '!!!'."));
+
+        mvc.perform(get("/users").param("cursor", "!!!"))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> assertTrue(result.getResolvedException() instanceof InvalidCursorException))
+                .andExpect(jsonPath("$.errors.error", is("Некорректный курсор '!!!'.")));
+    }
+}
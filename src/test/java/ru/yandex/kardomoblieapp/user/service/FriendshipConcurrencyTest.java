@@ -0,0 +1,105 @@
+package ru.yandex.kardomoblieapp.user.service;
+
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.yandex.kardomoblieapp.user.model.User;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.is;
+import static ru.yandex.kardomoblieapp.TestUtils.POSTGRES_VERSION;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("test")
+class FriendshipConcurrencyTest {
+
+    private static final int PAIRS = 20;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>(POSTGRES_VERSION);
+
+    @BeforeAll
+    static void beforeAll() {
+        postgres.start();
+    }
+
+    @AfterAll
+    static void afterAll() {
+        postgres.stop();
+    }
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Test
+    @DisplayName("Одновременное добавление друг друга в друзья, обе записи получают статус друг")
+    @SneakyThrows
+    void addFriend_whenMutualRequestsAreConcurrent_shouldSetStatusFriendForBoth() {
+        final List<User> users = new ArrayList<>();
+        for (int i = 0; i < PAIRS * 2; i++) {
+            users.add(userService.createUser(User.builder()
+                    .name("Имя")
+                    .username("friend" + i)
+                    .secondName("Отчество")
+                    .surname("Фамилия")
+                    .email("friend" + i + "@mail.ru")
+                    .password("password")
+                    .dateOfBirth(LocalDate.of(1990, 12, 12))
+                    .build()));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(PAIRS * 2);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < PAIRS; i++) {
+            final long firstId = users.get(i * 2).getId();
+            final long secondId = users.get(i * 2 + 1).getId();
+            results.add(executor.submit(() -> {
+                start.await();
+                return userService.addFriend(firstId, secondId);
+            }));
+            results.add(executor.submit(() -> {
+                start.await();
+                return userService.addFriend(secondId, firstId);
+            }));
+        }
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<String> statuses = jdbcTemplate.queryForList("SELECT status FROM friendship", String.class);
+
+        assertThat(statuses.size(), is(PAIRS * 2));
+        assertThat(statuses, everyItem(is("FRIEND")));
+    }
+}
@@ -1,5 +1,7 @@
 package ru.yandex.kardomoblieapp.user.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -10,12 +12,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import ru.yandex.kardomoblieapp.datafiles.model.DataFile;
+import ru.yandex.kardomoblieapp.shared.exception.InvalidCursorException;
 import ru.yandex.kardomoblieapp.shared.exception.NotFoundException;
+import ru.yandex.kardomoblieapp.shared.pagination.CursorPage;
 import ru.yandex.kardomoblieapp.user.dto.UserSearchFilter;
 import ru.yandex.kardomoblieapp.user.dto.UserUpdateRequest;
 import ru.yandex.kardomoblieapp.user.model.Friendship;
@@ -29,6 +36,7 @@ import java.time.LocalDate;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
@@ -45,6 +53,12 @@ class UserServiceImplTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private User user1;
 
     private User user2;
@@ -192,7 +206,7 @@ class UserServiceImplTest {
         DataFile savedFile = userService.uploadProfilePicture(savedUser.getId(), file);
 
         assertThat(savedFile, notNullValue());
-        assertThat(savedFile.getFileType(), is(file.getContentType()));
+        assertThat(savedFile.getFileType(), is(MediaType.IMAGE_JPEG_VALUE));
         assertThat(savedUser.getId(), greaterThan(0L));
     }
 
@@ -290,6 +304,17 @@ class UserServiceImplTest {
         assertThat(friendship.getId().getFriend().getId(), is(savedUser.getId()));
     }
 
+    @Test
+    @DisplayName("Добавление в друзья несуществующего пользователя")
+    void addFriend_whenFriendNotFound_shouldThrowNotFoundException() {
+        User savedUser = userService.createUser(user1);
+
+        NotFoundException ex = assertThrows(NotFoundException.class,
+                () -> userService.addFriend(savedUser.getId(), unknownId));
+
+        assertThat(ex.getMessage(), is("Пользователь с id '" + unknownId + "' не найден."));
+    }
+
     @Test
     @DisplayName("Получение списка друзей, друзей нет")
     void getFriendsList_whenNoFriends_shouldReturnEmptyList() {
@@ -355,6 +380,158 @@ class UserServiceImplTest {
         assertThat(friends, emptyIterable());
     }
 
+    @Test
+    @DisplayName("Удаление из друзей при взаимной дружбе, второй пользователь остается подписчиком")
+    void deleteFriend_whenMutual_shouldKeepReverseSubscription() {
+        User savedUser = userService.createUser(user1);
+        User savedUser2 = userService.createUser(user2);
+        userService.addFriend(savedUser.getId(), savedUser2.getId());
+        userService.addFriend(savedUser2.getId(), savedUser.getId());
+
+        userService.deleteFriend(savedUser.getId(), savedUser2.getId());
+
+        Friendship friendship = userService.addFriend(savedUser2.getId(), savedUser.getId());
+
+        assertThat(friendship.getStatus(), is(FriendshipStatus.SUBSCRIBER));
+    }
+
+    @Test
+    @DisplayName("Счетчики подписчиков, подписок и друзей при повторном добавлении в друзья")
+    void addFriend_whenCalledTwice_shouldUpdateCountersOnce() {
+        User savedUser = userService.createUser(user1);
+        User savedUser2 = userService.createUser(user2);
+        userService.addFriend(savedUser.getId(), savedUser2.getId());
+        Friendship friendship = userService.addFriend(savedUser.getId(), savedUser2.getId());
+        entityManager.clear();
+
+        User user = userService.findUserById(savedUser.getId());
+        User friend = userService.findUserById(savedUser2.getId());
+
+        assertThat(friendship.getStatus(), is(FriendshipStatus.SUBSCRIBER));
+        assertThat(user.getFollowersCount(), is(0L));
+        assertThat(user.getFollowingCount(), is(1L));
+        assertThat(user.getFriendsCount(), is(0L));
+        assertThat(friend.getFollowersCount(), is(1L));
+        assertThat(friend.getFollowingCount(), is(0L));
+        assertThat(friend.getFriendsCount(), is(0L));
+    }
+
+    @Test
+    @DisplayName("Счетчики подписчиков, подписок и друзей при взаимной дружбе")
+    void addFriend_whenMutual_shouldUpdateCounters() {
+        User savedUser = userService.createUser(user1);
+        User savedUser2 = userService.createUser(user2);
+        userService.addFriend(savedUser.getId(), savedUser2.getId());
+        userService.addFriend(savedUser2.getId(), savedUser.getId());
+        userService.addFriend(savedUser.getId(), savedUser2.getId());
+        entityManager.clear();
+
+        User user = userService.findUserById(savedUser.getId());
+        User friend = userService.findUserById(savedUser2.getId());
+
+        assertThat(user.getFollowersCount(), is(1L));
+        assertThat(user.getFollowingCount(), is(1L));
+        assertThat(user.getFriendsCount(), is(1L));
+        assertThat(friend.getFollowersCount(), is(1L));
+        assertThat(friend.getFollowingCount(), is(1L));
+        assertThat(friend.getFriendsCount(), is(1L));
+    }
+
+    @Test
+    @DisplayName("Счетчики подписчиков, подписок и друзей после удаления из друзей")
+    void deleteFriend_whenMutual_shouldUpdateCounters() {
+        User savedUser = userService.createUser(user1);
+        User savedUser2 = userService.createUser(user2);
+        userService.addFriend(savedUser.getId(), savedUser2.getId());
+        userService.addFriend(savedUser2.getId(), savedUser.getId());
+
+        userService.deleteFriend(savedUser.getId(), savedUser2.getId());
+        userService.deleteFriend(savedUser.getId(), savedUser2.getId());
+        entityManager.clear();
+
+        User user = userService.findUserById(savedUser.getId());
+        User friend = userService.findUserById(savedUser2.getId());
+
+        assertThat(user.getFollowersCount(), is(1L));
+        assertThat(user.getFollowingCount(), is(0L));
+        assertThat(user.getFriendsCount(), is(0L));
+        assertThat(friend.getFollowersCount(), is(0L));
+        assertThat(friend.getFollowingCount(), is(1L));
+        assertThat(friend.getFriendsCount(), is(0L));
+    }
+
+    @Test
+    @DisplayName("Счетчики подписчиков, подписок и друзей после удаления пользователя")
+    void deleteUser_whenUserHasFollowersAndFriends_shouldUpdateCountersOfRelatedUsers() {
+        User savedUser = userService.createUser(user1);
+        User savedUser2 = userService.createUser(user2);
+        User savedUser3 = userService.createUser(user3);
+        userService.addFriend(savedUser.getId(), savedUser2.getId());
+        userService.addFriend(savedUser2.getId(), savedUser.getId());
+        userService.addFriend(savedUser3.getId(), savedUser.getId());
+        userService.addFriend(savedUser3.getId(), savedUser2.getId());
+
+        userService.deleteUser(savedUser.getId());
+        entityManager.clear();
+
+        User friend = userService.findUserById(savedUser2.getId());
+        User follower = userService.findUserById(savedUser3.getId());
+
+        assertThat(friend.getFollowersCount(), is(1L));
+        assertThat(friend.getFollowingCount(), is(0L));
+        assertThat(friend.getFriendsCount(), is(0L));
+        assertThat(follower.getFollowersCount(), is(0L));
+        assertThat(follower.getFollowingCount(), is(1L));
+        assertThat(follower.getFriendsCount(), is(0L));
+    }
+
+    @Test
+    @DisplayName("Получение подписчиков пользователя по страницам")
+    void getFollowers_withCursor_shouldReturnNextPage() {
+        User savedUser = userService.createUser(user1);
+        User savedUser2 = userService.createUser(user2);
+        User savedUser3 = userService.createUser(user3);
+        userService.addFriend(savedUser2.getId(), savedUser.getId());
+        userService.addFriend(savedUser3.getId(), savedUser.getId());
+
+        CursorPage<User> firstPage = userService.getFollowers(savedUser.getId(), null, 1);
+        CursorPage<User> secondPage = userService.getFollowers(savedUser.getId(), firstPage.nextCursor(), 1);
+        CursorPage<User> lastPage = userService.getFollowers(savedUser.getId(), secondPage.nextCursor(), 1);
+
+        assertThat(firstPage.content().size(), is(1));
+        assertThat(firstPage.content().get(0).getId(), is(savedUser2.getId()));
+        assertThat(secondPage.content().size(), is(1));
+        assertThat(secondPage.content().get(0).getId(), is(savedUser3.getId()));
+        assertThat(lastPage.content(), emptyIterable());
+        assertThat(lastPage.nextCursor(), nullValue());
+    }
+
+    @Test
+    @DisplayName("Получение подписок пользователя")
+    void getFollowing_shouldReturnFollowedUsers() {
+        User savedUser = userService.createUser(user1);
+        User savedUser2 = userService.createUser(user2);
+        User savedUser3 = userService.createUser(user3);
+        userService.addFriend(savedUser.getId(), savedUser3.getId());
+        userService.addFriend(savedUser.getId(), savedUser2.getId());
+
+        CursorPage<User> following = userService.getFollowing(savedUser.getId(), null, 10);
+
+        assertThat(following.content().size(), is(2));
+        assertThat(following.content().get(0).getId(), is(savedUser2.getId()));
+        assertThat(following.content().get(1).getId(), is(savedUser3.getId()));
+        assertThat(following.nextCursor(), nullValue());
+    }
+
+    @Test
+    @DisplayName("Получение подписчиков несуществующего пользователя")
+    void getFollowers_whenUserNotFound_shouldThrowNotFoundException() {
+        NotFoundException ex = assertThrows(NotFoundException.class,
+                () -> userService.getFollowers(unknownId, null, 10));
+
+        assertThat(ex.getMessage(), is("Пользователь с id '" + unknownId + "' не найден."));
+    }
+
     @Test
     @DisplayName("Поиск пользователя по username")
     void findAllUsers_whenFilterForUsername_shouldReturnUserWithDesiredUsername() {
@@ -384,6 +561,33 @@ class UserServiceImplTest {
         assertThat(users.get(1).getId(), is(savedUser2.getId()));
     }
 
+    @Test
+    @DisplayName("Поиск пользователей по курсору, страницы не пересекаются и не теряют пользователей")
+    void findAllUsers_whenPagingByCursor_shouldReturnAllUsersOnce() {
+        User savedUser = userService.createUser(user1);
+        User savedUser2 = userService.createUser(user2);
+        User savedUser3 = userService.createUser(user3);
+        UserSearchFilter filter = new UserSearchFilter("username");
+
+        CursorPage<User> firstPage = userService.findAllUsers(filter, null, 0, 2);
+        CursorPage<User> secondPage = userService.findAllUsers(filter, firstPage.nextCursor(), 0, 2);
+
+        assertThat(firstPage.content().stream().map(User::getId).toList(),
+                contains(savedUser.getId(), savedUser2.getId()));
+        assertThat(firstPage.nextCursor(), notNullValue());
+        assertThat(secondPage.content().stream().map(User::getId).toList(), contains(savedUser3.getId()));
+        assertThat(secondPage.nextCursor(), nullValue());
+    }
+
+    @Test
+    @DisplayName("Поиск пользователей по некорректному курсору")
+    void findAllUsers_whenCursorIsInvalid_shouldThrowInvalidCursorException() {
+        InvalidCursorException ex = assertThrows(InvalidCursorException.class,
+                () -> userService.findAllUsers(new UserSearchFilter(null), "!!!", 0, 2));
+
+        assertThat(ex.getMessage(), is("Некорректный курсор '!!!'."));
+    }
+
     @Test
     @DisplayName("Поиск пользователя по email")
     void findAllUsers_whenSearchForEmail_shouldReturnAllUsersWithDesiredEmail() {
@@ -451,6 +655,18 @@ class UserServiceImplTest {
         assertThat(changed.getRole(), is(UserRole.ADMIN));
     }
 
+    @Test
+    @DisplayName("Изменение роли пользователя, данные для аутентификации не берутся из кэша")
+    void changeUserRole_whenCredentialsCached_shouldLoadNewRole() {
+        User savedUser = userService.createUser(user1);
+        userDetailsService.loadUserByUsername(savedUser.getUsername());
+
+        userService.changeUserRole(savedUser.getId(), UserRole.ADMIN);
+        UserDetails userDetails = userDetailsService.loadUserByUsername(savedUser.getUsername());
+
+        assertThat(userDetails.getAuthorities(), contains(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    }
+
     private User createUser(int id) {
         return User.builder()
                 .username("username" + id)